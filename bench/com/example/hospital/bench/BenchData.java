@@ -0,0 +1,190 @@
+package com.example.hospital.bench;
+
+import com.example.hospital.dao.*;
+import com.example.hospital.model.*;
+import com.example.hospital.util.DBConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Synthetic rows for the DAO benchmarks, in every table, with ids from {@link #BASE} up so
+ * they can't collide with real data and can be deleted again by id range.
+ *
+ * A dataset of n rows has n patients, visits and prescriptions, and n / 10 (at least 10)
+ * doctors, drugs and insurance companies. Every 4th doctor is a specialist and every other
+ * patient is insured. Visits and prescriptions are spread over the patients and over the
+ * last two years, so a patient's timeline has a handful of entries of each kind.
+ */
+final class BenchData {
+
+    static final int BASE = 900_000_000;
+    /** Ids handed out by write benchmarks start here, above any seeded row. */
+    static final int SCRATCH_BASE = BASE + 50_000_000;
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    // child tables first, so the foreign keys don't get in the way
+    private static final String[][] TABLES = {
+            {"prescriptions", "prescriptionID"},
+            {"visits", "visit_id"},
+            {"insured_patients", "patient_id"},
+            {"patients", "patient_id"},
+            {"specialists", "specialist_id"},
+            {"doctors", "doctor_id"},
+            {"drugs", "drug_id"},
+            {"insurance", "insurance_id"},
+    };
+
+    final int rows;
+    final int smallRows;
+
+    BenchData(int rows) {
+        this.rows = rows;
+        this.smallRows = Math.max(10, rows / 10);
+    }
+
+    // ids of the seeded rows; any i (even negative) maps onto one of them
+    int patientId(int i) {
+        return BASE + Math.floorMod(i, rows);
+    }
+
+    int doctorId(int i) {
+        return BASE + Math.floorMod(i, smallRows);
+    }
+
+    int specialistId(int i) {
+        return doctorId(4 * Math.floorMod(i, specialistCount()));
+    }
+
+    int insuredPatientId(int i) {
+        return patientId(2 * Math.floorMod(i, insuredCount()));
+    }
+
+    int drugId(int i) {
+        return BASE + Math.floorMod(i, smallRows);
+    }
+
+    int insuranceId(int i) {
+        return BASE + Math.floorMod(i, smallRows);
+    }
+
+    int visitId(int i) {
+        return BASE + Math.floorMod(i, rows);
+    }
+
+    int prescriptionId(int i) {
+        return BASE + Math.floorMod(i, rows);
+    }
+
+    int specialistCount() {
+        return (smallRows + 3) / 4;
+    }
+
+    int insuredCount() {
+        return (rows + 1) / 2;
+    }
+
+    // row factories; version changes the text, so updates write something new
+    static Doctor doctor(int id, int version) {
+        return new Doctor(id, "Doc" + version, "Bench" + id, id + " Bench Road", "doc" + id + "@bench.test");
+    }
+
+    static Specialist specialist(int id, int version) {
+        return new Specialist(id, "Spec" + version, "Bench" + id, id + " Bench Road", "spec" + id + "@bench.test",
+                "Specialty " + (id % 17), version % 40);
+    }
+
+    static Patient patient(int id, int version) {
+        return new Patient(id, "Pat" + version, "Bench" + id, "BN" + (id % 90 + 10), id + " Bench Street",
+                "0" + id, "pat" + id + "@bench.test");
+    }
+
+    static InsuredPatient insuredPatient(int id, int version) {
+        return new InsuredPatient(id, "Ins" + version, "Bench" + id, "BN" + (id % 90 + 10), id + " Bench Street",
+                "0" + id, "ins" + id + "@bench.test", "Type " + (id % 3), "Bench Mutual", 12 + version % 24);
+    }
+
+    static Drug drug(int id, int version) {
+        return new Drug(id, "Benchamol " + id, "Nausea, headache (v" + version + ")", "Relieves symptom " + (id % 97));
+    }
+
+    static Insurance insurance(int id, int version) {
+        return new Insurance(id, "Bench Co " + id, version + " Bench St", "000" + id);
+    }
+
+    Visit visit(int id, int version) {
+        int i = id - BASE;
+        return new Visit(id, START.plusDays(i % 730), "Cough and fever, day " + version, "Viral infection " + (i % 31),
+                new Doctor(doctorId(i), null, null, null, null), new Patient(patientId(i * 7), null, null));
+    }
+
+    Prescription prescription(int id, int version) {
+        int i = id - BASE;
+        return new Prescription(id, START.plusDays(i % 730), (1 + i % 4) + " tablets", String.valueOf(5 + i % 60),
+                "Take with food (v" + version + ")", doctorId(i), patientId(i * 7), drugId(i));
+    }
+
+    /** Inserts the whole dataset, after removing any bench rows left over from an earlier run. */
+    void seed() throws SQLException {
+        clear();
+        List<Insurance> insurance = new ArrayList<>();
+        List<Drug> drugs = new ArrayList<>();
+        List<Doctor> doctors = new ArrayList<>();
+        List<Specialist> specialists = new ArrayList<>();
+        for (int i = 0; i < smallRows; i++) {
+            insurance.add(insurance(insuranceId(i), 0));
+            drugs.add(drug(drugId(i), 0));
+            if (i % 4 == 0) {
+                specialists.add(specialist(doctorId(i), 0));
+            } else {
+                doctors.add(doctor(doctorId(i), 0));
+            }
+        }
+        List<Patient> patients = new ArrayList<>();
+        List<InsuredPatient> insured = new ArrayList<>();
+        List<Visit> visits = new ArrayList<>();
+        List<Prescription> prescriptions = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            if (i % 2 == 0) {
+                insured.add(insuredPatient(patientId(i), 0));
+            } else {
+                patients.add(patient(patientId(i), 0));
+            }
+            visits.add(visit(visitId(i), 0));
+            prescriptions.add(prescription(prescriptionId(i), 0));
+        }
+
+        check("insurance", new InsuranceDAO().insertInsuranceRecords(insurance));
+        check("drugs", new DrugDAO().insertDrugs(drugs));
+        check("doctors", new DoctorDAO().insertDoctors(doctors));
+        check("specialists", new SpecialistDAO().insertSpecialists(specialists));
+        check("patients", new PatientDAO().insertPatients(patients));
+        check("insured patients", new InsuredPatientDAO().insertInsuredPatients(insured));
+        check("visits", new VisitDAO().insertVisits(visits));
+        check("prescriptions", new PrescriptionDAO().insertPrescriptions(prescriptions));
+    }
+
+    private static void check(String what, BatchResult result) throws SQLException {
+        if (!result.isCommitted()) {
+            throw new SQLException("Could not seed " + what + ": " + result, result.getError());
+        }
+    }
+
+    /** Deletes every row with a bench id, seeded or written by a benchmark. */
+    static void clear() throws SQLException {
+        try (Connection conn = DBConnection.getConnection()) {
+            for (String[] table : TABLES) {
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "DELETE FROM " + table[0] + " WHERE " + table[1] + " >= ?")) {
+                    ps.setInt(1, BASE);
+                    ps.executeUpdate();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.hospital.bench;
+
+import com.example.hospital.util.DBConnection;
+import com.example.hospital.util.ImportStats;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DBConnection.importCsvFile of the given number of synthetic drug rows from a temp file.
+ * One measurement is one whole import; the imported rows are deleted after each.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CsvImportBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int rows;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void write() throws IOException {
+        file = Files.createTempFile("bench-drugs-", ".csv");
+        try (Writer w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            CsvParseBenchmark.writeDrugCsv(w, rows, BenchData.BASE);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteImported() throws Exception {
+        BenchData.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws Exception {
+        Files.deleteIfExists(file);
+        DBConnection.shutdown();
+    }
+
+    @Benchmark
+    public ImportStats importFile() throws Exception {
+        return DBConnection.importCsvFile("drugs", file);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.hospital.bench;
+
+import com.example.hospital.util.CsvReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CsvReader over the given number of synthetic drug rows held in memory; one op parses
+ * the whole text. Needs no database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvParseBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int rows;
+
+    private String text;
+
+    @Setup(Level.Trial)
+    public void write() throws IOException {
+        StringWriter sw = new StringWriter();
+        writeDrugCsv(sw, rows, BenchData.BASE);
+        text = sw.toString();
+    }
+
+    /** Drug-shaped rows with a header and a quoted field containing a comma, like Drug.csv. */
+    static void writeDrugCsv(Writer w, int rows, int firstId) throws IOException {
+        w.write("drug_id,name,sideeffects,benefits\n");
+        for (int i = 0; i < rows; i++) {
+            int id = firstId + i;
+            w.write(id + ",Drug " + id + ",\"Nausea, headache\",Relieves symptom " + (i % 97) + "\n");
+        }
+    }
+
+    @Benchmark
+    public long parse() throws IOException {
+        long fields = 0;
+        try (CsvReader r = new CsvReader(new StringReader(text))) {
+            while (r.next()) {
+                fields += r.fieldCount();
+            }
+        }
+        return fields;
+    }
+}
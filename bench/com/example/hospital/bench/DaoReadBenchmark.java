@@ -0,0 +1,237 @@
+package com.example.hospital.bench;
+
+import com.example.hospital.dao.*;
+import com.example.hospital.model.*;
+import com.example.hospital.util.DBConnection;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Reads through every DAO against a seeded {@link BenchData} set of the given size:
+ * get-by-id, a keyset page, a full stream and the batch and patient-scoped lookups.
+ *
+ * Ids are drawn at random from the seeded rows, so the by-id reads of the cached DAOs
+ * (doctors, drugs, insurance) mostly measure the cache once it is warm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DaoReadBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+    private static final int BATCH_IDS = 100;
+
+    @Param({"1000", "10000", "100000"})
+    public int rows;
+
+    private BenchData data;
+
+    private final DoctorDAO doctorDAO = new DoctorDAO();
+    private final SpecialistDAO specialistDAO = new SpecialistDAO();
+    private final DrugDAO drugDAO = new DrugDAO();
+    private final InsuranceDAO insuranceDAO = new InsuranceDAO();
+    private final PatientDAO patientDAO = new PatientDAO();
+    private final InsuredPatientDAO insuredPatientDAO = new InsuredPatientDAO();
+    private final VisitDAO visitDAO = new VisitDAO();
+    private final PrescriptionDAO prescriptionDAO = new PrescriptionDAO();
+    private final PatientTimelineDAO timelineDAO = new PatientTimelineDAO();
+
+    @Setup(Level.Trial)
+    public void seed() throws Exception {
+        data = new BenchData(rows);
+        data.seed();
+    }
+
+    @TearDown(Level.Trial)
+    public void clear() throws Exception {
+        BenchData.clear();
+        DBConnection.shutdown();
+    }
+
+    private static int any() {
+        return ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE);
+    }
+
+    // GET BY ID
+    @Benchmark
+    public Doctor doctorGetById() {
+        return doctorDAO.getDoctorById(data.doctorId(any()));
+    }
+
+    @Benchmark
+    public Specialist specialistGetById() {
+        return specialistDAO.getSpecialistById(data.specialistId(any()));
+    }
+
+    @Benchmark
+    public Drug drugGetById() {
+        return drugDAO.getDrugById(data.drugId(any()));
+    }
+
+    @Benchmark
+    public Insurance insuranceGetById() {
+        return insuranceDAO.getInsuranceById(data.insuranceId(any()));
+    }
+
+    @Benchmark
+    public Patient patientGetById() {
+        return patientDAO.getPatientById(data.patientId(any()));
+    }
+
+    @Benchmark
+    public InsuredPatient insuredPatientGetById() {
+        return insuredPatientDAO.getInsuredPatientById(data.insuredPatientId(any()));
+    }
+
+    @Benchmark
+    public Visit visitGetById() {
+        return visitDAO.getVisitById(data.visitId(any()));
+    }
+
+    @Benchmark
+    public Prescription prescriptionGetById() {
+        return prescriptionDAO.getPrescriptionById(data.prescriptionId(any()));
+    }
+
+    // PAGE (starting at a random seeded row)
+    @Benchmark
+    public List<Doctor> doctorPage() {
+        return doctorDAO.getDoctorsPage(data.doctorId(any()), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Specialist> specialistPage() {
+        return specialistDAO.getSpecialistsPage(data.specialistId(any()), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Drug> drugPage() {
+        return drugDAO.getDrugsPage(data.drugId(any()), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Insurance> insurancePage() {
+        return insuranceDAO.getInsurancePage(data.insuranceId(any()), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Patient> patientPage() {
+        return patientDAO.getPatientsPage(data.patientId(any()), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<InsuredPatient> insuredPatientPage() {
+        return insuredPatientDAO.getInsuredPatientsPage(data.insuredPatientId(any()), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Visit> visitPage() {
+        return visitDAO.getVisitsPage(data.visitId(any()), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Prescription> prescriptionPage() {
+        return prescriptionDAO.getPrescriptionsPage(data.prescriptionId(any()), PAGE_SIZE);
+    }
+
+    // STREAM (whole table, mapped row by row)
+    @Benchmark
+    public long doctorStream() {
+        try (Stream<Doctor> s = doctorDAO.streamDoctors()) {
+            return s.count();
+        }
+    }
+
+    @Benchmark
+    public long specialistStream() {
+        try (Stream<Specialist> s = specialistDAO.streamSpecialists()) {
+            return s.count();
+        }
+    }
+
+    @Benchmark
+    public long drugStream() {
+        try (Stream<Drug> s = drugDAO.streamDrugs()) {
+            return s.count();
+        }
+    }
+
+    @Benchmark
+    public long insuranceStream() {
+        try (Stream<Insurance> s = insuranceDAO.streamInsuranceRecords()) {
+            return s.count();
+        }
+    }
+
+    @Benchmark
+    public long patientStream() {
+        try (Stream<Patient> s = patientDAO.streamPatients()) {
+            return s.count();
+        }
+    }
+
+    @Benchmark
+    public long insuredPatientStream() {
+        try (Stream<InsuredPatient> s = insuredPatientDAO.streamInsuredPatients()) {
+            return s.count();
+        }
+    }
+
+    @Benchmark
+    public long visitStream() {
+        try (Stream<Visit> s = visitDAO.streamVisits()) {
+            return s.count();
+        }
+    }
+
+    @Benchmark
+    public long prescriptionStream() {
+        try (Stream<Prescription> s = prescriptionDAO.streamPrescriptions()) {
+            return s.count();
+        }
+    }
+
+    // BATCH AND PATIENT-SCOPED LOOKUPS
+    @Benchmark
+    public Map<Integer, Patient> patientsByIds() {
+        List<Integer> ids = new ArrayList<>(BATCH_IDS);
+        for (int i = 0; i < BATCH_IDS; i++) {
+            ids.add(data.patientId(any()));
+        }
+        return patientDAO.getPatientsByIds(ids);
+    }
+
+    @Benchmark
+    public Map<Integer, Doctor> doctorsByIds() {
+        List<Integer> ids = new ArrayList<>(BATCH_IDS);
+        for (int i = 0; i < BATCH_IDS; i++) {
+            ids.add(data.doctorId(any()));
+        }
+        return doctorDAO.getDoctorsByIds(ids);
+    }
+
+    @Benchmark
+    public List<TimelineEntry> patientTimeline() {
+        return timelineDAO.getTimeline(data.patientId(any()), null, null, true, 0);
+    }
+
+    @Benchmark
+    public List<Visit> recentVisits() {
+        return timelineDAO.getRecentVisits(data.patientId(any()), 10);
+    }
+
+    @Benchmark
+    public List<Prescription> activePrescriptions() {
+        return timelineDAO.getActivePrescriptions(data.patientId(any()), LocalDate.of(2025, 6, 1));
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.hospital.bench;
+
+import com.example.hospital.dao.*;
+import com.example.hospital.model.*;
+import com.example.hospital.util.DBConnection;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Writes through every DAO against a seeded {@link BenchData} set of the given size.
+ *
+ * 1) xUpdate: one single-row update of a random seeded row.
+ * 2) xInsertDelete: a bulk insert of batch new rows followed by the bulk delete of the same
+ *    rows, so the table size stays put while the benchmark runs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DaoWriteBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int rows;
+
+    @Param({"100"})
+    public int batch;
+
+    private BenchData data;
+    private int version = 0;
+    private int nextId = BenchData.SCRATCH_BASE;
+
+    private final DoctorDAO doctorDAO = new DoctorDAO();
+    private final SpecialistDAO specialistDAO = new SpecialistDAO();
+    private final DrugDAO drugDAO = new DrugDAO();
+    private final InsuranceDAO insuranceDAO = new InsuranceDAO();
+    private final PatientDAO patientDAO = new PatientDAO();
+    private final InsuredPatientDAO insuredPatientDAO = new InsuredPatientDAO();
+    private final VisitDAO visitDAO = new VisitDAO();
+    private final PrescriptionDAO prescriptionDAO = new PrescriptionDAO();
+
+    @Setup(Level.Trial)
+    public void seed() throws Exception {
+        data = new BenchData(rows);
+        data.seed();
+    }
+
+    @TearDown(Level.Trial)
+    public void clear() throws Exception {
+        BenchData.clear();
+        DBConnection.shutdown();
+    }
+
+    private static int any() {
+        return ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE);
+    }
+
+    /** batch fresh rows, and their ids. */
+    private <T> List<T> fresh(IntFunction<T> row, int[] ids) {
+        List<T> list = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = nextId++;
+            list.add(row.apply(ids[i]));
+        }
+        return list;
+    }
+
+    // UPDATE (one row)
+    @Benchmark
+    public void doctorUpdate() {
+        doctorDAO.updateDoctor(BenchData.doctor(data.doctorId(4 * any() + 1), ++version));
+    }
+
+    @Benchmark
+    public void specialistUpdate() {
+        specialistDAO.updateSpecialist(BenchData.specialist(data.specialistId(any()), ++version));
+    }
+
+    @Benchmark
+    public void drugUpdate() {
+        drugDAO.updateDrug(BenchData.drug(data.drugId(any()), ++version));
+    }
+
+    @Benchmark
+    public void insuranceUpdate() {
+        insuranceDAO.updateInsurance(BenchData.insurance(data.insuranceId(any()), ++version));
+    }
+
+    @Benchmark
+    public void patientUpdate() {
+        patientDAO.updatePatient(BenchData.patient(data.patientId(2 * any() + 1), ++version));
+    }
+
+    @Benchmark
+    public void insuredPatientUpdate() {
+        insuredPatientDAO.updateInsuredPatient(BenchData.insuredPatient(data.insuredPatientId(any()), ++version));
+    }
+
+    @Benchmark
+    public void visitUpdate() {
+        visitDAO.updateVisit(data.visit(data.visitId(any()), ++version));
+    }
+
+    @Benchmark
+    public void prescriptionUpdate() {
+        prescriptionDAO.updatePrescription(data.prescription(data.prescriptionId(any()), ++version));
+    }
+
+    // BULK INSERT + DELETE (batch rows)
+    @Benchmark
+    public BatchResult doctorInsertDelete() {
+        int[] ids = new int[batch];
+        doctorDAO.insertDoctors(fresh(id -> BenchData.doctor(id, 0), ids));
+        return doctorDAO.deleteDoctors(ids);
+    }
+
+    @Benchmark
+    public BatchResult specialistInsertDelete() {
+        int[] ids = new int[batch];
+        specialistDAO.insertSpecialists(fresh(id -> BenchData.specialist(id, 0), ids));
+        specialistDAO.deleteSpecialists(ids);
+        return doctorDAO.deleteDoctors(ids); // the base rows stay behind otherwise
+    }
+
+    @Benchmark
+    public BatchResult drugInsertDelete() {
+        int[] ids = new int[batch];
+        drugDAO.insertDrugs(fresh(id -> BenchData.drug(id, 0), ids));
+        return drugDAO.deleteDrugs(ids);
+    }
+
+    @Benchmark
+    public BatchResult insuranceInsertDelete() {
+        int[] ids = new int[batch];
+        insuranceDAO.insertInsuranceRecords(fresh(id -> BenchData.insurance(id, 0), ids));
+        return insuranceDAO.deleteInsuranceRecords(ids);
+    }
+
+    @Benchmark
+    public BatchResult patientInsertDelete() {
+        int[] ids = new int[batch];
+        patientDAO.insertPatients(fresh(id -> BenchData.patient(id, 0), ids));
+        return patientDAO.deletePatients(ids);
+    }
+
+    @Benchmark
+    public BatchResult insuredPatientInsertDelete() {
+        int[] ids = new int[batch];
+        insuredPatientDAO.insertInsuredPatients(fresh(id -> BenchData.insuredPatient(id, 0), ids));
+        insuredPatientDAO.deleteInsuredPatients(ids);
+        return patientDAO.deletePatients(ids);
+    }
+
+    @Benchmark
+    public BatchResult visitInsertDelete() {
+        int[] ids = new int[batch];
+        visitDAO.insertVisits(fresh(id -> data.visit(id, 0), ids));
+        return visitDAO.deleteVisits(ids);
+    }
+
+    @Benchmark
+    public BatchResult prescriptionInsertDelete() {
+        int[] ids = new int[batch];
+        prescriptionDAO.insertPrescriptions(fresh(id -> data.prescription(id, 0), ids));
+        return prescriptionDAO.deletePrescriptions(ids);
+    }
+}
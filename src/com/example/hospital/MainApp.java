@@ -2,13 +2,14 @@ package com.example.hospital;
 
 import com.example.hospital.dao.*;
 import com.example.hospital.model.*;
+import com.example.hospital.ui.DbWorker;
+import com.example.hospital.ui.NameSearchField;
+import com.example.hospital.ui.ResultsWindow;
 import com.example.hospital.util.DBConnection;
 
 import javax.swing.*;
 import java.awt.*;
 import java.time.LocalDate;
-import java.util.List;
-import java.util.ArrayList;
 
 /**
  * A Swing GUI demonstrating Add, Remove, Modify, and Show All operations
@@ -83,7 +84,10 @@ public class MainApp extends JFrame {
         modifyButton.addActionListener(e -> handleModify());
         showAllButton.addActionListener(e -> handleShowAll());
 
-        // 7. Make the frame visible
+        // 7. Load the names for the Remove/Modify search dialogs in the background
+        NameLookup.warmUp();
+
+        // 8. Make the frame visible
         setVisible(true);
     }
 
@@ -124,274 +128,296 @@ public class MainApp extends JFrame {
     }
 
     /**
-     * Determine which entity is selected, then handle "Remove" by prompting for an ID.
+     * Asks which row to act on. Patients, doctors and drugs (and their subtypes) can be
+     * found by name with a search-as-you-type dialog; the rest still take a typed ID.
+     * For "Remove" the choice is confirmed first. Returns null if cancelled or invalid.
      */
-    private void handleRemove() {
-        String entity = (String) entityCombo.getSelectedItem();
-        if (entity == null) return;
+    private Integer promptForId(String entity, String action) {
+        NameLookup.Kind kind = lookupKindOf(entity);
+        if (kind != null) {
+            NameSearchField.Choice choice = NameSearchField.pick(this, action + " " + entity, kind);
+            if (choice == null) return null;
+            if (action.equals("Remove") && !confirmRemove(entity, choice.getId(), choice.getLabel())) return null;
+            return choice.getId();
+        }
 
         String inputId = JOptionPane.showInputDialog(this,
-                "Enter ID to remove:", "Remove " + entity,
+                "Enter ID to " + action.toLowerCase() + ":", action + " " + entity,
                 JOptionPane.QUESTION_MESSAGE);
-        if (inputId == null || inputId.trim().isEmpty()) return;
+        if (inputId == null || inputId.trim().isEmpty()) return null;
 
-        int id = -1;
+        int id;
         try {
-            id = Integer.parseInt(inputId);
+            id = Integer.parseInt(inputId.trim());
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this,
                     "Invalid ID format.", "Error", JOptionPane.ERROR_MESSAGE);
-            return;
+            return null;
         }
+        if (action.equals("Remove") && !confirmRemove(entity, id, null)) return null;
+        return id;
+    }
+
+    /** Asks before deleting, naming the row (label is null when only the ID is known). */
+    private boolean confirmRemove(String entity, int id, String label) {
+        String row = label == null ? entity + " " + id : entity + " " + label + " (ID " + id + ")";
+        return JOptionPane.showConfirmDialog(this, "Remove " + row + "?", "Confirm Remove",
+                JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE) == JOptionPane.YES_OPTION;
+    }
 
+    private static NameLookup.Kind lookupKindOf(String entity) {
         switch (entity) {
             case "Doctor":
-                doctorDAO.deleteDoctor(id);
-                JOptionPane.showMessageDialog(this,
-                        "Doctor with ID " + id + " removed (if existed).");
-                break;
+                return NameLookup.Kind.DOCTOR;
             case "Specialist":
-                specialistDAO.deleteSpecialist(id);
-                JOptionPane.showMessageDialog(this,
-                        "Specialist with ID " + id + " removed (if existed).");
-                break;
+                return NameLookup.Kind.SPECIALIST;
             case "Patient":
-                patientDAO.deletePatient(id);
-                JOptionPane.showMessageDialog(this,
-                        "Patient with ID " + id + " removed (if existed).");
-                break;
+                return NameLookup.Kind.PATIENT;
             case "InsuredPatient":
-                insuredPatientDAO.deleteInsuredPatient(id);
-                JOptionPane.showMessageDialog(this,
-                        "InsuredPatient with ID " + id + " removed (if existed).");
-                break;
-            case "Visit":
-                visitDAO.deleteVisit(id);
-                JOptionPane.showMessageDialog(this,
-                        "Visit with ID " + id + " removed (if existed).");
-                break;
-            case "Prescription":
-                prescriptionDAO.deletePrescription(id);
-                JOptionPane.showMessageDialog(this,
-                        "Prescription with ID " + id + " removed (if existed).");
-                break;
+                return NameLookup.Kind.INSURED_PATIENT;
             case "Drug":
-                drugDAO.deleteDrug(id);
-                JOptionPane.showMessageDialog(this,
-                        "Drug with ID " + id + " removed (if existed).");
-                break;
-            case "Insurance":
-                insuranceDAO.deleteInsurance(id);
-                JOptionPane.showMessageDialog(this,
-                        "Insurance with ID " + id + " removed (if existed).");
-                break;
+                return NameLookup.Kind.DRUG;
+            default:
+                return null;
         }
     }
 
     /**
-     * Determine which entity is selected, then handle "Modify" by prompting for an ID
+     * Determine which entity is selected, then handle "Remove" by asking for the row.
+     */
+    private void handleRemove() {
+        String entity = (String) entityCombo.getSelectedItem();
+        if (entity == null) return;
+
+        Integer id = promptForId(entity, "Remove");
+        if (id == null) return;
+
+        int targetId = id;
+        DbWorker.run(this, "Removing " + entity + " " + id, () -> {
+            switch (entity) {
+                case "Doctor":
+                    doctorDAO.deleteDoctor(targetId);
+                    break;
+                case "Specialist":
+                    specialistDAO.deleteSpecialist(targetId);
+                    break;
+                case "Patient":
+                    patientDAO.deletePatient(targetId);
+                    break;
+                case "InsuredPatient":
+                    insuredPatientDAO.deleteInsuredPatient(targetId);
+                    break;
+                case "Visit":
+                    visitDAO.deleteVisit(targetId);
+                    break;
+                case "Prescription":
+                    prescriptionDAO.deletePrescription(targetId);
+                    break;
+                case "Drug":
+                    drugDAO.deleteDrug(targetId);
+                    break;
+                case "Insurance":
+                    insuranceDAO.deleteInsurance(targetId);
+                    break;
+            }
+            return null;
+        }, done -> JOptionPane.showMessageDialog(this,
+                entity + " with ID " + targetId + " removed (if existed)."));
+    }
+
+    /**
+     * Determine which entity is selected, then handle "Modify" by asking for the row
      * and new field data.
      */
     private void handleModify() {
         String entity = (String) entityCombo.getSelectedItem();
         if (entity == null) return;
 
-        String inputId = JOptionPane.showInputDialog(this,
-                "Enter ID to modify:", "Modify " + entity,
-                JOptionPane.QUESTION_MESSAGE);
-        if (inputId == null || inputId.trim().isEmpty()) return;
-
-        int id = -1;
-        try {
-            id = Integer.parseInt(inputId);
-        } catch (NumberFormatException ex) {
-            JOptionPane.showMessageDialog(this,
-                    "Invalid ID format.", "Error", JOptionPane.ERROR_MESSAGE);
-            return;
-        }
+        Integer id = promptForId(entity, "Modify");
+        if (id == null) return;
 
-        // We'll do minimal fields for demonstration. Real usage would do more advanced forms:
+        // We'll do minimal fields for demonstration. Real usage would do more advanced forms.
+        // Loading and saving run in the background; the prompt in between runs on the EDT.
+        int targetId = id;
         switch (entity) {
             case "Doctor":
-                Doctor doc = doctorDAO.getDoctorById(id);
-                if (doc == null) {
-                    JOptionPane.showMessageDialog(this,
-                            "No Doctor found with ID " + id, "Not Found", JOptionPane.ERROR_MESSAGE);
-                    return;
-                }
-                String newDocEmail = JOptionPane.showInputDialog(this,
-                        "Enter new email (current: " + doc.getEmail() + "):",
-                        "Modify Doctor", JOptionPane.QUESTION_MESSAGE);
-                if (newDocEmail != null && !newDocEmail.trim().isEmpty()) {
-                    doc.setEmail(newDocEmail);
-                    doctorDAO.updateDoctor(doc);
-                    JOptionPane.showMessageDialog(this, "Doctor updated!");
-                }
+                DbWorker.run(this, "Loading Doctor " + id, () -> doctorDAO.getDoctorById(targetId), doc -> {
+                    if (doc == null) {
+                        showNotFound("Doctor", targetId);
+                        return;
+                    }
+                    String newDocEmail = JOptionPane.showInputDialog(this,
+                            "Enter new email (current: " + doc.getEmail() + "):",
+                            "Modify Doctor", JOptionPane.QUESTION_MESSAGE);
+                    if (newDocEmail != null && !newDocEmail.trim().isEmpty()) {
+                        doc.setEmail(newDocEmail);
+                        save("Saving Doctor " + targetId, () -> doctorDAO.updateDoctor(doc), "Doctor updated!");
+                    }
+                });
                 break;
 
             case "Specialist":
-                Specialist sp = specialistDAO.getSpecialistById(id);
-                if (sp == null) {
-                    JOptionPane.showMessageDialog(this,
-                            "No Specialist found with ID " + id, "Not Found", JOptionPane.ERROR_MESSAGE);
-                    return;
-                }
-                String newSpecialty = JOptionPane.showInputDialog(this,
-                        "Enter new specialization (current: " + sp.getSpecialization() + "):",
-                        "Modify Specialist", JOptionPane.QUESTION_MESSAGE);
-                if (newSpecialty != null && !newSpecialty.trim().isEmpty()) {
-                    sp.setSpecialization(newSpecialty);
-                    specialistDAO.updateSpecialist(sp);
-                    JOptionPane.showMessageDialog(this, "Specialist updated!");
-                }
+                DbWorker.run(this, "Loading Specialist " + id, () -> specialistDAO.getSpecialistById(targetId), sp -> {
+                    if (sp == null) {
+                        showNotFound("Specialist", targetId);
+                        return;
+                    }
+                    String newSpecialty = JOptionPane.showInputDialog(this,
+                            "Enter new specialization (current: " + sp.getSpecialization() + "):",
+                            "Modify Specialist", JOptionPane.QUESTION_MESSAGE);
+                    if (newSpecialty != null && !newSpecialty.trim().isEmpty()) {
+                        sp.setSpecialization(newSpecialty);
+                        save("Saving Specialist " + targetId, () -> specialistDAO.updateSpecialist(sp), "Specialist updated!");
+                    }
+                });
                 break;
 
             case "Patient":
-                Patient pat = patientDAO.getPatientById(id);
-                if (pat == null) {
-                    JOptionPane.showMessageDialog(this,
-                            "No Patient found with ID " + id, "Not Found", JOptionPane.ERROR_MESSAGE);
-                    return;
-                }
-                String newAddress = JOptionPane.showInputDialog(this,
-                        "Enter new address (current: " + pat.getAddress() + "):",
-                        "Modify Patient", JOptionPane.QUESTION_MESSAGE);
-                if (newAddress != null && !newAddress.trim().isEmpty()) {
-                    pat.setAddress(newAddress);
-                    patientDAO.updatePatient(pat);
-                    JOptionPane.showMessageDialog(this, "Patient updated!");
-                }
+                DbWorker.run(this, "Loading Patient " + id, () -> patientDAO.getPatientById(targetId), pat -> {
+                    if (pat == null) {
+                        showNotFound("Patient", targetId);
+                        return;
+                    }
+                    String newAddress = JOptionPane.showInputDialog(this,
+                            "Enter new address (current: " + pat.getAddress() + "):",
+                            "Modify Patient", JOptionPane.QUESTION_MESSAGE);
+                    if (newAddress != null && !newAddress.trim().isEmpty()) {
+                        pat.setAddress(newAddress);
+                        save("Saving Patient " + targetId, () -> patientDAO.updatePatient(pat), "Patient updated!");
+                    }
+                });
                 break;
 
             case "InsuredPatient":
-                InsuredPatient ip = insuredPatientDAO.getInsuredPatientById(id);
-                if (ip == null) {
-                    JOptionPane.showMessageDialog(this,
-                            "No InsuredPatient found with ID " + id, "Not Found", JOptionPane.ERROR_MESSAGE);
-                    return;
-                }
-                String newCompany = JOptionPane.showInputDialog(this,
-                        "Enter new insurance company (current: " + ip.getInsuranceCompanyName() + "):",
-                        "Modify InsuredPatient", JOptionPane.QUESTION_MESSAGE);
-                if (newCompany != null && !newCompany.trim().isEmpty()) {
-                    ip.setInsuranceCompanyName(newCompany);
-                    insuredPatientDAO.updateInsuredPatient(ip);
-                    JOptionPane.showMessageDialog(this, "InsuredPatient updated!");
-                }
+                DbWorker.run(this, "Loading InsuredPatient " + id, () -> insuredPatientDAO.getInsuredPatientById(targetId), ip -> {
+                    if (ip == null) {
+                        showNotFound("InsuredPatient", targetId);
+                        return;
+                    }
+                    String newCompany = JOptionPane.showInputDialog(this,
+                            "Enter new insurance company (current: " + ip.getInsuranceCompanyName() + "):",
+                            "Modify InsuredPatient", JOptionPane.QUESTION_MESSAGE);
+                    if (newCompany != null && !newCompany.trim().isEmpty()) {
+                        ip.setInsuranceCompanyName(newCompany);
+                        save("Saving InsuredPatient " + targetId, () -> insuredPatientDAO.updateInsuredPatient(ip), "InsuredPatient updated!");
+                    }
+                });
                 break;
 
             case "Visit":
-                Visit vis = visitDAO.getVisitById(id);
-                if (vis == null) {
-                    JOptionPane.showMessageDialog(this,
-                            "No Visit found with ID " + id, "Not Found", JOptionPane.ERROR_MESSAGE);
-                    return;
-                }
-                String newDiagnosis = JOptionPane.showInputDialog(this,
-                        "Enter new diagnosis (current: " + vis.getDiagnosis() + "):",
-                        "Modify Visit", JOptionPane.QUESTION_MESSAGE);
-                if (newDiagnosis != null && !newDiagnosis.trim().isEmpty()) {
-                    vis.setDiagnosis(newDiagnosis);
-                    visitDAO.updateVisit(vis);
-                    JOptionPane.showMessageDialog(this, "Visit updated!");
-                }
+                DbWorker.run(this, "Loading Visit " + id, () -> visitDAO.getVisitById(targetId), vis -> {
+                    if (vis == null) {
+                        showNotFound("Visit", targetId);
+                        return;
+                    }
+                    String newDiagnosis = JOptionPane.showInputDialog(this,
+                            "Enter new diagnosis (current: " + vis.getDiagnosis() + "):",
+                            "Modify Visit", JOptionPane.QUESTION_MESSAGE);
+                    if (newDiagnosis != null && !newDiagnosis.trim().isEmpty()) {
+                        vis.setDiagnosis(newDiagnosis);
+                        save("Saving Visit " + targetId, () -> visitDAO.updateVisit(vis), "Visit updated!");
+                    }
+                });
                 break;
 
             case "Prescription":
-                Prescription pres = prescriptionDAO.getPrescriptionById(id);
-                if (pres == null) {
-                    JOptionPane.showMessageDialog(this,
-                            "No Prescription found with ID " + id, "Not Found", JOptionPane.ERROR_MESSAGE);
-                    return;
-                }
-                String newComment = JOptionPane.showInputDialog(this,
-                        "Enter new comment (current: " + pres.getComment() + "):",
-                        "Modify Prescription", JOptionPane.QUESTION_MESSAGE);
-                if (newComment != null && !newComment.trim().isEmpty()) {
-                    pres.setComment(newComment);
-                    prescriptionDAO.updatePrescription(pres);
-                    JOptionPane.showMessageDialog(this, "Prescription updated!");
-                }
+                DbWorker.run(this, "Loading Prescription " + id, () -> prescriptionDAO.getPrescriptionById(targetId), pres -> {
+                    if (pres == null) {
+                        showNotFound("Prescription", targetId);
+                        return;
+                    }
+                    String newComment = JOptionPane.showInputDialog(this,
+                            "Enter new comment (current: " + pres.getComment() + "):",
+                            "Modify Prescription", JOptionPane.QUESTION_MESSAGE);
+                    if (newComment != null && !newComment.trim().isEmpty()) {
+                        pres.setComment(newComment);
+                        save("Saving Prescription " + targetId, () -> prescriptionDAO.updatePrescription(pres), "Prescription updated!");
+                    }
+                });
                 break;
 
             case "Drug":
-                Drug dr = drugDAO.getDrugById(id);
-                if (dr == null) {
-                    JOptionPane.showMessageDialog(this,
-                            "No Drug found with ID " + id, "Not Found", JOptionPane.ERROR_MESSAGE);
-                    return;
-                }
-                String newBenefits = JOptionPane.showInputDialog(this,
-                        "Enter new benefits (current: " + dr.getBenefits() + "):",
-                        "Modify Drug", JOptionPane.QUESTION_MESSAGE);
-                if (newBenefits != null && !newBenefits.trim().isEmpty()) {
-                    dr.setBenefits(newBenefits);
-                    drugDAO.updateDrug(dr);
-                    JOptionPane.showMessageDialog(this, "Drug updated!");
-                }
+                DbWorker.run(this, "Loading Drug " + id, () -> drugDAO.getDrugById(targetId), dr -> {
+                    if (dr == null) {
+                        showNotFound("Drug", targetId);
+                        return;
+                    }
+                    String newBenefits = JOptionPane.showInputDialog(this,
+                            "Enter new benefits (current: " + dr.getBenefits() + "):",
+                            "Modify Drug", JOptionPane.QUESTION_MESSAGE);
+                    if (newBenefits != null && !newBenefits.trim().isEmpty()) {
+                        dr.setBenefits(newBenefits);
+                        save("Saving Drug " + targetId, () -> drugDAO.updateDrug(dr), "Drug updated!");
+                    }
+                });
                 break;
 
             case "Insurance":
-                Insurance ins = insuranceDAO.getInsuranceById(id);
-                if (ins == null) {
-                    JOptionPane.showMessageDialog(this,
-                            "No Insurance found with ID " + id, "Not Found", JOptionPane.ERROR_MESSAGE);
-                    return;
-                }
-                String newPhone = JOptionPane.showInputDialog(this,
-                        "Enter new phone (current: " + ins.getPhone() + "):",
-                        "Modify Insurance", JOptionPane.QUESTION_MESSAGE);
-                if (newPhone != null && !newPhone.trim().isEmpty()) {
-                    ins.setPhone(newPhone);
-                    insuranceDAO.updateInsurance(ins);
-                    JOptionPane.showMessageDialog(this, "Insurance updated!");
-                }
+                DbWorker.run(this, "Loading Insurance " + id, () -> insuranceDAO.getInsuranceById(targetId), ins -> {
+                    if (ins == null) {
+                        showNotFound("Insurance", targetId);
+                        return;
+                    }
+                    String newPhone = JOptionPane.showInputDialog(this,
+                            "Enter new phone (current: " + ins.getPhone() + "):",
+                            "Modify Insurance", JOptionPane.QUESTION_MESSAGE);
+                    if (newPhone != null && !newPhone.trim().isEmpty()) {
+                        ins.setPhone(newPhone);
+                        save("Saving Insurance " + targetId, () -> insuranceDAO.updateInsurance(ins), "Insurance updated!");
+                    }
+                });
                 break;
         }
     }
 
     /**
      * Determine which entity is selected, then handle "Show All".
-     * We'll display them in a multiline text area inside a JOptionPane.
+     * Opens a results table that pages rows in from the database as you scroll,
+     * so even very large tables show up straight away.
      */
     private void handleShowAll() {
         String entity = (String) entityCombo.getSelectedItem();
         if (entity == null) return;
 
+        SortedPageQuery query;
+        String title;
         switch (entity) {
             case "Doctor":
-                List<Doctor> docList = doctorDAO.getAllDoctors();
-                showResultList("All Doctors", docListToString(docList));
+                query = doctorDAO.listingQuery();
+                title = "All Doctors";
                 break;
             case "Specialist":
-                List<Specialist> spList = specialistDAO.getAllSpecialists();
-                showResultList("All Specialists", specialistListToString(spList));
+                query = specialistDAO.listingQuery();
+                title = "All Specialists";
                 break;
             case "Patient":
-                List<Patient> patList = patientDAO.getAllPatients();
-                showResultList("All Patients", patientListToString(patList));
+                query = patientDAO.listingQuery();
+                title = "All Patients";
                 break;
             case "InsuredPatient":
-                List<InsuredPatient> ipList = insuredPatientDAO.getAllInsuredPatients();
-                showResultList("All InsuredPatients", insuredPatientListToString(ipList));
+                query = insuredPatientDAO.listingQuery();
+                title = "All InsuredPatients";
                 break;
             case "Visit":
-                List<Visit> visList = visitDAO.getAllVisits();
-                showResultList("All Visits", visitListToString(visList));
+                query = visitDAO.listingQuery();
+                title = "All Visits";
                 break;
             case "Prescription":
-                List<Prescription> presList = prescriptionDAO.getAllPrescriptions();
-                showResultList("All Prescriptions", prescriptionListToString(presList));
+                query = prescriptionDAO.listingQuery();
+                title = "All Prescriptions";
                 break;
             case "Drug":
-                List<Drug> drugList = drugDAO.getAllDrugs();
-                showResultList("All Drugs", drugListToString(drugList));
+                query = drugDAO.listingQuery();
+                title = "All Drugs";
                 break;
             case "Insurance":
-                List<Insurance> insList = insuranceDAO.getAllInsuranceRecords();
-                showResultList("All Insurance", insuranceListToString(insList));
+                query = insuranceDAO.listingQuery();
+                title = "All Insurance";
                 break;
+            default:
+                return;
         }
+        new ResultsWindow(this, title, query).setVisible(true);
     }
 
     // ------------------------------------------------------------------------------------------
@@ -413,8 +439,7 @@ public class MainApp extends JFrame {
                 JOptionPane.QUESTION_MESSAGE);
 
         Doctor d = new Doctor(id, fname, sname, address, email);
-        doctorDAO.insertDoctor(d);
-        JOptionPane.showMessageDialog(this, "Doctor added successfully!");
+        save("Adding Doctor", () -> doctorDAO.insertDoctor(d), "Doctor added successfully!");
     }
 
     private void addSpecialist() {
@@ -437,8 +462,7 @@ public class MainApp extends JFrame {
         int exp = parseIntOrFail(expStr);
 
         Specialist s = new Specialist(id, fname, sname, address, email, spec, exp);
-        specialistDAO.insertSpecialist(s);
-        JOptionPane.showMessageDialog(this, "Specialist added successfully!");
+        save("Adding Specialist", () -> specialistDAO.insertSpecialist(s), "Specialist added successfully!");
     }
 
     private void addPatient() {
@@ -461,8 +485,7 @@ public class MainApp extends JFrame {
                 JOptionPane.QUESTION_MESSAGE);
 
         Patient p = new Patient(id, fname, sname, postcode, address, phone, email);
-        patientDAO.insertPatient(p);
-        JOptionPane.showMessageDialog(this, "Patient added successfully!");
+        save("Adding Patient", () -> patientDAO.insertPatient(p), "Patient added successfully!");
     }
 
     private void addInsuredPatient() {
@@ -493,8 +516,7 @@ public class MainApp extends JFrame {
 
         InsuredPatient ip = new InsuredPatient(id, fname, sname, postcode, address, phone, email,
                 insType, insCompany, duration);
-        insuredPatientDAO.insertInsuredPatient(ip);
-        JOptionPane.showMessageDialog(this, "InsuredPatient added successfully!");
+        save("Adding InsuredPatient", () -> insuredPatientDAO.insertInsuredPatient(ip), "InsuredPatient added successfully!");
     }
 
     private void addVisit() {
@@ -525,8 +547,7 @@ public class MainApp extends JFrame {
         Patient pat = new Patient(patientId, "PlaceholderF", "PlaceholderS");
 
         Visit v = new Visit(visitId, date, symptoms, diagnosis, doc, pat);
-        visitDAO.insertVisit(v);
-        JOptionPane.showMessageDialog(this, "Visit added successfully!");
+        save("Adding Visit", () -> visitDAO.insertVisit(v), "Visit added successfully!");
     }
 
     private void addPrescription() {
@@ -573,8 +594,7 @@ public class MainApp extends JFrame {
                 drugId     // single drug ID
         );
 
-        prescriptionDAO.insertPrescription(p);
-        JOptionPane.showMessageDialog(this, "Prescription added successfully!");
+        save("Adding Prescription", () -> prescriptionDAO.insertPrescription(p), "Prescription added successfully!");
     }
 
 
@@ -592,8 +612,7 @@ public class MainApp extends JFrame {
                 JOptionPane.QUESTION_MESSAGE);
 
         Drug d = new Drug(drugId, name, sideEff, benefits);
-        drugDAO.insertDrug(d);
-        JOptionPane.showMessageDialog(this, "Drug added successfully!");
+        save("Adding Drug", () -> drugDAO.insertDrug(d), "Drug added successfully!");
     }
 
     private void addInsurance() {
@@ -610,120 +629,24 @@ public class MainApp extends JFrame {
                 JOptionPane.QUESTION_MESSAGE);
 
         Insurance i = new Insurance(insId, company, address, phone);
-        insuranceDAO.insertInsurance(i);
-        JOptionPane.showMessageDialog(this, "Insurance added successfully!");
+        save("Adding Insurance", () -> insuranceDAO.insertInsurance(i), "Insurance added successfully!");
     }
 
     // ------------------------------------------------------------------------------------------
-    // Utility methods for displaying "Show All" results
+    // Helpers for running DAO calls off the EDT
     // ------------------------------------------------------------------------------------------
 
-    private void showResultList(String title, String content) {
-        JTextArea textArea = new JTextArea(content, 20, 50);
-        textArea.setEditable(false);
-        JScrollPane scrollPane = new JScrollPane(textArea);
-
-        JOptionPane.showMessageDialog(this, scrollPane, title, JOptionPane.INFORMATION_MESSAGE);
-    }
-
-    // Convert lists to strings (very naive formatting):
-    private String docListToString(List<Doctor> list) {
-        StringBuilder sb = new StringBuilder();
-        for (Doctor d : list) {
-            sb.append("ID: ").append(d.getDoctorId())
-              .append(", Name: ").append(d.getFirstName()).append(" ").append(d.getSurname())
-              .append(", Email: ").append(d.getEmail())
-              .append("\n");
-        }
-        return sb.toString();
-    }
-
-    private String specialistListToString(List<Specialist> list) {
-        StringBuilder sb = new StringBuilder();
-        for (Specialist s : list) {
-            sb.append("ID: ").append(s.getDoctorId())
-              .append(", Name: ").append(s.getFirstName()).append(" ").append(s.getSurname())
-              .append(", Specialization: ").append(s.getSpecialization())
-              .append(", Experience: ").append(s.getYearsOfExperience())
-              .append("\n");
-        }
-        return sb.toString();
-    }
-
-    private String patientListToString(List<Patient> list) {
-        StringBuilder sb = new StringBuilder();
-        for (Patient p : list) {
-            sb.append("ID: ").append(p.getPatientId())
-              .append(", Name: ").append(p.getFirstName()).append(" ").append(p.getSurname())
-              .append(", Postcode: ").append(p.getPostcode())
-              .append(", Address: ").append(p.getAddress())
-              .append(", Phone: ").append(p.getPhone())
-              .append("\n");
-        }
-        return sb.toString();
-    }
-
-    private String insuredPatientListToString(List<InsuredPatient> list) {
-        StringBuilder sb = new StringBuilder();
-        for (InsuredPatient ip : list) {
-            sb.append("ID: ").append(ip.getPatientId())
-              .append(", Name: ").append(ip.getFirstName()).append(" ").append(ip.getSurname())
-              .append(", Insurance Company: ").append(ip.getInsuranceCompanyName())
-              .append(", Type: ").append(ip.getInsuranceType())
-              .append(", Duration: ").append(ip.getDurationOfInsurance())
-              .append("\n");
-        }
-        return sb.toString();
+    /** Runs a DAO write in the background, then confirms it with a message. */
+    private void save(String description, Runnable write, String successMessage) {
+        DbWorker.run(this, description, () -> {
+            write.run();
+            return null;
+        }, done -> JOptionPane.showMessageDialog(this, successMessage));
     }
 
-    private String visitListToString(List<Visit> list) {
-        StringBuilder sb = new StringBuilder();
-        for (Visit v : list) {
-            sb.append("Visit ID: ").append(v.getVisitId())
-              .append(", Date: ").append(v.getDateOfVisit())
-              .append(", Symptoms: ").append(v.getSymptoms())
-              .append(", Diagnosis: ").append(v.getDiagnosis())
-              .append(", DoctorID: ").append(v.getDoctor().getDoctorId())
-              .append(", PatientID: ").append(v.getPatient().getPatientId())
-              .append("\n");
-        }
-        return sb.toString();
-    }
-
-    private String prescriptionListToString(List<Prescription> list) {
-        StringBuilder sb = new StringBuilder();
-        for (Prescription p : list) {
-            sb.append("Prescription ID: ").append(p.getPrescriptionId())
-              .append(", Date: ").append(p.getDateOfPrescribe())
-              .append(", Dosage: ").append(p.getDosage())
-              .append(", Duration: ").append(p.getDuration())
-              .append("\n");
-        }
-        return sb.toString();
-    }
-
-    private String drugListToString(List<Drug> list) {
-        StringBuilder sb = new StringBuilder();
-        for (Drug d : list) {
-            sb.append("Drug ID: ").append(d.getDrugId())
-              .append(", Name: ").append(d.getName())
-              .append(", SideEffects: ").append(d.getSideEffects())
-              .append(", Benefits: ").append(d.getBenefits())
-              .append("\n");
-        }
-        return sb.toString();
-    }
-
-    private String insuranceListToString(List<Insurance> list) {
-        StringBuilder sb = new StringBuilder();
-        for (Insurance i : list) {
-            sb.append("Insurance ID: ").append(i.getInsuranceId())
-              .append(", Company: ").append(i.getCompany())
-              .append(", Address: ").append(i.getAddress())
-              .append(", Phone: ").append(i.getPhone())
-              .append("\n");
-        }
-        return sb.toString();
+    private void showNotFound(String entity, int id) {
+        JOptionPane.showMessageDialog(this,
+                "No " + entity + " found with ID " + id, "Not Found", JOptionPane.ERROR_MESSAGE);
     }
 
     // ------------------------------------------------------------------------------------------
@@ -742,13 +665,13 @@ public class MainApp extends JFrame {
      */
     public static void main(String[] args) {
         SwingUtilities.invokeLater(() -> {
-            // Optionally test DB connection before launching:
-            try {
+            MainApp app = new MainApp();
+            // The first connection can run the whole CSV import, so test it in the background
+            DbWorker.run(app, "Connecting to the database", false, () -> {
                 DBConnection.getConnection().close();
-            } catch (Exception ex) {
-                System.err.println("Warning: Could not connect to DB. " + ex.getMessage());
-            }
-            new MainApp();
+                return null;
+            }, done -> {
+            });
         });
     }
 }
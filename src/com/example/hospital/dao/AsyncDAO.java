@@ -0,0 +1,138 @@
+package com.example.hospital.dao;
+
+import com.example.hospital.model.*;
+import com.example.hospital.util.ConnectionPool;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * The DAO lookups as CompletableFutures, for callers that need several independent reads
+ * at once (e.g. a patient, their insurance details and their recent visits) and want to combine them:
+ *
+ *   CompletableFuture<Patient> patient = async.getPatientById(id);
+ *   CompletableFuture<InsuredPatient> insured = async.getInsuredPatientById(id);
+ *   patient.thenCombine(insured, ...)
+ *
+ * 1) Every lookup gets its own virtual thread, so waiting on the database ties up no
+ *    platform thread.
+ * 2) A semaphore lets only as many lookups run as the connection pool has connections
+ *    (hospital.pool.maxSize; -Dhospital.dao.asyncThreads overrides it). The rest wait on
+ *    the semaphore, not in the connection pool.
+ * 3) The DAOs underneath are the normal ones, so caching, batching etc. all still apply.
+ *
+ * Lookups run on other threads, so they don't join a {@link com.example.hospital.util.Transactions}
+ * scope of the caller. Like the DAOs, a failed query yields null or an empty result.
+ */
+public class AsyncDAO {
+
+    private static final int PARALLELISM = Math.max(1, Integer.getInteger("hospital.dao.asyncThreads",
+            ConnectionPool.Config.fromSystemProperties().maxSize));
+
+    private static final ExecutorService EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+    private static final Semaphore RUNNING = new Semaphore(PARALLELISM, true);
+
+    private final DoctorDAO doctorDAO = new DoctorDAO();
+    private final SpecialistDAO specialistDAO = new SpecialistDAO();
+    private final DrugDAO drugDAO = new DrugDAO();
+    private final InsuranceDAO insuranceDAO = new InsuranceDAO();
+    private final PatientDAO patientDAO = new PatientDAO();
+    private final InsuredPatientDAO insuredPatientDAO = new InsuredPatientDAO();
+    private final VisitDAO visitDAO = new VisitDAO();
+    private final PrescriptionDAO prescriptionDAO = new PrescriptionDAO();
+    private final PatientTimelineDAO timelineDAO = new PatientTimelineDAO();
+
+    /** Number of lookups that can run at the same time. */
+    public static int getParallelism() {
+        return PARALLELISM;
+    }
+
+    /** Runs any DAO call (or several, in order) on a virtual thread, once a slot is free. */
+    public <T> CompletableFuture<T> supply(Supplier<T> lookup) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                RUNNING.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+            try {
+                return lookup.get();
+            } finally {
+                RUNNING.release();
+            }
+        }, EXECUTOR);
+    }
+
+    // SINGLE ROWS
+    public CompletableFuture<Doctor> getDoctorById(int id) {
+        return supply(() -> doctorDAO.getDoctorById(id));
+    }
+
+    public CompletableFuture<Specialist> getSpecialistById(int id) {
+        return supply(() -> specialistDAO.getSpecialistById(id));
+    }
+
+    public CompletableFuture<Drug> getDrugById(int id) {
+        return supply(() -> drugDAO.getDrugById(id));
+    }
+
+    public CompletableFuture<Insurance> getInsuranceById(int id) {
+        return supply(() -> insuranceDAO.getInsuranceById(id));
+    }
+
+    public CompletableFuture<Patient> getPatientById(int id) {
+        return supply(() -> patientDAO.getPatientById(id));
+    }
+
+    public CompletableFuture<InsuredPatient> getInsuredPatientById(int id) {
+        return supply(() -> insuredPatientDAO.getInsuredPatientById(id));
+    }
+
+    public CompletableFuture<Visit> getVisitById(int id) {
+        return supply(() -> visitDAO.getVisitById(id));
+    }
+
+    public CompletableFuture<Visit> getVisitWithParticipants(int id) {
+        return supply(() -> visitDAO.getVisitWithParticipants(id));
+    }
+
+    public CompletableFuture<Prescription> getPrescriptionById(int id) {
+        return supply(() -> prescriptionDAO.getPrescriptionById(id));
+    }
+
+    // BATCH LOOKUPS
+    public CompletableFuture<Map<Integer, Doctor>> getDoctorsByIds(Collection<Integer> ids) {
+        return supply(() -> doctorDAO.getDoctorsByIds(ids));
+    }
+
+    public CompletableFuture<Map<Integer, Patient>> getPatientsByIds(Collection<Integer> ids) {
+        return supply(() -> patientDAO.getPatientsByIds(ids));
+    }
+
+    // PATIENT
+    public CompletableFuture<List<Visit>> getRecentVisits(int patientId, int limit) {
+        return supply(() -> timelineDAO.getRecentVisits(patientId, limit));
+    }
+
+    public CompletableFuture<List<Prescription>> getActivePrescriptions(int patientId) {
+        return supply(() -> timelineDAO.getActivePrescriptions(patientId, LocalDate.now()));
+    }
+
+    // LISTS
+    public CompletableFuture<List<Visit>> getAllVisitsWithParticipants() {
+        return supply(visitDAO::getAllVisitsWithParticipants);
+    }
+
+    public CompletableFuture<List<Prescription>> getAllPrescriptions() {
+        return supply(prescriptionDAO::getAllPrescriptions);
+    }
+}
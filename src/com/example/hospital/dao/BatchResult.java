@@ -0,0 +1,127 @@
+package com.example.hospital.dao;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * What happened to each row of a bulk write (insertDrugs, updateVisits, deletePatients, ...).
+ *
+ * A bulk write runs in one transaction, so it is all or nothing:
+ * - committed: every row is APPLIED, or NO_ROW when an update/delete matched nothing, or
+ *   UNKNOWN when the driver ran it but reported no count (SUCCESS_NO_INFO, which the
+ *   bulk protocol enabled by useBulkStmts=true returns for a whole batch)
+ * - rolled back: the row(s) the database rejected are FAILED, all others ROLLED_BACK,
+ *   and {@link #getError()} holds the exception
+ *
+ * Row numbers follow the iteration order of the collection (or id array) passed in.
+ */
+public final class BatchResult {
+
+    public enum Outcome {
+        APPLIED,
+        NO_ROW,
+        UNKNOWN,
+        FAILED,
+        ROLLED_BACK
+    }
+
+    private final Outcome[] outcomes;
+    private final int[] updateCounts;
+    private final SQLException error;
+
+    private BatchResult(Outcome[] outcomes, int[] updateCounts, SQLException error) {
+        this.outcomes = outcomes;
+        this.updateCounts = updateCounts;
+        this.error = error;
+    }
+
+    /** All rows went through; counts are the driver's update counts, one per row. */
+    static BatchResult committed(int[] counts) {
+        Outcome[] outcomes = new Outcome[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == Statement.SUCCESS_NO_INFO) {
+                outcomes[i] = Outcome.UNKNOWN; // ran, but it may or may not have matched a row
+            } else {
+                outcomes[i] = counts[i] == 0 ? Outcome.NO_ROW : Outcome.APPLIED;
+            }
+        }
+        return new BatchResult(outcomes, counts, null);
+    }
+
+    /**
+     * The transaction was rolled back.
+     *
+     * @param chunkStart   index of the first row of the batch that failed, or -1 if unknown
+     * @param chunkCounts  update counts from the BatchUpdateException (relative to chunkStart), may be null
+     */
+    static BatchResult rolledBack(int rows, int chunkStart, int chunkSize, int[] chunkCounts, SQLException error) {
+        Outcome[] outcomes = new Outcome[rows];
+        Arrays.fill(outcomes, Outcome.ROLLED_BACK);
+        if (chunkStart >= 0 && chunkCounts != null) {
+            if (chunkCounts.length < chunkSize) {
+                // driver stopped at the first failure
+                outcomes[chunkStart + chunkCounts.length] = Outcome.FAILED;
+            } else {
+                for (int i = 0; i < chunkSize; i++) {
+                    if (chunkCounts[i] == Statement.EXECUTE_FAILED) {
+                        outcomes[chunkStart + i] = Outcome.FAILED;
+                    }
+                }
+            }
+        }
+        int[] counts = new int[rows]; // nothing was kept
+        return new BatchResult(outcomes, counts, error);
+    }
+
+    public boolean isCommitted() {
+        return error == null;
+    }
+
+    public int size() {
+        return outcomes.length;
+    }
+
+    public Outcome getOutcome(int row) {
+        return outcomes[row];
+    }
+
+    /**
+     * Rows affected by this row's statement, as reported by the driver. May be
+     * Statement.SUCCESS_NO_INFO (-2) when the driver doesn't report per-row counts,
+     * and is 0 for every row of a rolled back write.
+     */
+    public int getUpdateCount(int row) {
+        return updateCounts[row];
+    }
+
+    /** The exception that caused the rollback, or null if committed. */
+    public SQLException getError() {
+        return error;
+    }
+
+    public int count(Outcome outcome) {
+        int n = 0;
+        for (Outcome o : outcomes) {
+            if (o == outcome) n++;
+        }
+        return n;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("BatchResult[")
+                .append(isCommitted() ? "committed" : "rolled back")
+                .append(", ").append(size()).append(" rows");
+        for (Outcome o : Outcome.values()) {
+            int n = count(o);
+            if (n > 0) {
+                sb.append(", ").append(o).append('=').append(n);
+            }
+        }
+        if (error != null) {
+            sb.append(", error=").append(error.getMessage());
+        }
+        return sb.append(']').toString();
+    }
+}
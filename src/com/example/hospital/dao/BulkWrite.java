@@ -0,0 +1,130 @@
+package com.example.hospital.dao;
+
+import com.example.hospital.util.DBConnection;
+import com.example.hospital.util.DaoMetrics;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Writes a collection of rows with JDBC batching, inside a single transaction on one
+ * pooled connection. Used by the bulk methods of the DAOs (insertDrugs, updateVisits, ...).
+ *
+ * 1) Every step is one SQL statement, bound once per row and sent with addBatch/executeBatch
+ *    in chunks of at most MAX_ROWS_PER_BATCH rows (-Dhospital.dao.batchSize, default 500).
+ * 2) Entities stored in two tables (specialists) use two steps; all of step 1 runs before step 2.
+ * 3) Commit at the end; on any SQLException the whole write is rolled back.
+ *
+ * The per-row outcome in the {@link BatchResult} comes from the last step. Each call is timed
+ * as the calling DAO method's {@link DaoMetrics.Operation}, with the applied rows as row count
+ * and a rollback as an error.
+ *
+ * SpecialistDAO and InsuredPatientDAO also use it for their single-row writes, with a
+ * one-element list, so the base and subclass rows share a connection and a commit.
+ * Inside a {@link com.example.hospital.util.Transactions} scope the batches simply become
+ * part of the scope's transaction, and a committed result means "will commit with the scope".
+ */
+class BulkWrite {
+
+    static final int MAX_ROWS_PER_BATCH = Math.max(1, Integer.getInteger("hospital.dao.batchSize", 500));
+
+    /** Sets the parameters of the statement for one row. */
+    @FunctionalInterface
+    interface Binder<T> {
+        void bind(PreparedStatement stmt, T row) throws SQLException;
+    }
+
+    private BulkWrite() {
+    }
+
+    static <T> BatchResult run(DaoMetrics.Operation op, Collection<? extends T> rows,
+                               String sql, Binder<? super T> binder) {
+        return timed(op, rows, List.of(sql), List.of(binder));
+    }
+
+    static <T> BatchResult run(DaoMetrics.Operation op, Collection<? extends T> rows,
+                               String firstSql, Binder<? super T> first,
+                               String secondSql, Binder<? super T> second) {
+        return timed(op, rows, List.of(firstSql, secondSql), List.of(first, second));
+    }
+
+    /** For the deleteXs(int... ids) methods: one "... WHERE id = ?" per id. */
+    static BatchResult deleteIds(DaoMetrics.Operation op, String deleteSql, int... ids) {
+        List<Integer> rows = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            rows.add(id);
+        }
+        return run(op, rows, deleteSql, (stmt, id) -> stmt.setInt(1, id));
+    }
+
+    private static <T> BatchResult timed(DaoMetrics.Operation op, Collection<? extends T> rows,
+                                         List<String> sqls, List<Binder<? super T>> binders) {
+        long start = op.start();
+        try {
+            BatchResult result = run(rows, sqls, binders);
+            op.rows(result.count(BatchResult.Outcome.APPLIED) + result.count(BatchResult.Outcome.UNKNOWN));
+            if (!result.isCommitted()) {
+                op.error();
+            }
+            return result;
+        } finally {
+            op.stop(start);
+        }
+    }
+
+    private static <T> BatchResult run(Collection<? extends T> input, List<String> sqls,
+                                       List<Binder<? super T>> binders) {
+        List<T> rows = new ArrayList<>(input);
+        int n = rows.size();
+        int[] counts = new int[n];
+        if (n == 0) {
+            return BatchResult.committed(counts);
+        }
+
+        try (Connection conn = DBConnection.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                for (int step = 0; step < sqls.size(); step++) {
+                    boolean last = step == sqls.size() - 1;
+                    Binder<? super T> binder = binders.get(step);
+                    try (PreparedStatement stmt = conn.prepareStatement(sqls.get(step))) {
+                        for (int from = 0; from < n; from += MAX_ROWS_PER_BATCH) {
+                            int to = Math.min(n, from + MAX_ROWS_PER_BATCH);
+                            for (int i = from; i < to; i++) {
+                                binder.bind(stmt, rows.get(i));
+                                stmt.addBatch();
+                            }
+                            int[] chunk;
+                            try {
+                                chunk = stmt.executeBatch();
+                            } catch (BatchUpdateException e) {
+                                conn.rollback();
+                                e.printStackTrace();
+                                return BatchResult.rolledBack(n, from, to - from, e.getUpdateCounts(), e);
+                            }
+                            if (last) {
+                                System.arraycopy(chunk, 0, counts, from, Math.min(chunk.length, to - from));
+                            }
+                        }
+                    }
+                }
+                conn.commit();
+                return BatchResult.committed(counts);
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return BatchResult.rolledBack(n, -1, 0, null, e);
+        }
+    }
+}
@@ -2,51 +2,101 @@ package com.example.hospital.dao;
 
 import com.example.hospital.model.Doctor;
 import com.example.hospital.util.DBConnection;
+import com.example.hospital.util.DaoMetrics;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 public class DoctorDAO {
 
+    // Shared by all DoctorDAO instances; ids are invalidated on every write below
+    static final EntityCache<Integer, Doctor> CACHE = EntityCache.fromSystemProperties("doctor", 1000);
+
+    // SQL
+    private static final String INSERT_SQL = "INSERT INTO doctors (doctor_id, firstname, surname, address, email) VALUES (?, ?, ?, ?, ?)";
+    private static final String SELECT_BY_ID_SQL = "SELECT * FROM doctors WHERE doctor_id = ?";
+    private static final String SELECT_BY_IDS_SQL = "SELECT * FROM doctors WHERE doctor_id IN (?)"; // see IdBatchQuery
+    private static final String UPDATE_SQL = "UPDATE doctors SET firstname=?, surname=?, address=?, email=? WHERE doctor_id=?";
+    private static final String DELETE_SQL = "DELETE FROM doctors WHERE doctor_id = ?";
+    private static final String SELECT_ALL_SQL = "SELECT * FROM doctors";
+    private static final String SELECT_PAGE_SQL = "SELECT * FROM doctors WHERE doctor_id > ? ORDER BY doctor_id LIMIT ?";
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM doctors";
+
+    // METRICS (see DaoMetrics)
+    private static final DaoMetrics.Operation INSERT_DOCTOR = DaoMetrics.operation("DoctorDAO", "insertDoctor");
+    private static final DaoMetrics.Operation GET_DOCTOR_BY_ID = DaoMetrics.operation("DoctorDAO", "getDoctorById");
+    private static final DaoMetrics.Operation UPDATE_DOCTOR = DaoMetrics.operation("DoctorDAO", "updateDoctor");
+    private static final DaoMetrics.Operation DELETE_DOCTOR = DaoMetrics.operation("DoctorDAO", "deleteDoctor");
+    private static final DaoMetrics.Operation GET_DOCTORS_BY_IDS = DaoMetrics.operation("DoctorDAO", "getDoctorsByIds");
+    private static final DaoMetrics.Operation INSERT_DOCTORS = DaoMetrics.operation("DoctorDAO", "insertDoctors");
+    private static final DaoMetrics.Operation UPDATE_DOCTORS = DaoMetrics.operation("DoctorDAO", "updateDoctors");
+    private static final DaoMetrics.Operation DELETE_DOCTORS = DaoMetrics.operation("DoctorDAO", "deleteDoctors");
+    private static final DaoMetrics.Operation GET_ALL_DOCTORS = DaoMetrics.operation("DoctorDAO", "getAllDoctors");
+    private static final DaoMetrics.Operation STREAM_DOCTORS = DaoMetrics.operation("DoctorDAO", "streamDoctors");
+    private static final DaoMetrics.Operation GET_DOCTORS_PAGE = DaoMetrics.operation("DoctorDAO", "getDoctorsPage");
+    private static final DaoMetrics.Operation COUNT_DOCTORS = DaoMetrics.operation("DoctorDAO", "countDoctors");
+
     // CREATE
     public void insertDoctor(Doctor doctor) {
-        String sql = "INSERT INTO doctors (doctor_id, first_name, surname, address, email) VALUES (?, ?, ?, ?, ?)";
+        long start = INSERT_DOCTOR.start();
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
 
-            stmt.setInt(1, doctor.getDoctorId());
-            stmt.setString(2, doctor.getFirstName());
-            stmt.setString(3, doctor.getSurname());
-            stmt.setString(4, doctor.getAddress());
-            stmt.setString(5, doctor.getEmail());
-            stmt.executeUpdate();
+            bindInsert(stmt, doctor);
+            int rows = stmt.executeUpdate();
+            INSERT_DOCTOR.rows(rows);
+            if (rows > 0) {
+                NameLookup.doctorsSaved(List.of(doctor));
+            }
 
         } catch (SQLException e) {
+            INSERT_DOCTOR.error();
             e.printStackTrace();
+        } finally {
+            INSERT_DOCTOR.stop(start);
         }
+        CACHE.invalidate(doctor.getDoctorId());
     }
 
-    // READ
+    // READ (cached)
+    /**
+     * Returns the doctor with this id, cached. Callers get a fresh copy each time,
+     * so editing it before updateDoctor() leaves the cached row untouched.
+     */
     public Doctor getDoctorById(int id) {
+        long start = GET_DOCTOR_BY_ID.start();
+        try {
+            Doctor doctor = copy(CACHE.get(id, this::loadDoctorById));
+            GET_DOCTOR_BY_ID.rows(doctor == null ? 0 : 1);
+            return doctor;
+        } finally {
+            GET_DOCTOR_BY_ID.stop(start);
+        }
+    }
+
+    public static EntityCache.Stats getCacheStats() {
+        return CACHE.getStats();
+    }
+
+    // READ (database)
+    private Doctor loadDoctorById(int id) {
         Doctor doctor = null;
-        String sql = "SELECT * FROM doctors WHERE doctor_id = ?";
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(SELECT_BY_ID_SQL)) {
 
             stmt.setInt(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    doctor = new Doctor(
-                        rs.getInt("doctor_id"),
-                        rs.getString("first_name"),
-                        rs.getString("surname"),
-                        rs.getString("address"),
-                        rs.getString("email")
-                    );
+                    doctor = mapRow(rs);
                 }
             }
         } catch (SQLException e) {
+            GET_DOCTOR_BY_ID.error(); // counted on the public method
             e.printStackTrace();
         }
         return doctor;
@@ -54,57 +104,237 @@ public class DoctorDAO {
 
     // UPDATE
     public void updateDoctor(Doctor doctor) {
-        String sql = "UPDATE doctors SET first_name=?, surname=?, address=?, email=? WHERE doctor_id=?";
+        long start = UPDATE_DOCTOR.start();
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
 
-            stmt.setString(1, doctor.getFirstName());
-            stmt.setString(2, doctor.getSurname());
-            stmt.setString(3, doctor.getAddress());
-            stmt.setString(4, doctor.getEmail());
-            stmt.setInt(5, doctor.getDoctorId());
-            stmt.executeUpdate();
+            bindUpdate(stmt, doctor);
+            int rows = stmt.executeUpdate();
+            UPDATE_DOCTOR.rows(rows);
+            if (rows > 0) {
+                NameLookup.doctorsSaved(List.of(doctor));
+            }
 
         } catch (SQLException e) {
+            UPDATE_DOCTOR.error();
             e.printStackTrace();
+        } finally {
+            UPDATE_DOCTOR.stop(start);
         }
+        CACHE.invalidate(doctor.getDoctorId());
     }
 
     // DELETE
     public void deleteDoctor(int id) {
-        String sql = "DELETE FROM doctors WHERE doctorID = ?";
+        long start = DELETE_DOCTOR.start();
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(DELETE_SQL)) {
 
             stmt.setInt(1, id);
-            stmt.executeUpdate();
+            int rows = stmt.executeUpdate();
+            DELETE_DOCTOR.rows(rows);
+            if (rows > 0) {
+                NameLookup.deleted(NameLookup.Kind.DOCTOR, id);
+            }
 
         } catch (SQLException e) {
+            DELETE_DOCTOR.error();
             e.printStackTrace();
+        } finally {
+            DELETE_DOCTOR.stop(start);
+        }
+        CACHE.invalidate(id);
+    }
+
+    // READ (many)
+    /**
+     * The doctors with the given ids, keyed by id: cached ones from the cache, the rest in one
+     * IN (...) query per thousand ids (and cached). Ids that don't exist are simply missing
+     * from the map.
+     */
+    public Map<Integer, Doctor> getDoctorsByIds(Collection<Integer> ids) {
+        long start = GET_DOCTORS_BY_IDS.start();
+        Map<Integer, Doctor> found = new HashMap<>();
+        try {
+            CACHE.getAll(ids, this::loadDoctorsByIds).forEach((id, d) -> found.put(id, copy(d)));
+        } finally {
+            GET_DOCTORS_BY_IDS.stop(start);
         }
+        GET_DOCTORS_BY_IDS.rows(found.size());
+        return found;
+    }
+
+    private Map<Integer, Doctor> loadDoctorsByIds(Collection<Integer> ids) {
+        Map<Integer, Doctor> loaded = new HashMap<>();
+        try {
+            IdBatchQuery.run(SELECT_BY_IDS_SQL, ids, this::mapRow,
+                    x -> loaded.put(x.getDoctorId(), x));
+        } catch (SQLException e) {
+            GET_DOCTORS_BY_IDS.error(); // counted on the public method
+            e.printStackTrace();
+        }
+        return loaded;
+    }
+
+    // BULK
+    /**
+     * Batched insert/update/delete of many doctors in a single transaction (all or nothing).
+     * The doctor cache forgets each id afterwards, also when the write was rolled back.
+     */
+    public BatchResult insertDoctors(Collection<? extends Doctor> doctors) {
+        BatchResult result = BulkWrite.run(INSERT_DOCTORS, doctors, INSERT_SQL, DoctorDAO::bindInsert);
+        doctors.forEach(d -> CACHE.invalidate(d.getDoctorId()));
+        if (result.isCommitted()) {
+            NameLookup.doctorsSaved(doctors);
+        }
+        return result;
+    }
+
+    public BatchResult updateDoctors(Collection<? extends Doctor> doctors) {
+        BatchResult result = BulkWrite.run(UPDATE_DOCTORS, doctors, UPDATE_SQL, DoctorDAO::bindUpdate);
+        doctors.forEach(d -> CACHE.invalidate(d.getDoctorId()));
+        if (result.isCommitted()) {
+            NameLookup.doctorsSaved(doctors);
+        }
+        return result;
+    }
+
+    public BatchResult deleteDoctors(int... ids) {
+        BatchResult result = BulkWrite.deleteIds(DELETE_DOCTORS, DELETE_SQL, ids);
+        for (int id : ids) {
+            CACHE.invalidate(id);
+        }
+        if (result.isCommitted()) {
+            NameLookup.deleted(NameLookup.Kind.DOCTOR, ids);
+        }
+        return result;
     }
 
     // LIST ALL
     public List<Doctor> getAllDoctors() {
+        long start = GET_ALL_DOCTORS.start();
         List<Doctor> doctors = new ArrayList<>();
-        String sql = "SELECT * FROM doctors";
         try (Connection conn = DBConnection.getConnection();
              Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+             ResultSet rs = stmt.executeQuery(SELECT_ALL_SQL)) {
 
             while (rs.next()) {
-                Doctor doctor = new Doctor(
-                    rs.getInt("doctor_id"),
-                    rs.getString("firstname"),
-                    rs.getString("surname"),
-                    rs.getString("address"),
-                    rs.getString("email")
-                );
-                doctors.add(doctor);
+                doctors.add(mapRow(rs));
             }
         } catch (SQLException e) {
+            GET_ALL_DOCTORS.error();
             e.printStackTrace();
+        } finally {
+            GET_ALL_DOCTORS.stop(start);
         }
+        GET_ALL_DOCTORS.rows(doctors.size());
         return doctors;
     }
+
+    // STREAM ALL
+    /**
+     * Streams all doctors through a server-side cursor instead of building a list.
+     * The stream holds a pooled connection, so close it (try-with-resources) when done.
+     */
+    public Stream<Doctor> streamDoctors() {
+        try {
+            return streamDoctorsOrThrow();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return Stream.empty();
+        }
+    }
+
+    /**
+     * Same as {@link #streamDoctors()}, but a cursor that can't be opened is an exception
+     * rather than an empty stream, for callers that must not mistake it for an empty table.
+     */
+    Stream<Doctor> streamDoctorsOrThrow() throws SQLException {
+        return ResultStreams.open(SELECT_ALL_SQL, this::mapRow, STREAM_DOCTORS);
+    }
+
+    // PAGE (keyset): rows with doctor_id > afterId, in key order
+    /**
+     * Returns up to pageSize rows whose doctor_id is greater than afterId, ordered by doctor_id.
+     * Pass Integer.MIN_VALUE for the first page, then the last id of the previous page.
+     */
+    public List<Doctor> getDoctorsPage(int afterId, int pageSize) {
+        long start = GET_DOCTORS_PAGE.start();
+        List<Doctor> page = new ArrayList<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_PAGE_SQL)) {
+
+            stmt.setInt(1, afterId);
+            stmt.setInt(2, pageSize);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    page.add(mapRow(rs));
+                }
+            }
+        } catch (SQLException e) {
+            GET_DOCTORS_PAGE.error();
+            e.printStackTrace();
+        } finally {
+            GET_DOCTORS_PAGE.stop(start);
+        }
+        GET_DOCTORS_PAGE.rows(page.size());
+        return page;
+    }
+
+    // LISTING (sortable pages for the results table)
+    public SortedPageQuery listingQuery() {
+        return new SortedPageQuery("doctors", "doctor_id",
+                new String[]{"doctor_id", "firstname", "surname", "address", "email", "specialization"},
+                new String[]{"ID", "First Name", "Surname", "Address", "Email", "Specialization"});
+    }
+
+    // COUNT
+    public long countDoctors() {
+        long start = COUNT_DOCTORS.start();
+        try (Connection conn = DBConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(COUNT_SQL)) {
+
+            if (rs.next()) {
+                return rs.getLong(1);
+            }
+        } catch (SQLException e) {
+            COUNT_DOCTORS.error();
+            e.printStackTrace();
+        } finally {
+            COUNT_DOCTORS.stop(start);
+        }
+        return 0;
+    }
+
+    /** Maps the current row of a doctors query to a Doctor. */
+    private Doctor mapRow(ResultSet rs) throws SQLException {
+        return new Doctor(
+            rs.getInt("doctor_id"),
+            rs.getString("firstname"),
+            rs.getString("surname"),
+            rs.getString("address"),
+            rs.getString("email")
+        );
+    }
+
+    private static Doctor copy(Doctor d) {
+        return d == null ? null : new Doctor(d.getDoctorId(), d.getFirstName(), d.getSurname(), d.getAddress(), d.getEmail());
+    }
+
+    private static void bindInsert(PreparedStatement stmt, Doctor doctor) throws SQLException {
+        stmt.setInt(1, doctor.getDoctorId());
+        stmt.setString(2, doctor.getFirstName());
+        stmt.setString(3, doctor.getSurname());
+        stmt.setString(4, doctor.getAddress());
+        stmt.setString(5, doctor.getEmail());
+    }
+
+    private static void bindUpdate(PreparedStatement stmt, Doctor doctor) throws SQLException {
+        stmt.setString(1, doctor.getFirstName());
+        stmt.setString(2, doctor.getSurname());
+        stmt.setString(3, doctor.getAddress());
+        stmt.setString(4, doctor.getEmail());
+        stmt.setInt(5, doctor.getDoctorId());
+    }
 }
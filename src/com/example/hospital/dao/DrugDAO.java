@@ -2,36 +2,89 @@ package com.example.hospital.dao;
 
 import com.example.hospital.model.Drug;
 import com.example.hospital.util.DBConnection;
+import com.example.hospital.util.DaoMetrics;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public class DrugDAO {
 
+    // Shared by all DrugDAO instances; ids are invalidated on every write below
+    static final EntityCache<Integer, Drug> CACHE = EntityCache.fromSystemProperties("drug", 1000);
+
+    // SQL
+    private static final String INSERT_SQL = "INSERT INTO drugs (drug_id, name, sideeffects, benefits) VALUES (?, ?, ?, ?)";
+    private static final String SELECT_BY_ID_SQL = "SELECT * FROM drugs WHERE drug_id = ?";
+    private static final String UPDATE_SQL = "UPDATE drugs SET name=?, sideeffects=?, benefits=? WHERE drug_id=?";
+    private static final String DELETE_SQL = "DELETE FROM drugs WHERE drug_id = ?";
+    private static final String SELECT_ALL_SQL = "SELECT * FROM drugs";
+    private static final String SELECT_PAGE_SQL = "SELECT * FROM drugs WHERE drug_id > ? ORDER BY drug_id LIMIT ?";
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM drugs";
+
+    // METRICS (see DaoMetrics)
+    private static final DaoMetrics.Operation INSERT_DRUG = DaoMetrics.operation("DrugDAO", "insertDrug");
+    private static final DaoMetrics.Operation GET_DRUG_BY_ID = DaoMetrics.operation("DrugDAO", "getDrugById");
+    private static final DaoMetrics.Operation UPDATE_DRUG = DaoMetrics.operation("DrugDAO", "updateDrug");
+    private static final DaoMetrics.Operation DELETE_DRUG = DaoMetrics.operation("DrugDAO", "deleteDrug");
+    private static final DaoMetrics.Operation INSERT_DRUGS = DaoMetrics.operation("DrugDAO", "insertDrugs");
+    private static final DaoMetrics.Operation UPDATE_DRUGS = DaoMetrics.operation("DrugDAO", "updateDrugs");
+    private static final DaoMetrics.Operation DELETE_DRUGS = DaoMetrics.operation("DrugDAO", "deleteDrugs");
+    private static final DaoMetrics.Operation GET_ALL_DRUGS = DaoMetrics.operation("DrugDAO", "getAllDrugs");
+    private static final DaoMetrics.Operation STREAM_DRUGS = DaoMetrics.operation("DrugDAO", "streamDrugs");
+    private static final DaoMetrics.Operation GET_DRUGS_PAGE = DaoMetrics.operation("DrugDAO", "getDrugsPage");
+    private static final DaoMetrics.Operation COUNT_DRUGS = DaoMetrics.operation("DrugDAO", "countDrugs");
+
     // CREATE
     public void insertDrug(Drug drug) {
-        String sql = "INSERT INTO drugs (drug_id, name, side_effects, benefits) VALUES (?, ?, ?, ?)";
+        long start = INSERT_DRUG.start();
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
 
-            stmt.setInt(1, drug.getDrugId());
-            stmt.setString(2, drug.getName());
-            stmt.setString(3, drug.getSideEffects());
-            stmt.setString(4, drug.getBenefits());
-            stmt.executeUpdate();
+            bindInsert(stmt, drug);
+            int rows = stmt.executeUpdate();
+            INSERT_DRUG.rows(rows);
+            if (rows > 0) {
+                TextSearch.drugsSaved(List.of(drug));
+                NameLookup.drugsSaved(List.of(drug));
+            }
 
         } catch (SQLException e) {
+            INSERT_DRUG.error();
             e.printStackTrace();
+        } finally {
+            INSERT_DRUG.stop(start);
         }
+        CACHE.invalidate(drug.getDrugId());
     }
 
-    // READ (Single)
+    // READ (cached)
+    /**
+     * Returns the drug with this id, from the cache when possible.
+     * The result is a copy, so changing it doesn't affect other callers until it is saved.
+     */
     public Drug getDrugById(int id) {
+        long start = GET_DRUG_BY_ID.start();
+        try {
+            Drug drug = copy(CACHE.get(id, this::loadDrugById));
+            GET_DRUG_BY_ID.rows(drug == null ? 0 : 1);
+            return drug;
+        } finally {
+            GET_DRUG_BY_ID.stop(start);
+        }
+    }
+
+    public static EntityCache.Stats getCacheStats() {
+        return CACHE.getStats();
+    }
+
+    // READ (database)
+    private Drug loadDrugById(int id) {
         Drug drug = null;
-        String sql = "SELECT * FROM drugs WHERE drug_id = ?";
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(SELECT_BY_ID_SQL)) {
 
             stmt.setInt(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
@@ -45,6 +98,7 @@ public class DrugDAO {
                 }
             }
         } catch (SQLException e) {
+            GET_DRUG_BY_ID.error(); // counted on the public method
             e.printStackTrace();
         }
         return drug;
@@ -52,55 +106,210 @@ public class DrugDAO {
 
     // UPDATE
     public void updateDrug(Drug drug) {
-        String sql = "UPDATE drugs SET name=?, side_effects=?, benefits=? WHERE drug_id=?";
+        long start = UPDATE_DRUG.start();
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
 
-            stmt.setString(1, drug.getName());
-            stmt.setString(2, drug.getSideEffects());
-            stmt.setString(3, drug.getBenefits());
-            stmt.setInt(4, drug.getDrugId());
-            stmt.executeUpdate();
+            bindUpdate(stmt, drug);
+            int rows = stmt.executeUpdate();
+            UPDATE_DRUG.rows(rows);
+            if (rows > 0) {
+                TextSearch.drugsSaved(List.of(drug));
+                NameLookup.drugsSaved(List.of(drug));
+            }
 
         } catch (SQLException e) {
+            UPDATE_DRUG.error();
             e.printStackTrace();
+        } finally {
+            UPDATE_DRUG.stop(start);
         }
+        CACHE.invalidate(drug.getDrugId());
     }
 
     // DELETE
     public void deleteDrug(int id) {
-        String sql = "DELETE FROM drugs WHERE drug_id = ?";
+        long start = DELETE_DRUG.start();
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(DELETE_SQL)) {
 
             stmt.setInt(1, id);
-            stmt.executeUpdate();
+            int rows = stmt.executeUpdate();
+            DELETE_DRUG.rows(rows);
+            if (rows > 0) {
+                TextSearch.deleted(TextSearch.Source.DRUG, id);
+                NameLookup.deleted(NameLookup.Kind.DRUG, id);
+            }
 
         } catch (SQLException e) {
+            DELETE_DRUG.error();
             e.printStackTrace();
+        } finally {
+            DELETE_DRUG.stop(start);
         }
+        CACHE.invalidate(id);
+    }
+
+    // BULK
+    /**
+     * Bulk versions of the writes above, for feeds that send drug lists in one go.
+     * Each call is a single batched transaction; the returned {@link BatchResult} says what
+     * happened to every row. Cached entries for all the ids involved are dropped afterwards.
+     */
+    public BatchResult insertDrugs(Collection<? extends Drug> drugs) {
+        BatchResult result = BulkWrite.run(INSERT_DRUGS, drugs, INSERT_SQL, DrugDAO::bindInsert);
+        drugs.forEach(d -> CACHE.invalidate(d.getDrugId()));
+        if (result.isCommitted()) {
+            TextSearch.drugsSaved(drugs);
+            NameLookup.drugsSaved(drugs);
+        }
+        return result;
+    }
+
+    public BatchResult updateDrugs(Collection<? extends Drug> drugs) {
+        BatchResult result = BulkWrite.run(UPDATE_DRUGS, drugs, UPDATE_SQL, DrugDAO::bindUpdate);
+        drugs.forEach(d -> CACHE.invalidate(d.getDrugId()));
+        if (result.isCommitted()) {
+            TextSearch.drugsSaved(drugs);
+            NameLookup.drugsSaved(drugs);
+        }
+        return result;
+    }
+
+    public BatchResult deleteDrugs(int... ids) {
+        BatchResult result = BulkWrite.deleteIds(DELETE_DRUGS, DELETE_SQL, ids);
+        for (int id : ids) {
+            CACHE.invalidate(id);
+        }
+        if (result.isCommitted()) {
+            TextSearch.deleted(TextSearch.Source.DRUG, ids);
+            NameLookup.deleted(NameLookup.Kind.DRUG, ids);
+        }
+        return result;
     }
 
     // LIST ALL
     public List<Drug> getAllDrugs() {
+        long start = GET_ALL_DRUGS.start();
         List<Drug> drugs = new ArrayList<>();
-        String sql = "SELECT * FROM drugs";
         try (Connection conn = DBConnection.getConnection();
              Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+             ResultSet rs = stmt.executeQuery(SELECT_ALL_SQL)) {
 
             while (rs.next()) {
-                Drug drug = new Drug(
-                    rs.getInt("drug_id"),
-                    rs.getString("name"),
-                    rs.getString("sideeffects"),
-                    rs.getString("benefits")
-                );
-                drugs.add(drug);
+                drugs.add(mapRow(rs));
             }
         } catch (SQLException e) {
+            GET_ALL_DRUGS.error();
             e.printStackTrace();
+        } finally {
+            GET_ALL_DRUGS.stop(start);
         }
+        GET_ALL_DRUGS.rows(drugs.size());
         return drugs;
     }
+
+    // STREAM ALL
+    /**
+     * Streams all drugs through a server-side cursor instead of building a list.
+     * The stream holds a pooled connection, so close it (try-with-resources) when done.
+     */
+    public Stream<Drug> streamDrugs() {
+        try {
+            return streamDrugsOrThrow();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return Stream.empty();
+        }
+    }
+
+    /**
+     * Same as {@link #streamDrugs()}, but a cursor that can't be opened is an exception
+     * rather than an empty stream, for callers that must not mistake it for an empty table.
+     */
+    Stream<Drug> streamDrugsOrThrow() throws SQLException {
+        return ResultStreams.open(SELECT_ALL_SQL, this::mapRow, STREAM_DRUGS);
+    }
+
+    // PAGE (keyset): rows with drug_id > afterId, in key order
+    /**
+     * Returns up to pageSize rows whose drug_id is greater than afterId, ordered by drug_id.
+     * Pass Integer.MIN_VALUE for the first page, then the last id of the previous page.
+     */
+    public List<Drug> getDrugsPage(int afterId, int pageSize) {
+        long start = GET_DRUGS_PAGE.start();
+        List<Drug> page = new ArrayList<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_PAGE_SQL)) {
+
+            stmt.setInt(1, afterId);
+            stmt.setInt(2, pageSize);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    page.add(mapRow(rs));
+                }
+            }
+        } catch (SQLException e) {
+            GET_DRUGS_PAGE.error();
+            e.printStackTrace();
+        } finally {
+            GET_DRUGS_PAGE.stop(start);
+        }
+        GET_DRUGS_PAGE.rows(page.size());
+        return page;
+    }
+
+    // LISTING (sortable pages for the results table)
+    public SortedPageQuery listingQuery() {
+        return new SortedPageQuery("drugs", "drug_id",
+                new String[]{"drug_id", "name", "sideeffects", "benefits"},
+                new String[]{"Drug ID", "Name", "Side Effects", "Benefits"});
+    }
+
+    // COUNT
+    public long countDrugs() {
+        long start = COUNT_DRUGS.start();
+        try (Connection conn = DBConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(COUNT_SQL)) {
+
+            if (rs.next()) {
+                return rs.getLong(1);
+            }
+        } catch (SQLException e) {
+            COUNT_DRUGS.error();
+            e.printStackTrace();
+        } finally {
+            COUNT_DRUGS.stop(start);
+        }
+        return 0;
+    }
+
+    /** Maps the current row of a list query to a Drug. */
+    private Drug mapRow(ResultSet rs) throws SQLException {
+        return new Drug(
+            rs.getInt("drug_id"),
+            rs.getString("name"),
+            rs.getString("sideeffects"),
+            rs.getString("benefits")
+        );
+    }
+
+    private static Drug copy(Drug d) {
+        return d == null ? null : new Drug(d.getDrugId(), d.getName(), d.getSideEffects(), d.getBenefits());
+    }
+
+    private static void bindInsert(PreparedStatement stmt, Drug drug) throws SQLException {
+        stmt.setInt(1, drug.getDrugId());
+        stmt.setString(2, drug.getName());
+        stmt.setString(3, drug.getSideEffects());
+        stmt.setString(4, drug.getBenefits());
+    }
+
+    private static void bindUpdate(PreparedStatement stmt, Drug drug) throws SQLException {
+        stmt.setString(1, drug.getName());
+        stmt.setString(2, drug.getSideEffects());
+        stmt.setString(3, drug.getBenefits());
+        stmt.setInt(4, drug.getDrugId());
+    }
 }
@@ -0,0 +1,200 @@
+package com.example.hospital.dao;
+
+import com.example.hospital.util.Transactions;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A small read-through cache for rows that are read far more often than they change
+ * (drugs, insurance companies, doctors).
+ *
+ * 1) LRU eviction once more than capacity entries are held.
+ * 2) Optional time-to-live; expired entries are reloaded on the next lookup.
+ * 3) Counters for hits, misses, evictions and expirations (see {@link #getStats()}).
+ *
+ * The owning DAO invalidates an id on every insert/update/delete of it. A load that was
+ * already running when an invalidation happened is not stored, so a stale row can't sneak
+ * back in. Missing rows (loader returns null) are not cached.
+ *
+ * Settings come from system properties, e.g. -Dhospital.cache.drug.capacity=5000
+ * and -Dhospital.cache.drug.ttlSeconds=600 (0 = no expiry); capacity 0 turns the cache off.
+ */
+public class EntityCache<K, V> {
+
+    private final String name;
+    private final int capacity;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private long invalidations = 0; // bumped by every invalidate/clear, guards in-flight loads
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long expirations = 0;
+
+    public EntityCache(String name, int capacity, long ttlSeconds) {
+        this.name = name;
+        this.capacity = Math.max(0, capacity);
+        this.ttlNanos = ttlSeconds > 0 ? ttlSeconds * 1_000_000_000L : 0;
+        this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > EntityCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    static <K, V> EntityCache<K, V> fromSystemProperties(String name, int defaultCapacity) {
+        return new EntityCache<>(name,
+                Integer.getInteger("hospital.cache." + name + ".capacity", defaultCapacity),
+                Long.getLong("hospital.cache." + name + ".ttlSeconds", 0L));
+    }
+
+    /** Returns the cached value, or loads it (outside the lock) and caches it if found. */
+    public V get(K key, Function<K, V> loader) {
+        long seenInvalidations;
+        synchronized (this) {
+            Entry<V> e = entries.get(key);
+            if (e != null) {
+                if (ttlNanos == 0 || System.nanoTime() - e.loadedAt < ttlNanos) {
+                    hits++;
+                    return e.value;
+                }
+                entries.remove(key);
+                expirations++;
+            }
+            misses++;
+            seenInvalidations = invalidations;
+        }
+
+        V value = loader.apply(key);
+        if (value != null && capacity > 0) {
+            synchronized (this) {
+                if (invalidations == seenInvalidations) {
+                    entries.put(key, new Entry<>(value, System.nanoTime()));
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Batch form of {@link #get}: the cached values of the keys, plus whatever loader finds
+     * for the rest in one call (it gets only the missing keys). Keys found by neither are
+     * left out of the result.
+     */
+    public Map<K, V> getAll(Collection<K> keys, Function<Collection<K>, Map<K, V>> loader) {
+        Map<K, V> found = new HashMap<>();
+        List<K> missing = new ArrayList<>();
+        long seenInvalidations;
+        synchronized (this) {
+            long now = System.nanoTime();
+            for (K key : new LinkedHashSet<>(keys)) {
+                Entry<V> e = entries.get(key);
+                if (e != null && (ttlNanos == 0 || now - e.loadedAt < ttlNanos)) {
+                    hits++;
+                    found.put(key, e.value);
+                    continue;
+                }
+                if (e != null) {
+                    entries.remove(key);
+                    expirations++;
+                }
+                misses++;
+                missing.add(key);
+            }
+            seenInvalidations = invalidations;
+        }
+        if (missing.isEmpty()) return found;
+
+        Map<K, V> loaded = loader.apply(missing);
+        found.putAll(loaded);
+        if (capacity > 0) {
+            synchronized (this) {
+                if (invalidations == seenInvalidations) {
+                    long now = System.nanoTime();
+                    loaded.forEach((key, value) -> entries.put(key, new Entry<>(value, now)));
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Inside a {@link Transactions} scope the key is dropped again once the scope ends, since
+     * a lookup in between may have cached a row that was not committed yet (or rolled back).
+     */
+    public void invalidate(K key) {
+        remove(key);
+        if (Transactions.isActive()) {
+            Transactions.afterCompletion(() -> remove(key));
+        }
+    }
+
+    private synchronized void remove(K key) {
+        invalidations++;
+        entries.remove(key);
+    }
+
+    public synchronized void clear() {
+        invalidations++;
+        entries.clear();
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(name, entries.size(), capacity, hits, misses, evictions, expirations);
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long loadedAt;
+
+        Entry(V value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    /** A snapshot of the cache counters. */
+    public static class Stats {
+        public final String name;
+        public final int size;
+        public final int capacity;
+        public final long hits;
+        public final long misses;
+        public final long evictions;
+        public final long expirations;
+
+        Stats(String name, int size, int capacity, long hits, long misses, long evictions, long expirations) {
+            this.name = name;
+            this.size = size;
+            this.capacity = capacity;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.expirations = expirations;
+        }
+
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s cache: size=%d/%d, hits=%d, misses=%d (%.1f%% hit), evictions=%d, expired=%d",
+                    name, size, capacity, hits, misses, hitRate() * 100, evictions, expirations);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.hospital.dao;
+
+import com.example.hospital.util.DBConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Runs "SELECT ... WHERE id IN (?, ?, ...)" for a whole set of ids, so callers can resolve
+ * many references in one round trip instead of one query per row. The caller's SQL ends in
+ * "IN (?)", so it is a valid one-id query as declared (and can be EXPLAINed as such);
+ * the single placeholder is widened to the chunk size here.
+ *
+ * Ids are de-duplicated and sent in chunks of at most MAX_IDS_PER_QUERY placeholders,
+ * all on the same pooled connection. Each chunk is padded to the next of a few fixed
+ * sizes ({@link #IN_SIZES}) by repeating its last id, so there are only five distinct
+ * statements per query and the server-side prepared statements get reused from the
+ * statement cache instead of being re-prepared for every list length.
+ */
+class IdBatchQuery {
+
+    static final int MAX_IDS_PER_QUERY = 1000;
+    static final int[] IN_SIZES = {1, 8, 32, 128, MAX_IDS_PER_QUERY};
+    private static final String IN_ONE = "IN (?)";
+
+    private IdBatchQuery() {
+    }
+
+    /**
+     * @param inSql the query for one id, ending in "IN (?)",
+     *              e.g. "SELECT * FROM doctors WHERE doctor_id IN (?)"
+     */
+    static <T> void run(String inSql, Collection<Integer> ids,
+                        ResultStreams.RowMapper<T> mapper, Consumer<T> sink) throws SQLException {
+        if (!inSql.endsWith(IN_ONE)) {
+            throw new IllegalArgumentException("Expected a query ending in " + IN_ONE + ": " + inSql);
+        }
+        if (ids.isEmpty()) return;
+        String prefix = inSql.substring(0, inSql.length() - IN_ONE.length());
+        List<Integer> unique = new ArrayList<>(new LinkedHashSet<>(ids));
+
+        try (Connection conn = DBConnection.getConnection()) {
+            for (int from = 0; from < unique.size(); from += MAX_IDS_PER_QUERY) {
+                List<Integer> chunk = unique.subList(from, Math.min(unique.size(), from + MAX_IDS_PER_QUERY));
+                int size = paddedSize(chunk.size());
+                String sql = prefix + "IN (" + String.join(", ", Collections.nCopies(size, "?")) + ")";
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < size; i++) {
+                        // repeated ids match the same row, which is returned once
+                        stmt.setInt(i + 1, chunk.get(Math.min(i, chunk.size() - 1)));
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            sink.accept(mapper.map(rs));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /** The smallest of IN_SIZES that holds n ids (n is at most MAX_IDS_PER_QUERY). */
+    static int paddedSize(int n) {
+        for (int size : IN_SIZES) {
+            if (n <= size) return size;
+        }
+        return MAX_IDS_PER_QUERY;
+    }
+}
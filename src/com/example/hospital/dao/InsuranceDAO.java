@@ -2,36 +2,84 @@ package com.example.hospital.dao;
 
 import com.example.hospital.model.Insurance;
 import com.example.hospital.util.DBConnection;
+import com.example.hospital.util.DaoMetrics;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public class InsuranceDAO {
 
+    // Shared by all InsuranceDAO instances; ids are invalidated on every write below
+    static final EntityCache<Integer, Insurance> CACHE = EntityCache.fromSystemProperties("insurance", 500);
+
+    // SQL
+    private static final String INSERT_SQL = "INSERT INTO insurance (insurance_id, company, address, phone) VALUES (?, ?, ?, ?)";
+    private static final String SELECT_BY_ID_SQL = "SELECT * FROM insurance WHERE insurance_id = ?";
+    private static final String UPDATE_SQL = "UPDATE insurance SET company=?, address=?, phone=? WHERE insurance_id=?";
+    private static final String DELETE_SQL = "DELETE FROM insurance WHERE insurance_id = ?";
+    private static final String SELECT_ALL_SQL = "SELECT * FROM insurance";
+    private static final String SELECT_PAGE_SQL = "SELECT * FROM insurance WHERE insurance_id > ? ORDER BY insurance_id LIMIT ?";
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM insurance";
+
+    // METRICS (see DaoMetrics)
+    private static final DaoMetrics.Operation INSERT_INSURANCE = DaoMetrics.operation("InsuranceDAO", "insertInsurance");
+    private static final DaoMetrics.Operation GET_INSURANCE_BY_ID = DaoMetrics.operation("InsuranceDAO", "getInsuranceById");
+    private static final DaoMetrics.Operation UPDATE_INSURANCE = DaoMetrics.operation("InsuranceDAO", "updateInsurance");
+    private static final DaoMetrics.Operation DELETE_INSURANCE = DaoMetrics.operation("InsuranceDAO", "deleteInsurance");
+    private static final DaoMetrics.Operation INSERT_INSURANCE_RECORDS = DaoMetrics.operation("InsuranceDAO", "insertInsuranceRecords");
+    private static final DaoMetrics.Operation UPDATE_INSURANCE_RECORDS = DaoMetrics.operation("InsuranceDAO", "updateInsuranceRecords");
+    private static final DaoMetrics.Operation DELETE_INSURANCE_RECORDS = DaoMetrics.operation("InsuranceDAO", "deleteInsuranceRecords");
+    private static final DaoMetrics.Operation GET_ALL_INSURANCE_RECORDS = DaoMetrics.operation("InsuranceDAO", "getAllInsuranceRecords");
+    private static final DaoMetrics.Operation STREAM_INSURANCE_RECORDS = DaoMetrics.operation("InsuranceDAO", "streamInsuranceRecords");
+    private static final DaoMetrics.Operation GET_INSURANCE_PAGE = DaoMetrics.operation("InsuranceDAO", "getInsurancePage");
+    private static final DaoMetrics.Operation COUNT_INSURANCE_RECORDS = DaoMetrics.operation("InsuranceDAO", "countInsuranceRecords");
+
     // CREATE
     public void insertInsurance(Insurance insurance) {
-        String sql = "INSERT INTO insurance (insurance_id, company, address, phone) VALUES (?, ?, ?, ?)";
+        long start = INSERT_INSURANCE.start();
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
 
-            stmt.setInt(1, insurance.getInsuranceId());
-            stmt.setString(2, insurance.getCompany());
-            stmt.setString(3, insurance.getAddress());
-            stmt.setString(4, insurance.getPhone());
-            stmt.executeUpdate();
+            bindInsert(stmt, insurance);
+            INSERT_INSURANCE.rows(stmt.executeUpdate());
 
         } catch (SQLException e) {
+            INSERT_INSURANCE.error();
             e.printStackTrace();
+        } finally {
+            INSERT_INSURANCE.stop(start);
         }
+        CACHE.invalidate(insurance.getInsuranceId());
     }
 
-    // READ
+    // READ (cached)
+    /**
+     * Cached lookup; insurers rarely change, so most calls never reach the database.
+     * Each call gets its own copy of the row.
+     */
     public Insurance getInsuranceById(int id) {
+        long start = GET_INSURANCE_BY_ID.start();
+        try {
+            Insurance insurance = copy(CACHE.get(id, this::loadInsuranceById));
+            GET_INSURANCE_BY_ID.rows(insurance == null ? 0 : 1);
+            return insurance;
+        } finally {
+            GET_INSURANCE_BY_ID.stop(start);
+        }
+    }
+
+    public static EntityCache.Stats getCacheStats() {
+        return CACHE.getStats();
+    }
+
+    // READ (database)
+    private Insurance loadInsuranceById(int id) {
         Insurance insurance = null;
-        String sql = "SELECT * FROM insurance WHERE insurance_id = ?";
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(SELECT_BY_ID_SQL)) {
 
             stmt.setInt(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
@@ -45,6 +93,7 @@ public class InsuranceDAO {
                 }
             }
         } catch (SQLException e) {
+            GET_INSURANCE_BY_ID.error(); // counted on the public method
             e.printStackTrace();
         }
         return insurance;
@@ -52,54 +101,173 @@ public class InsuranceDAO {
 
     // UPDATE
     public void updateInsurance(Insurance insurance) {
-        String sql = "UPDATE insurance SET company=?, address=?, phone=? WHERE insurance_id=?";
+        long start = UPDATE_INSURANCE.start();
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
 
-            stmt.setString(1, insurance.getCompany());
-            stmt.setString(2, insurance.getAddress());
-            stmt.setString(3, insurance.getPhone());
-            stmt.setInt(4, insurance.getInsuranceId());
-            stmt.executeUpdate();
+            bindUpdate(stmt, insurance);
+            UPDATE_INSURANCE.rows(stmt.executeUpdate());
 
         } catch (SQLException e) {
+            UPDATE_INSURANCE.error();
             e.printStackTrace();
+        } finally {
+            UPDATE_INSURANCE.stop(start);
         }
+        CACHE.invalidate(insurance.getInsuranceId());
     }
 
     // DELETE
     public void deleteInsurance(int id) {
-        String sql = "DELETE FROM insurance WHERE insurance_id = ?";
+        long start = DELETE_INSURANCE.start();
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(DELETE_SQL)) {
 
             stmt.setInt(1, id);
-            stmt.executeUpdate();
+            DELETE_INSURANCE.rows(stmt.executeUpdate());
         } catch (SQLException e) {
+            DELETE_INSURANCE.error();
             e.printStackTrace();
+        } finally {
+            DELETE_INSURANCE.stop(start);
         }
+        CACHE.invalidate(id);
+    }
+
+    // BULK
+    /**
+     * Many insurance records per call: one transaction, JDBC batching, per-row outcome in
+     * the result. Every id passed in is evicted from the cache, whatever the outcome.
+     */
+    public BatchResult insertInsuranceRecords(Collection<? extends Insurance> records) {
+        BatchResult result = BulkWrite.run(INSERT_INSURANCE_RECORDS, records, INSERT_SQL, InsuranceDAO::bindInsert);
+        records.forEach(i -> CACHE.invalidate(i.getInsuranceId()));
+        return result;
+    }
+
+    public BatchResult updateInsuranceRecords(Collection<? extends Insurance> records) {
+        BatchResult result = BulkWrite.run(UPDATE_INSURANCE_RECORDS, records, UPDATE_SQL, InsuranceDAO::bindUpdate);
+        records.forEach(i -> CACHE.invalidate(i.getInsuranceId()));
+        return result;
+    }
+
+    public BatchResult deleteInsuranceRecords(int... ids) {
+        BatchResult result = BulkWrite.deleteIds(DELETE_INSURANCE_RECORDS, DELETE_SQL, ids);
+        for (int id : ids) {
+            CACHE.invalidate(id);
+        }
+        return result;
     }
 
     // LIST ALL
     public List<Insurance> getAllInsuranceRecords() {
+        long start = GET_ALL_INSURANCE_RECORDS.start();
         List<Insurance> list = new ArrayList<>();
-        String sql = "SELECT * FROM insurance";
         try (Connection conn = DBConnection.getConnection();
              Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+             ResultSet rs = stmt.executeQuery(SELECT_ALL_SQL)) {
 
             while (rs.next()) {
-                Insurance insurance = new Insurance(
-                    rs.getInt("insurance_id"),
-                    rs.getString("company"),
-                    rs.getString("address"),
-                    rs.getString("phone")
-                );
-                list.add(insurance);
+                list.add(mapRow(rs));
             }
         } catch (SQLException e) {
+            GET_ALL_INSURANCE_RECORDS.error();
             e.printStackTrace();
+        } finally {
+            GET_ALL_INSURANCE_RECORDS.stop(start);
         }
+        GET_ALL_INSURANCE_RECORDS.rows(list.size());
         return list;
     }
+
+    // STREAM ALL
+    /**
+     * Streams all insurance records through a server-side cursor instead of building a list.
+     * The stream holds a pooled connection, so close it (try-with-resources) when done.
+     */
+    public Stream<Insurance> streamInsuranceRecords() {
+        return ResultStreams.query(SELECT_ALL_SQL, this::mapRow, STREAM_INSURANCE_RECORDS);
+    }
+
+    // PAGE (keyset): rows with insurance_id > afterId, in key order
+    /**
+     * Returns up to pageSize rows whose insurance_id is greater than afterId, ordered by insurance_id.
+     * Pass Integer.MIN_VALUE for the first page, then the last id of the previous page.
+     */
+    public List<Insurance> getInsurancePage(int afterId, int pageSize) {
+        long start = GET_INSURANCE_PAGE.start();
+        List<Insurance> page = new ArrayList<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_PAGE_SQL)) {
+
+            stmt.setInt(1, afterId);
+            stmt.setInt(2, pageSize);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    page.add(mapRow(rs));
+                }
+            }
+        } catch (SQLException e) {
+            GET_INSURANCE_PAGE.error();
+            e.printStackTrace();
+        } finally {
+            GET_INSURANCE_PAGE.stop(start);
+        }
+        GET_INSURANCE_PAGE.rows(page.size());
+        return page;
+    }
+
+    // LISTING (sortable pages for the results table)
+    public SortedPageQuery listingQuery() {
+        return new SortedPageQuery("insurance", "insurance_id",
+                new String[]{"insurance_id", "company", "address", "phone"},
+                new String[]{"Insurance ID", "Company", "Address", "Phone"});
+    }
+
+    // COUNT
+    public long countInsuranceRecords() {
+        long start = COUNT_INSURANCE_RECORDS.start();
+        try (Connection conn = DBConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(COUNT_SQL)) {
+
+            if (rs.next()) {
+                return rs.getLong(1);
+            }
+        } catch (SQLException e) {
+            COUNT_INSURANCE_RECORDS.error();
+            e.printStackTrace();
+        } finally {
+            COUNT_INSURANCE_RECORDS.stop(start);
+        }
+        return 0;
+    }
+
+    /** Maps the current row of a list query to an Insurance. */
+    private Insurance mapRow(ResultSet rs) throws SQLException {
+        return new Insurance(
+            rs.getInt("insurance_id"),
+            rs.getString("company"),
+            rs.getString("address"),
+            rs.getString("phone")
+        );
+    }
+
+    private static Insurance copy(Insurance d) {
+        return d == null ? null : new Insurance(d.getInsuranceId(), d.getCompany(), d.getAddress(), d.getPhone());
+    }
+
+    private static void bindInsert(PreparedStatement stmt, Insurance insurance) throws SQLException {
+        stmt.setInt(1, insurance.getInsuranceId());
+        stmt.setString(2, insurance.getCompany());
+        stmt.setString(3, insurance.getAddress());
+        stmt.setString(4, insurance.getPhone());
+    }
+
+    private static void bindUpdate(PreparedStatement stmt, Insurance insurance) throws SQLException {
+        stmt.setString(1, insurance.getCompany());
+        stmt.setString(2, insurance.getAddress());
+        stmt.setString(3, insurance.getPhone());
+        stmt.setInt(4, insurance.getInsuranceId());
+    }
 }
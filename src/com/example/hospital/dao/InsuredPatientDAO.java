@@ -2,131 +2,305 @@ package com.example.hospital.dao;
 
 import com.example.hospital.model.InsuredPatient;
 import com.example.hospital.util.DBConnection;
+import com.example.hospital.util.DaoMetrics;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public class InsuredPatientDAO {
 
+    // SQL
+    private static final String UPSERT_PATIENT_SQL = "INSERT INTO patients (patient_id, firstname, surname, postcode, address, phone, email) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE "
+            + " firstname=?, surname=?, postcode=?, address=?, phone=?, email=?";
+    private static final String INSERT_INSURED_SQL = "INSERT INTO insured_patients (patient_id, insurance_type, insurance_company_name, duration_of_insurance) "
+            + "VALUES (?, ?, ?, ?)";
+    private static final String UPDATE_PATIENT_SQL = "UPDATE patients SET firstname=?, surname=?, postcode=?, address=?, phone=?, email=? "
+            + "WHERE patient_id=?";
+    private static final String UPDATE_INSURED_SQL = "UPDATE insured_patients SET insurance_type=?, insurance_company_name=?, duration_of_insurance=? "
+            + "WHERE patient_id=?";
+    private static final String DELETE_SQL = "DELETE FROM insured_patients WHERE patient_id = ?";
+    // Base fields live in 'patients'; aliases match the column names mapRow expects
+    private static final String SELECT_JOINED = "SELECT p.patient_id, p.firstname AS first_name, p.surname, p.postcode, p.address, p.phone, p.email, "
+            + "ip.insurance_type, ip.insurance_company_name AS insurance_company, ip.duration_of_insurance "
+            + "FROM insured_patients ip "
+            + "JOIN patients p ON ip.patient_id = p.patient_id";
+    private static final String SELECT_BY_ID_SQL = SELECT_JOINED + " WHERE ip.patient_id = ?";
+    private static final String SELECT_ALL_SQL = SELECT_JOINED;
+    private static final String STREAM_SQL = SELECT_JOINED;
+    private static final String SELECT_PAGE_SQL = SELECT_JOINED + " WHERE ip.patient_id > ? ORDER BY ip.patient_id LIMIT ?";
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM insured_patients";
+
+    // METRICS (see DaoMetrics)
+    private static final DaoMetrics.Operation INSERT_INSURED_PATIENT = DaoMetrics.operation("InsuredPatientDAO", "insertInsuredPatient");
+    private static final DaoMetrics.Operation GET_INSURED_PATIENT_BY_ID = DaoMetrics.operation("InsuredPatientDAO", "getInsuredPatientById");
+    private static final DaoMetrics.Operation UPDATE_INSURED_PATIENT = DaoMetrics.operation("InsuredPatientDAO", "updateInsuredPatient");
+    private static final DaoMetrics.Operation DELETE_INSURED_PATIENT = DaoMetrics.operation("InsuredPatientDAO", "deleteInsuredPatient");
+    private static final DaoMetrics.Operation INSERT_INSURED_PATIENTS = DaoMetrics.operation("InsuredPatientDAO", "insertInsuredPatients");
+    private static final DaoMetrics.Operation UPDATE_INSURED_PATIENTS = DaoMetrics.operation("InsuredPatientDAO", "updateInsuredPatients");
+    private static final DaoMetrics.Operation DELETE_INSURED_PATIENTS = DaoMetrics.operation("InsuredPatientDAO", "deleteInsuredPatients");
+    private static final DaoMetrics.Operation GET_ALL_INSURED_PATIENTS = DaoMetrics.operation("InsuredPatientDAO", "getAllInsuredPatients");
+    private static final DaoMetrics.Operation STREAM_INSURED_PATIENTS = DaoMetrics.operation("InsuredPatientDAO", "streamInsuredPatients");
+    private static final DaoMetrics.Operation GET_INSURED_PATIENTS_PAGE = DaoMetrics.operation("InsuredPatientDAO", "getInsuredPatientsPage");
+    private static final DaoMetrics.Operation COUNT_INSURED_PATIENTS = DaoMetrics.operation("InsuredPatientDAO", "countInsuredPatients");
+
     // CREATE
+    /**
+     * Table-per-subclass, like SpecialistDAO: the base fields go to 'patients' (inserted, or
+     * updated if the patient already exists), the insurance fields to 'insured_patients'.
+     * Both statements run on one connection and commit together.
+     */
     public void insertInsuredPatient(InsuredPatient ip) {
-        String sql = "INSERT INTO insured_patient (patient_id, first_name, surname, postcode, address, phone, email, "
-                   + "insurance_type, insurance_company, duration_of_insurance) "
-                   + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, ip.getPatientId());
-            stmt.setString(2, ip.getFirstName());
-            stmt.setString(3, ip.getSurname());
-            stmt.setString(4, ip.getPostcode());
-            stmt.setString(5, ip.getAddress());
-            stmt.setString(6, ip.getPhone());
-            stmt.setString(7, ip.getEmail());
-            stmt.setString(8, ip.getInsuranceType());
-            stmt.setString(9, ip.getInsuranceCompanyName());
-            stmt.setInt(10, ip.getDurationOfInsurance());
-
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
+        BatchResult result = BulkWrite.run(INSERT_INSURED_PATIENT, List.of(ip),
+                UPSERT_PATIENT_SQL, InsuredPatientDAO::bindPatientUpsert,
+                INSERT_INSURED_SQL, InsuredPatientDAO::bindInsuredInsert);
+        if (result.isCommitted()) {
+            NameLookup.insuredPatientsSaved(List.of(ip));
         }
     }
 
     // READ
     public InsuredPatient getInsuredPatientById(int id) {
+        long start = GET_INSURED_PATIENT_BY_ID.start();
         InsuredPatient ip = null;
-        String sql = "SELECT * FROM insured_patients WHERE patient_id = ?";
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(SELECT_BY_ID_SQL)) {
 
             stmt.setInt(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    ip = new InsuredPatient(
-                        rs.getInt("patient_id"),
-                        rs.getString("first_name"),
-                        rs.getString("surname"),
-                        rs.getString("postcode"),
-                        rs.getString("address"),
-                        rs.getString("phone"),
-                        rs.getString("email"),
-                        rs.getString("insurance_type"),
-                        rs.getString("insurance_company"),
-                        rs.getInt("duration_of_insurance")
-                    );
+                    ip = mapRow(rs);
                 }
             }
         } catch (SQLException e) {
+            GET_INSURED_PATIENT_BY_ID.error();
             e.printStackTrace();
+        } finally {
+            GET_INSURED_PATIENT_BY_ID.stop(start);
         }
+        GET_INSURED_PATIENT_BY_ID.rows(ip == null ? 0 : 1);
         return ip;
     }
 
-    // UPDATE
+    // UPDATE (patients + insured_patients in one transaction)
     public void updateInsuredPatient(InsuredPatient ip) {
-        String sql = "UPDATE insured_patients SET first_name=?, surname=?, postcode=?, address=?, phone=?, email=?, "
-                   + "insurance_type=?, insurance_company=?, duration_of_insurance=? WHERE patient_id=?";
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setString(1, ip.getFirstName());
-            stmt.setString(2, ip.getSurname());
-            stmt.setString(3, ip.getPostcode());
-            stmt.setString(4, ip.getAddress());
-            stmt.setString(5, ip.getPhone());
-            stmt.setString(6, ip.getEmail());
-            stmt.setString(7, ip.getInsuranceType());
-            stmt.setString(8, ip.getInsuranceCompanyName());
-            stmt.setInt(9, ip.getDurationOfInsurance());
-            stmt.setInt(10, ip.getPatientId());
-            stmt.executeUpdate();
-
-        } catch (SQLException e) {
-            e.printStackTrace();
+        BatchResult result = BulkWrite.run(UPDATE_INSURED_PATIENT, List.of(ip),
+                UPDATE_PATIENT_SQL, InsuredPatientDAO::bindPatientUpdate,
+                UPDATE_INSURED_SQL, InsuredPatientDAO::bindInsuredUpdate);
+        if (result.isCommitted()) {
+            NameLookup.insuredPatientsSaved(List.of(ip));
         }
     }
 
     // DELETE
     public void deleteInsuredPatient(int id) {
-        String sql = "DELETE FROM insured_patients WHERE patient_id = ?";
+        long start = DELETE_INSURED_PATIENT.start();
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(DELETE_SQL)) {
 
             stmt.setInt(1, id);
-            stmt.executeUpdate();
+            int rows = stmt.executeUpdate();
+            DELETE_INSURED_PATIENT.rows(rows);
+            if (rows > 0) {
+                NameLookup.deleted(NameLookup.Kind.INSURED_PATIENT, id);
+            }
         } catch (SQLException e) {
+            DELETE_INSURED_PATIENT.error();
             e.printStackTrace();
+        } finally {
+            DELETE_INSURED_PATIENT.stop(start);
         }
     }
 
+    // BULK
+    /**
+     * Same as the single-row writes, but batched and in one transaction for the whole collection
+     * (all 'patients' rows first, then all 'insured_patients' rows).
+     */
+    public BatchResult insertInsuredPatients(Collection<? extends InsuredPatient> insuredPatients) {
+        BatchResult result = BulkWrite.run(INSERT_INSURED_PATIENTS, insuredPatients,
+                UPSERT_PATIENT_SQL, InsuredPatientDAO::bindPatientUpsert,
+                INSERT_INSURED_SQL, InsuredPatientDAO::bindInsuredInsert);
+        if (result.isCommitted()) {
+            NameLookup.insuredPatientsSaved(insuredPatients);
+        }
+        return result;
+    }
+
+    public BatchResult updateInsuredPatients(Collection<? extends InsuredPatient> insuredPatients) {
+        BatchResult result = BulkWrite.run(UPDATE_INSURED_PATIENTS, insuredPatients,
+                UPDATE_PATIENT_SQL, InsuredPatientDAO::bindPatientUpdate,
+                UPDATE_INSURED_SQL, InsuredPatientDAO::bindInsuredUpdate);
+        if (result.isCommitted()) {
+            NameLookup.insuredPatientsSaved(insuredPatients);
+        }
+        return result;
+    }
+
+    public BatchResult deleteInsuredPatients(int... ids) {
+        BatchResult result = BulkWrite.deleteIds(DELETE_INSURED_PATIENTS, DELETE_SQL, ids);
+        if (result.isCommitted()) {
+            NameLookup.deleted(NameLookup.Kind.INSURED_PATIENT, ids);
+        }
+        return result;
+    }
+
     // LIST ALL
     public List<InsuredPatient> getAllInsuredPatients() {
+        long start = GET_ALL_INSURED_PATIENTS.start();
         List<InsuredPatient> insuredPatients = new ArrayList<>();
-        String sql = "SELECT * FROM insured_patients";
         try (Connection conn = DBConnection.getConnection();
              Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+             ResultSet rs = stmt.executeQuery(SELECT_ALL_SQL)) {
 
             while (rs.next()) {
-                InsuredPatient ip = new InsuredPatient(
-                    rs.getInt("patient_id"),
-                    rs.getString("first_name"),
-                    rs.getString("surname"),
-                    rs.getString("postcode"),
-                    rs.getString("address"),
-                    rs.getString("phone"),
-                    rs.getString("email"),
-                    rs.getString("insurance_type"),
-                    rs.getString("insurance_company"),
-                    rs.getInt("duration_of_insurance")
-                );
-                insuredPatients.add(ip);
+                insuredPatients.add(mapRow(rs));
             }
         } catch (SQLException e) {
+            GET_ALL_INSURED_PATIENTS.error();
             e.printStackTrace();
+        } finally {
+            GET_ALL_INSURED_PATIENTS.stop(start);
         }
+        GET_ALL_INSURED_PATIENTS.rows(insuredPatients.size());
         return insuredPatients;
     }
+
+    // STREAM ALL
+    /**
+     * Streams all insured patients through a server-side cursor instead of building a list.
+     * The stream holds a pooled connection, so close it (try-with-resources) when done.
+     */
+    public Stream<InsuredPatient> streamInsuredPatients() {
+        try {
+            return streamInsuredPatientsOrThrow();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return Stream.empty();
+        }
+    }
+
+    /**
+     * Same as {@link #streamInsuredPatients()}, but a cursor that can't be opened is an exception
+     * rather than an empty stream, for callers that must not mistake it for an empty table.
+     */
+    Stream<InsuredPatient> streamInsuredPatientsOrThrow() throws SQLException {
+        return ResultStreams.open(STREAM_SQL, this::mapRow, STREAM_INSURED_PATIENTS);
+    }
+
+    // PAGE (keyset): rows with patient_id > afterId, in key order
+    /**
+     * Returns up to pageSize rows whose patient_id is greater than afterId, ordered by patient_id.
+     * Pass Integer.MIN_VALUE for the first page, then the last id of the previous page.
+     */
+    public List<InsuredPatient> getInsuredPatientsPage(int afterId, int pageSize) {
+        long start = GET_INSURED_PATIENTS_PAGE.start();
+        List<InsuredPatient> page = new ArrayList<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_PAGE_SQL)) {
+
+            stmt.setInt(1, afterId);
+            stmt.setInt(2, pageSize);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    page.add(mapRow(rs));
+                }
+            }
+        } catch (SQLException e) {
+            GET_INSURED_PATIENTS_PAGE.error();
+            e.printStackTrace();
+        } finally {
+            GET_INSURED_PATIENTS_PAGE.stop(start);
+        }
+        GET_INSURED_PATIENTS_PAGE.rows(page.size());
+        return page;
+    }
+
+    // LISTING (sortable pages for the results table)
+    public SortedPageQuery listingQuery() {
+        return new SortedPageQuery("insured_patients ip JOIN patients p ON ip.patient_id = p.patient_id", "ip.patient_id",
+                new String[]{"p.patient_id", "p.firstname", "p.surname", "ip.insurance_company_name", "ip.insurance_type", "ip.duration_of_insurance"},
+                new String[]{"ID", "First Name", "Surname", "Insurance Company", "Type", "Duration"});
+    }
+
+    // COUNT
+    public long countInsuredPatients() {
+        long start = COUNT_INSURED_PATIENTS.start();
+        try (Connection conn = DBConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(COUNT_SQL)) {
+
+            if (rs.next()) {
+                return rs.getLong(1);
+            }
+        } catch (SQLException e) {
+            COUNT_INSURED_PATIENTS.error();
+            e.printStackTrace();
+        } finally {
+            COUNT_INSURED_PATIENTS.stop(start);
+        }
+        return 0;
+    }
+
+    /** Maps the current row of a SELECT_JOINED query to an InsuredPatient. */
+    private InsuredPatient mapRow(ResultSet rs) throws SQLException {
+        return new InsuredPatient(
+            rs.getInt("patient_id"),
+            rs.getString("first_name"),
+            rs.getString("surname"),
+            rs.getString("postcode"),
+            rs.getString("address"),
+            rs.getString("phone"),
+            rs.getString("email"),
+            rs.getString("insurance_type"),
+            rs.getString("insurance_company"),
+            rs.getInt("duration_of_insurance")
+        );
+    }
+
+    private static void bindPatientUpsert(PreparedStatement stmt, InsuredPatient ip) throws SQLException {
+        stmt.setInt(1, ip.getPatientId());
+        stmt.setString(2, ip.getFirstName());
+        stmt.setString(3, ip.getSurname());
+        stmt.setString(4, ip.getPostcode());
+        stmt.setString(5, ip.getAddress());
+        stmt.setString(6, ip.getPhone());
+        stmt.setString(7, ip.getEmail());
+
+        // ON DUPLICATE KEY part
+        stmt.setString(8, ip.getFirstName());
+        stmt.setString(9, ip.getSurname());
+        stmt.setString(10, ip.getPostcode());
+        stmt.setString(11, ip.getAddress());
+        stmt.setString(12, ip.getPhone());
+        stmt.setString(13, ip.getEmail());
+    }
+
+    private static void bindInsuredInsert(PreparedStatement stmt, InsuredPatient ip) throws SQLException {
+        stmt.setInt(1, ip.getPatientId());
+        stmt.setString(2, ip.getInsuranceType());
+        stmt.setString(3, ip.getInsuranceCompanyName());
+        stmt.setInt(4, ip.getDurationOfInsurance());
+    }
+
+    private static void bindPatientUpdate(PreparedStatement stmt, InsuredPatient ip) throws SQLException {
+        stmt.setString(1, ip.getFirstName());
+        stmt.setString(2, ip.getSurname());
+        stmt.setString(3, ip.getPostcode());
+        stmt.setString(4, ip.getAddress());
+        stmt.setString(5, ip.getPhone());
+        stmt.setString(6, ip.getEmail());
+        stmt.setInt(7, ip.getPatientId());
+    }
+
+    private static void bindInsuredUpdate(PreparedStatement stmt, InsuredPatient ip) throws SQLException {
+        stmt.setString(1, ip.getInsuranceType());
+        stmt.setString(2, ip.getInsuranceCompanyName());
+        stmt.setInt(3, ip.getDurationOfInsurance());
+        stmt.setInt(4, ip.getPatientId());
+    }
 }
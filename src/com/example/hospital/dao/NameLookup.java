@@ -0,0 +1,242 @@
+package com.example.hospital.dao;
+
+import com.example.hospital.model.Doctor;
+import com.example.hospital.model.Drug;
+import com.example.hospital.model.InsuredPatient;
+import com.example.hospital.model.Patient;
+import com.example.hospital.model.Specialist;
+import com.example.hospital.util.DaoMetrics;
+import com.example.hospital.util.PrefixIndex;
+import com.example.hospital.util.Transactions;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Typeahead lookup of patients and doctors by first name / surname and of drugs by name,
+ * so the GUI can offer "start typing a name" instead of "Enter ID".
+ *
+ *   List<PrefixIndex.Match> matches = NameLookup.find(NameLookup.Kind.PATIENT, "smi jo", 10);
+ *
+ * 1) Each kind has its own {@link PrefixIndex}, built on first use by streaming the table
+ *    (or ahead of time by {@link #warmUp()}); after that, lookups never touch the database.
+ * 2) PatientDAO, DoctorDAO, DrugDAO and the subtype DAOs that write names (SpecialistDAO,
+ *    InsuredPatientDAO) report successful writes here, so the index follows every edit made
+ *    through this app. Inside a {@link Transactions} scope that happens on commit.
+ *    SPECIALIST and INSURED_PATIENT only hold the doctors / patients that have the subtype
+ *    row, so a picker for them can't offer a row its DAO wouldn't find.
+ * 3) Rows added by other processes only show up after {@link #reload}.
+ * 4) If a load fails (the table can't be opened, e.g. the database isn't up yet, or reading
+ *    it breaks off), nothing is installed (an older index stays current) and the next
+ *    lookup tries again. Loads of different kinds don't wait for each other.
+ */
+public class NameLookup {
+
+    public enum Kind { PATIENT, DOCTOR, DRUG, SPECIALIST, INSURED_PATIENT }
+
+    // METRICS (see DaoMetrics)
+    private static final DaoMetrics.Operation FIND = DaoMetrics.operation("NameLookup", "find");
+    private static final DaoMetrics.Operation LOAD = DaoMetrics.operation("NameLookup", "load");
+
+    private static final Object UPDATES = new Object(); // guards INDEXES and PENDING
+    private static final Map<Kind, PrefixIndex> INDEXES = new EnumMap<>(Kind.class);
+    private static final Map<Kind, List<Consumer<PrefixIndex>>> PENDING = new EnumMap<>(Kind.class); // writes during a load
+    private static final Map<Kind, Object> LOADS = new EnumMap<>(Kind.class); // one load at a time per kind
+
+    static {
+        for (Kind kind : Kind.values()) {
+            LOADS.put(kind, new Object());
+        }
+    }
+
+    private NameLookup() {
+    }
+
+    /** The first limit rows of this kind whose name matches the query. */
+    public static List<PrefixIndex.Match> find(Kind kind, String query, int limit) {
+        PrefixIndex index;
+        synchronized (UPDATES) {
+            index = INDEXES.get(kind);
+        }
+        if (index == null) {
+            index = open(kind);
+        }
+        long start = FIND.start();
+        try {
+            List<PrefixIndex.Match> matches = index.find(query, limit);
+            FIND.rows(matches.size());
+            return matches;
+        } finally {
+            FIND.stop(start);
+        }
+    }
+
+    /** Builds all three indexes on a background thread, so the first lookup doesn't wait. */
+    public static void warmUp() {
+        Thread t = new Thread(() -> {
+            for (Kind kind : Kind.values()) {
+                open(kind);
+            }
+        }, "name-lookup-warmup");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private static PrefixIndex open(Kind kind) {
+        synchronized (LOADS.get(kind)) {
+            synchronized (UPDATES) {
+                PrefixIndex index = INDEXES.get(kind);
+                if (index != null) return index;
+            }
+            return reload(kind);
+        }
+    }
+
+    /**
+     * Re-reads one table into a new index and makes it the current one. If the table can't be
+     * read, the current index (or an empty one, if there is none yet) is returned unchanged.
+     */
+    public static PrefixIndex reload(Kind kind) {
+        synchronized (LOADS.get(kind)) {
+            return load(kind);
+        }
+    }
+
+    private static PrefixIndex load(Kind kind) {
+        long start = LOAD.start();
+        synchronized (UPDATES) {
+            PENDING.put(kind, new ArrayList<>());
+        }
+        PrefixIndex.Builder builder = new PrefixIndex.Builder();
+        PrefixIndex index = null;
+        try {
+            switch (kind) {
+                case PATIENT:
+                    try (Stream<Patient> patients = new PatientDAO().streamPatientsOrThrow()) {
+                        patients.forEach(p -> builder.add(p.getPatientId(), label(p)));
+                    }
+                    break;
+                case DOCTOR:
+                    try (Stream<Doctor> doctors = new DoctorDAO().streamDoctorsOrThrow()) {
+                        doctors.forEach(d -> builder.add(d.getDoctorId(), label(d)));
+                    }
+                    break;
+                case DRUG:
+                    try (Stream<Drug> drugs = new DrugDAO().streamDrugsOrThrow()) {
+                        drugs.forEach(d -> builder.add(d.getDrugId(), d.getName()));
+                    }
+                    break;
+                case SPECIALIST:
+                    try (Stream<Specialist> specialists = new SpecialistDAO().streamSpecialistsOrThrow()) {
+                        specialists.forEach(s -> builder.add(s.getDoctorId(), label(s)));
+                    }
+                    break;
+                case INSURED_PATIENT:
+                    try (Stream<InsuredPatient> insured = new InsuredPatientDAO().streamInsuredPatientsOrThrow()) {
+                        insured.forEach(p -> builder.add(p.getPatientId(), label(p)));
+                    }
+                    break;
+            }
+            index = builder.build();
+            LOAD.rows(index.size());
+        } catch (SQLException | IllegalStateException e) {
+            // couldn't open the table, or failed part way: an empty or partial index would
+            // hide rows until the next reload
+            LOAD.error();
+            e.printStackTrace();
+        } finally {
+            LOAD.stop(start);
+        }
+        synchronized (UPDATES) {
+            List<Consumer<PrefixIndex>> pending = PENDING.remove(kind);
+            PrefixIndex target = index != null ? index : INDEXES.get(kind);
+            if (target != null) {
+                for (Consumer<PrefixIndex> update : pending) {
+                    update.accept(target); // writes that raced the table scan
+                }
+            }
+            if (index != null) {
+                INDEXES.put(kind, index);
+            }
+            return target != null ? target : new PrefixIndex(); // nothing loaded: next find retries
+        }
+    }
+
+    static String label(Patient p) {
+        return p.getSurname() + ", " + p.getFirstName();
+    }
+
+    static String label(Doctor d) {
+        return d.getSurname() + ", " + d.getFirstName();
+    }
+
+    // WRITE HOOKS (called by the DAOs after a successful write)
+    static void patientsSaved(Collection<? extends Patient> patients) {
+        List<Patient> copy = new ArrayList<>(patients);
+        update(Kind.PATIENT, ix -> copy.forEach(p -> ix.put(p.getPatientId(), label(p))));
+        // a renamed insured patient; a plain patient doesn't become one by being saved
+        update(Kind.INSURED_PATIENT, ix -> copy.stream().filter(p -> ix.contains(p.getPatientId()))
+                .forEach(p -> ix.put(p.getPatientId(), label(p))));
+    }
+
+    static void insuredPatientsSaved(Collection<? extends InsuredPatient> insured) {
+        List<InsuredPatient> copy = new ArrayList<>(insured);
+        update(Kind.PATIENT, ix -> copy.forEach(p -> ix.put(p.getPatientId(), label(p))));
+        update(Kind.INSURED_PATIENT, ix -> copy.forEach(p -> ix.put(p.getPatientId(), label(p))));
+    }
+
+    static void doctorsSaved(Collection<? extends Doctor> doctors) {
+        List<Doctor> copy = new ArrayList<>(doctors);
+        update(Kind.DOCTOR, ix -> copy.forEach(d -> ix.put(d.getDoctorId(), label(d))));
+        update(Kind.SPECIALIST, ix -> copy.stream().filter(d -> ix.contains(d.getDoctorId()))
+                .forEach(d -> ix.put(d.getDoctorId(), label(d))));
+    }
+
+    static void specialistsSaved(Collection<? extends Specialist> specialists) {
+        List<Specialist> copy = new ArrayList<>(specialists);
+        update(Kind.DOCTOR, ix -> copy.forEach(d -> ix.put(d.getDoctorId(), label(d))));
+        update(Kind.SPECIALIST, ix -> copy.forEach(d -> ix.put(d.getDoctorId(), label(d))));
+    }
+
+    static void drugsSaved(Collection<? extends Drug> drugs) {
+        List<Drug> copy = new ArrayList<>(drugs);
+        update(Kind.DRUG, ix -> copy.forEach(d -> ix.put(d.getDrugId(), d.getName())));
+    }
+
+    static void deleted(Kind kind, int... ids) {
+        int[] copy = ids.clone();
+        Consumer<PrefixIndex> remove = ix -> {
+            for (int id : copy) {
+                ix.remove(id);
+            }
+        };
+        update(kind, remove);
+        // the subtype rows go with their doctor / patient (ON DELETE CASCADE)
+        if (kind == Kind.DOCTOR) {
+            update(Kind.SPECIALIST, remove);
+        } else if (kind == Kind.PATIENT) {
+            update(Kind.INSURED_PATIENT, remove);
+        }
+    }
+
+    private static void update(Kind kind, Consumer<PrefixIndex> change) {
+        Transactions.afterCommit(() -> {
+            synchronized (UPDATES) {
+                List<Consumer<PrefixIndex>> pending = PENDING.get(kind);
+                PrefixIndex index = INDEXES.get(kind);
+                if (pending != null) {
+                    pending.add(change);
+                } else if (index != null) {
+                    change.accept(index);
+                }
+                // not loaded yet: the load will read the row
+            }
+        });
+    }
+}
@@ -2,40 +2,71 @@ package com.example.hospital.dao;
 
 import com.example.hospital.model.Patient;
 import com.example.hospital.util.DBConnection;
+import com.example.hospital.util.DaoMetrics;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 public class PatientDAO {
 
+    // SQL
+    private static final String INSERT_SQL = "INSERT INTO patients (patient_id, firstname, surname, postcode, address, phone, email) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_BY_ID_SQL = "SELECT * FROM patients WHERE patient_id = ?";
+    private static final String SELECT_BY_IDS_SQL = "SELECT * FROM patients WHERE patient_id IN (?)"; // see IdBatchQuery
+    private static final String UPDATE_SQL = "UPDATE patients SET firstname=?, surname=?, postcode=?, address=?, phone=?, email=? "
+            + "WHERE patient_id=?";
+    private static final String DELETE_SQL = "DELETE FROM patients WHERE patient_id = ?";
+    private static final String SELECT_ALL_SQL = "SELECT * FROM patients";
+    private static final String SELECT_PAGE_SQL = "SELECT * FROM patients WHERE patient_id > ? ORDER BY patient_id LIMIT ?";
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM patients";
+
+    // METRICS (see DaoMetrics)
+    private static final DaoMetrics.Operation INSERT_PATIENT = DaoMetrics.operation("PatientDAO", "insertPatient");
+    private static final DaoMetrics.Operation GET_PATIENT_BY_ID = DaoMetrics.operation("PatientDAO", "getPatientById");
+    private static final DaoMetrics.Operation UPDATE_PATIENT = DaoMetrics.operation("PatientDAO", "updatePatient");
+    private static final DaoMetrics.Operation DELETE_PATIENT = DaoMetrics.operation("PatientDAO", "deletePatient");
+    private static final DaoMetrics.Operation GET_PATIENTS_BY_IDS = DaoMetrics.operation("PatientDAO", "getPatientsByIds");
+    private static final DaoMetrics.Operation INSERT_PATIENTS = DaoMetrics.operation("PatientDAO", "insertPatients");
+    private static final DaoMetrics.Operation UPDATE_PATIENTS = DaoMetrics.operation("PatientDAO", "updatePatients");
+    private static final DaoMetrics.Operation DELETE_PATIENTS = DaoMetrics.operation("PatientDAO", "deletePatients");
+    private static final DaoMetrics.Operation GET_ALL_PATIENTS = DaoMetrics.operation("PatientDAO", "getAllPatients");
+    private static final DaoMetrics.Operation STREAM_PATIENTS = DaoMetrics.operation("PatientDAO", "streamPatients");
+    private static final DaoMetrics.Operation GET_PATIENTS_PAGE = DaoMetrics.operation("PatientDAO", "getPatientsPage");
+    private static final DaoMetrics.Operation COUNT_PATIENTS = DaoMetrics.operation("PatientDAO", "countPatients");
+
     // CREATE
     public void insertPatient(Patient patient) {
-        String sql = "INSERT INTO patients (patient_id, first_name, surname, postcode, address, phone, email) "
-                   + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+        long start = INSERT_PATIENT.start();
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
 
-            stmt.setInt(1, patient.getPatientId());
-            stmt.setString(2, patient.getFirstName());
-            stmt.setString(3, patient.getSurname());
-            stmt.setString(4, patient.getPostcode());
-            stmt.setString(5, patient.getAddress());
-            stmt.setString(6, patient.getPhone());
-            stmt.setString(7, patient.getEmail());
-            stmt.executeUpdate();
+            bindInsert(stmt, patient);
+            int rows = stmt.executeUpdate();
+            INSERT_PATIENT.rows(rows);
+            if (rows > 0) {
+                NameLookup.patientsSaved(List.of(patient));
+            }
 
         } catch (SQLException e) {
+            INSERT_PATIENT.error();
             e.printStackTrace();
+        } finally {
+            INSERT_PATIENT.stop(start);
         }
     }
 
     // READ
     public Patient getPatientById(int id) {
+        long start = GET_PATIENT_BY_ID.start();
         Patient patient = null;
-        String sql = "SELECT * FROM patients WHERE patient_id = ?";
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(SELECT_BY_ID_SQL)) {
 
             stmt.setInt(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
@@ -52,69 +83,234 @@ public class PatientDAO {
                 }
             }
         } catch (SQLException e) {
+            GET_PATIENT_BY_ID.error();
             e.printStackTrace();
+        } finally {
+            GET_PATIENT_BY_ID.stop(start);
         }
+        GET_PATIENT_BY_ID.rows(patient == null ? 0 : 1);
         return patient;
     }
 
     // UPDATE
     public void updatePatient(Patient patient) {
-        String sql = "UPDATE patients SET first_name=?, surname=?, postcode=?, address=?, phone=?, email=? "
-                   + "WHERE patient_id=?";
+        long start = UPDATE_PATIENT.start();
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
 
-            stmt.setString(1, patient.getFirstName());
-            stmt.setString(2, patient.getSurname());
-            stmt.setString(3, patient.getPostcode());
-            stmt.setString(4, patient.getAddress());
-            stmt.setString(5, patient.getPhone());
-            stmt.setString(6, patient.getEmail());
-            stmt.setInt(7, patient.getPatientId());
-            stmt.executeUpdate();
+            bindUpdate(stmt, patient);
+            int rows = stmt.executeUpdate();
+            UPDATE_PATIENT.rows(rows);
+            if (rows > 0) {
+                NameLookup.patientsSaved(List.of(patient));
+            }
 
         } catch (SQLException e) {
+            UPDATE_PATIENT.error();
             e.printStackTrace();
+        } finally {
+            UPDATE_PATIENT.stop(start);
         }
     }
 
     // DELETE
     public void deletePatient(int id) {
-        String sql = "DELETE FROM patients WHERE patient_id = ?";
+        long start = DELETE_PATIENT.start();
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(DELETE_SQL)) {
 
             stmt.setInt(1, id);
-            stmt.executeUpdate();
+            int rows = stmt.executeUpdate();
+            DELETE_PATIENT.rows(rows);
+            if (rows > 0) {
+                NameLookup.deleted(NameLookup.Kind.PATIENT, id);
+            }
+
+        } catch (SQLException e) {
+            DELETE_PATIENT.error();
+            e.printStackTrace();
+        } finally {
+            DELETE_PATIENT.stop(start);
+        }
+    }
 
+    // READ (many)
+    /**
+     * Batch version of getPatientById: one IN (...) query per thousand ids instead of
+     * one query each. Unknown ids are left out of the map.
+     */
+    public Map<Integer, Patient> getPatientsByIds(Collection<Integer> ids) {
+        long start = GET_PATIENTS_BY_IDS.start();
+        Map<Integer, Patient> found = new HashMap<>();
+        try {
+            IdBatchQuery.run(SELECT_BY_IDS_SQL, ids, this::mapRow,
+                    x -> found.put(x.getPatientId(), x));
         } catch (SQLException e) {
+            GET_PATIENTS_BY_IDS.error();
             e.printStackTrace();
+        } finally {
+            GET_PATIENTS_BY_IDS.stop(start);
         }
+        GET_PATIENTS_BY_IDS.rows(found.size());
+        return found;
+    }
+
+    // BULK
+    /**
+     * Insert/update/delete a whole collection of patients with JDBC batching, inside one
+     * transaction. Check {@link BatchResult#isCommitted()} and the per-row outcomes.
+     */
+    public BatchResult insertPatients(Collection<? extends Patient> patients) {
+        BatchResult result = BulkWrite.run(INSERT_PATIENTS, patients, INSERT_SQL, PatientDAO::bindInsert);
+        if (result.isCommitted()) {
+            NameLookup.patientsSaved(patients);
+        }
+        return result;
+    }
+
+    public BatchResult updatePatients(Collection<? extends Patient> patients) {
+        BatchResult result = BulkWrite.run(UPDATE_PATIENTS, patients, UPDATE_SQL, PatientDAO::bindUpdate);
+        if (result.isCommitted()) {
+            NameLookup.patientsSaved(patients);
+        }
+        return result;
+    }
+
+    public BatchResult deletePatients(int... ids) {
+        BatchResult result = BulkWrite.deleteIds(DELETE_PATIENTS, DELETE_SQL, ids);
+        if (result.isCommitted()) {
+            NameLookup.deleted(NameLookup.Kind.PATIENT, ids);
+        }
+        return result;
     }
 
     // LIST ALL
     public List<Patient> getAllPatients() {
+        long start = GET_ALL_PATIENTS.start();
         List<Patient> patients = new ArrayList<>();
-        String sql = "SELECT * FROM patients";
         try (Connection conn = DBConnection.getConnection();
              Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+             ResultSet rs = stmt.executeQuery(SELECT_ALL_SQL)) {
 
             while (rs.next()) {
-                Patient patient = new Patient(
-                    rs.getInt("patient_id"),
-                    rs.getString("firstname"),
-                    rs.getString("surname"),
-                    rs.getString("postcode"),
-                    rs.getString("address"),
-                    rs.getString("phone"),
-                    rs.getString("email")
-                );
-                patients.add(patient);
+                patients.add(mapRow(rs));
             }
         } catch (SQLException e) {
+            GET_ALL_PATIENTS.error();
             e.printStackTrace();
+        } finally {
+            GET_ALL_PATIENTS.stop(start);
         }
+        GET_ALL_PATIENTS.rows(patients.size());
         return patients;
     }
+
+    // STREAM ALL
+    /**
+     * Streams all patients through a server-side cursor instead of building a list.
+     * The stream holds a pooled connection, so close it (try-with-resources) when done.
+     */
+    public Stream<Patient> streamPatients() {
+        try {
+            return streamPatientsOrThrow();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return Stream.empty();
+        }
+    }
+
+    /**
+     * Same as {@link #streamPatients()}, but a cursor that can't be opened is an exception
+     * rather than an empty stream, for callers that must not mistake it for an empty table.
+     */
+    Stream<Patient> streamPatientsOrThrow() throws SQLException {
+        return ResultStreams.open(SELECT_ALL_SQL, this::mapRow, STREAM_PATIENTS);
+    }
+
+    // PAGE (keyset): rows with patient_id > afterId, in key order
+    /**
+     * Returns up to pageSize rows whose patient_id is greater than afterId, ordered by patient_id.
+     * Pass Integer.MIN_VALUE for the first page, then the last id of the previous page.
+     */
+    public List<Patient> getPatientsPage(int afterId, int pageSize) {
+        long start = GET_PATIENTS_PAGE.start();
+        List<Patient> page = new ArrayList<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_PAGE_SQL)) {
+
+            stmt.setInt(1, afterId);
+            stmt.setInt(2, pageSize);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    page.add(mapRow(rs));
+                }
+            }
+        } catch (SQLException e) {
+            GET_PATIENTS_PAGE.error();
+            e.printStackTrace();
+        } finally {
+            GET_PATIENTS_PAGE.stop(start);
+        }
+        GET_PATIENTS_PAGE.rows(page.size());
+        return page;
+    }
+
+    // LISTING (sortable pages for the results table)
+    public SortedPageQuery listingQuery() {
+        return new SortedPageQuery("patients", "patient_id",
+                new String[]{"patient_id", "firstname", "surname", "postcode", "address", "phone", "email"},
+                new String[]{"ID", "First Name", "Surname", "Postcode", "Address", "Phone", "Email"});
+    }
+
+    // COUNT
+    public long countPatients() {
+        long start = COUNT_PATIENTS.start();
+        try (Connection conn = DBConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(COUNT_SQL)) {
+
+            if (rs.next()) {
+                return rs.getLong(1);
+            }
+        } catch (SQLException e) {
+            COUNT_PATIENTS.error();
+            e.printStackTrace();
+        } finally {
+            COUNT_PATIENTS.stop(start);
+        }
+        return 0;
+    }
+
+    /** Maps the current row of a list query to a Patient. */
+    private Patient mapRow(ResultSet rs) throws SQLException {
+        return new Patient(
+            rs.getInt("patient_id"),
+            rs.getString("firstname"),
+            rs.getString("surname"),
+            rs.getString("postcode"),
+            rs.getString("address"),
+            rs.getString("phone"),
+            rs.getString("email")
+        );
+    }
+
+    private static void bindInsert(PreparedStatement stmt, Patient patient) throws SQLException {
+        stmt.setInt(1, patient.getPatientId());
+        stmt.setString(2, patient.getFirstName());
+        stmt.setString(3, patient.getSurname());
+        stmt.setString(4, patient.getPostcode());
+        stmt.setString(5, patient.getAddress());
+        stmt.setString(6, patient.getPhone());
+        stmt.setString(7, patient.getEmail());
+    }
+
+    private static void bindUpdate(PreparedStatement stmt, Patient patient) throws SQLException {
+        stmt.setString(1, patient.getFirstName());
+        stmt.setString(2, patient.getSurname());
+        stmt.setString(3, patient.getPostcode());
+        stmt.setString(4, patient.getAddress());
+        stmt.setString(5, patient.getPhone());
+        stmt.setString(6, patient.getEmail());
+        stmt.setInt(7, patient.getPatientId());
+    }
 }
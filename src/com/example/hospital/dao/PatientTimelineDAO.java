@@ -0,0 +1,302 @@
+package com.example.hospital.dao;
+
+import com.example.hospital.model.Prescription;
+import com.example.hospital.model.TimelineEntry;
+import com.example.hospital.model.Visit;
+import com.example.hospital.util.DBConnection;
+import com.example.hospital.util.DaoMetrics;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A patient's visits and prescriptions as one date-ordered timeline.
+ *
+ * 1) Each table is read in the order of its (patientID, date) index from SchemaBootstrap;
+ *    InnoDB appends the primary key to those, so ORDER BY date, id needs no filesort.
+ * 2) Each side is read in keyset pages of up to hospital.timeline.pageSize rows
+ *    (WHERE date > ? OR (date = ? AND id > ?)), borrowing a connection per page, so an
+ *    open timeline doesn't pin a pooled connection while the user scrolls.
+ * 3) The two cursors are merged as the stream is consumed: nothing is sorted in memory,
+ *    and once the limit is reached neither table is read any further.
+ *
+ * On the same day a visit comes before the prescriptions (the other way round when newest first).
+ *
+ * {@link #getRecentVisits} and {@link #getActivePrescriptions} are the two common slices of
+ * it, each reading one table only.
+ */
+public class PatientTimelineDAO {
+
+    private static final int PAGE_SIZE = Math.max(1, Integer.getInteger("hospital.timeline.pageSize", 200));
+
+    // MariaDB's DATE range, used for an open end of the window
+    private static final LocalDate FIRST_DAY = LocalDate.of(1000, 1, 1);
+    private static final LocalDate LAST_DAY = LocalDate.of(9999, 12, 31);
+
+    // SQL: patient, window from/to, seek date, seek date, seek id, page size
+    private static final String VISITS_ASC_SQL = seekSql("visits", "dateofvisit", "visit_id", false);
+    private static final String VISITS_DESC_SQL = seekSql("visits", "dateofvisit", "visit_id", true);
+    private static final String PRESCRIPTIONS_ASC_SQL = seekSql("prescriptions", "dateprescribed", "prescriptionID", false);
+    private static final String PRESCRIPTIONS_DESC_SQL = seekSql("prescriptions", "dateprescribed", "prescriptionID", true);
+    // patient, as-of date, as-of date; duration is a number of days stored as text
+    private static final String ACTIVE_PRESCRIPTIONS_SQL = "SELECT * FROM prescriptions"
+            + " WHERE patientID = ? AND dateprescribed <= ?"
+            + " AND dateprescribed + INTERVAL CAST(duration AS UNSIGNED) DAY >= ?"
+            + " ORDER BY dateprescribed DESC, prescriptionID DESC";
+
+    // METRICS (see DaoMetrics)
+    private static final DaoMetrics.Operation GET_TIMELINE = DaoMetrics.operation("PatientTimelineDAO", "getTimeline");
+    private static final DaoMetrics.Operation READ_PAGE = DaoMetrics.operation("PatientTimelineDAO", "readPage");
+    private static final DaoMetrics.Operation GET_RECENT_VISITS = DaoMetrics.operation("PatientTimelineDAO", "getRecentVisits");
+    private static final DaoMetrics.Operation GET_ACTIVE_PRESCRIPTIONS = DaoMetrics.operation("PatientTimelineDAO", "getActivePrescriptions");
+
+    private final VisitDAO visitDAO = new VisitDAO();
+    private final PrescriptionDAO prescriptionDAO = new PrescriptionDAO();
+
+    private static String seekSql(String table, String dateColumn, String idColumn, boolean descending) {
+        String op = descending ? " < " : " > ";
+        String dir = descending ? " DESC" : "";
+        return "SELECT * FROM " + table
+                + " WHERE patientID = ? AND " + dateColumn + " BETWEEN ? AND ?"
+                + " AND (" + dateColumn + op + "? OR (" + dateColumn + " = ? AND " + idColumn + op + "?))"
+                + " ORDER BY " + dateColumn + dir + ", " + idColumn + dir + " LIMIT ?";
+    }
+
+    // READ
+    /**
+     * Streams the patient's visits and prescriptions dated from..to (inclusive, either may be
+     * null for an open end), oldest first or newest first, stopping after limit entries
+     * (0 or less for no limit). Rows with no date are left out.
+     *
+     * The stream borrows connections only while it fetches a page, so it doesn't have to be
+     * closed; a failed page read surfaces as an IllegalStateException from the stream.
+     */
+    public Stream<TimelineEntry> streamTimeline(int patientId, LocalDate from, LocalDate to,
+                                                boolean newestFirst, int limit) {
+        Window window = new Window(patientId, from == null ? FIRST_DAY : from, to == null ? LAST_DAY : to,
+                newestFirst, limit);
+
+        Side<Visit> visits = new Side<>(window, newestFirst ? VISITS_DESC_SQL : VISITS_ASC_SQL,
+                visitDAO::mapRow, Visit::getDateOfVisit, Visit::getVisitId);
+        Side<Prescription> prescriptions = new Side<>(window, newestFirst ? PRESCRIPTIONS_DESC_SQL : PRESCRIPTIONS_ASC_SQL,
+                prescriptionDAO::mapRow, Prescription::getDateOfPrescribe, Prescription::getPrescriptionId);
+
+        return StreamSupport.stream(new Merge(window, visits, prescriptions), false);
+    }
+
+    /** The same timeline as a list, for callers that want it all at once. */
+    public List<TimelineEntry> getTimeline(int patientId, LocalDate from, LocalDate to,
+                                           boolean newestFirst, int limit) {
+        long start = GET_TIMELINE.start();
+        try {
+            List<TimelineEntry> entries = streamTimeline(patientId, from, to, newestFirst, limit)
+                    .collect(Collectors.toList());
+            GET_TIMELINE.rows(entries.size());
+            return entries;
+        } catch (IllegalStateException e) {
+            GET_TIMELINE.error();
+            e.printStackTrace();
+            return List.of();
+        } finally {
+            GET_TIMELINE.stop(start);
+        }
+    }
+
+    /** The patient's last limit visits, newest first, read like the visits side of the timeline. */
+    public List<Visit> getRecentVisits(int patientId, int limit) {
+        long start = GET_RECENT_VISITS.start();
+        List<Visit> recent = new ArrayList<>();
+        try {
+            Window window = new Window(patientId, FIRST_DAY, LAST_DAY, true, limit);
+            Side<Visit> visits = new Side<>(window, VISITS_DESC_SQL,
+                    visitDAO::mapRow, Visit::getDateOfVisit, Visit::getVisitId);
+            while ((limit <= 0 || recent.size() < limit) && visits.peek() != null) {
+                recent.add(visits.take());
+            }
+        } catch (IllegalStateException e) {
+            GET_RECENT_VISITS.error();
+            e.printStackTrace();
+        } finally {
+            GET_RECENT_VISITS.stop(start);
+        }
+        GET_RECENT_VISITS.rows(recent.size());
+        return recent;
+    }
+
+    /**
+     * The patient's prescriptions still running on asOf: prescribed on or before it, and
+     * prescribed date + duration (in days) not before it. Newest first.
+     */
+    public List<Prescription> getActivePrescriptions(int patientId, LocalDate asOf) {
+        long start = GET_ACTIVE_PRESCRIPTIONS.start();
+        List<Prescription> active = new ArrayList<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(ACTIVE_PRESCRIPTIONS_SQL)) {
+
+            stmt.setInt(1, patientId);
+            stmt.setDate(2, Date.valueOf(asOf));
+            stmt.setDate(3, Date.valueOf(asOf));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    active.add(prescriptionDAO.mapRow(rs));
+                }
+            }
+        } catch (SQLException e) {
+            GET_ACTIVE_PRESCRIPTIONS.error();
+            e.printStackTrace();
+        } finally {
+            GET_ACTIVE_PRESCRIPTIONS.stop(start);
+        }
+        GET_ACTIVE_PRESCRIPTIONS.rows(active.size());
+        return active;
+    }
+
+    /** The query parameters shared by both sides. */
+    private static final class Window {
+        final int patientId;
+        final LocalDate from;
+        final LocalDate to;
+        final boolean newestFirst;
+        final int limit;
+        final int pageSize;
+
+        Window(int patientId, LocalDate from, LocalDate to, boolean newestFirst, int limit) {
+            this.patientId = patientId;
+            this.from = from;
+            this.to = to;
+            this.newestFirst = newestFirst;
+            this.limit = limit;
+            // no side ever needs more than the whole limit
+            this.pageSize = limit > 0 ? Math.min(limit, PAGE_SIZE) : PAGE_SIZE;
+        }
+    }
+
+    /** One table's cursor: a page of rows in index order, refilled from where it left off. */
+    private static final class Side<T> {
+        private final Window window;
+        private final String sql;
+        private final ResultStreams.RowMapper<T> mapper;
+        private final Function<T, LocalDate> dateOf;
+        private final ToIntFunction<T> idOf;
+        private final ArrayDeque<T> page = new ArrayDeque<>();
+        private boolean lastPage = false;
+        private LocalDate seekDate;
+        private int seekId;
+
+        Side(Window window, String sql, ResultStreams.RowMapper<T> mapper,
+             Function<T, LocalDate> dateOf, ToIntFunction<T> idOf) {
+            this.window = window;
+            this.sql = sql;
+            this.mapper = mapper;
+            this.dateOf = dateOf;
+            this.idOf = idOf;
+            // start just outside the window, so the first page begins at its edge
+            this.seekDate = window.newestFirst ? window.to : window.from;
+            this.seekId = window.newestFirst ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+        }
+
+        /** The next row without consuming it, or null when this side is done. */
+        T peek() {
+            if (page.isEmpty() && !lastPage) {
+                fetch();
+            }
+            return page.peekFirst();
+        }
+
+        T take() {
+            return page.pollFirst();
+        }
+
+        LocalDate dateOf(T row) {
+            return dateOf.apply(row);
+        }
+
+        private void fetch() {
+            long start = READ_PAGE.start();
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+                stmt.setInt(1, window.patientId);
+                stmt.setDate(2, Date.valueOf(window.from));
+                stmt.setDate(3, Date.valueOf(window.to));
+                stmt.setDate(4, Date.valueOf(seekDate));
+                stmt.setDate(5, Date.valueOf(seekDate));
+                stmt.setInt(6, seekId);
+                stmt.setInt(7, window.pageSize);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        page.add(mapper.map(rs));
+                    }
+                }
+                READ_PAGE.rows(page.size());
+
+            } catch (SQLException e) {
+                READ_PAGE.error();
+                throw new IllegalStateException("Failed to read the patient timeline", e);
+            } finally {
+                READ_PAGE.stop(start);
+            }
+
+            lastPage = page.size() < window.pageSize;
+            T last = page.peekLast();
+            if (last != null) {
+                seekDate = dateOf.apply(last);
+                seekId = idOf.applyAsInt(last);
+            }
+        }
+    }
+
+    /** Takes whichever side's next row comes first, until both are done or the limit is hit. */
+    private static final class Merge extends Spliterators.AbstractSpliterator<TimelineEntry> {
+        private final Window window;
+        private final Side<Visit> visits;
+        private final Side<Prescription> prescriptions;
+        private int emitted = 0;
+
+        Merge(Window window, Side<Visit> visits, Side<Prescription> prescriptions) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.window = window;
+            this.visits = visits;
+            this.prescriptions = prescriptions;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super TimelineEntry> action) {
+            if (window.limit > 0 && emitted >= window.limit) {
+                return false;
+            }
+            Visit visit = visits.peek();
+            Prescription prescription = prescriptions.peek();
+            if (visit == null && prescription == null) {
+                return false;
+            }
+
+            boolean visitFirst;
+            if (prescription == null) {
+                visitFirst = true;
+            } else if (visit == null) {
+                visitFirst = false;
+            } else {
+                int cmp = visits.dateOf(visit).compareTo(prescriptions.dateOf(prescription));
+                visitFirst = window.newestFirst ? cmp > 0 : cmp <= 0;
+            }
+
+            emitted++;
+            action.accept(visitFirst
+                    ? new TimelineEntry(visits.take())
+                    : new TimelineEntry(prescriptions.take()));
+            return true;
+        }
+    }
+}
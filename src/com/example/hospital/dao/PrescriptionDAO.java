@@ -2,42 +2,69 @@ package com.example.hospital.dao;
 
 import com.example.hospital.model.Prescription;
 import com.example.hospital.util.DBConnection;
+import com.example.hospital.util.DaoMetrics;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public class PrescriptionDAO {
 
+    // SQL
+    private static final String INSERT_SQL = "INSERT INTO prescriptions (prescriptionID, dateprescribed, dosage, duration, comment, doctorID, patientID, drugID) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_BY_ID_SQL = "SELECT * FROM prescriptions WHERE prescriptionID = ?";
+    private static final String UPDATE_SQL = "UPDATE prescriptions "
+            + "SET dateprescribed=?, dosage=?, duration=?, comment=?, doctorID=?, patientID=?, drugID=? "
+            + "WHERE prescriptionID=?";
+    private static final String DELETE_SQL = "DELETE FROM prescriptions WHERE prescriptionID = ?";
+    private static final String SELECT_ALL_SQL = "SELECT * FROM prescriptions";
+    private static final String SELECT_PAGE_SQL = "SELECT * FROM prescriptions WHERE prescriptionID > ? ORDER BY prescriptionID LIMIT ?";
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM prescriptions";
+
+    // METRICS (see DaoMetrics)
+    private static final DaoMetrics.Operation INSERT_PRESCRIPTION = DaoMetrics.operation("PrescriptionDAO", "insertPrescription");
+    private static final DaoMetrics.Operation GET_PRESCRIPTION_BY_ID = DaoMetrics.operation("PrescriptionDAO", "getPrescriptionById");
+    private static final DaoMetrics.Operation UPDATE_PRESCRIPTION = DaoMetrics.operation("PrescriptionDAO", "updatePrescription");
+    private static final DaoMetrics.Operation DELETE_PRESCRIPTION = DaoMetrics.operation("PrescriptionDAO", "deletePrescription");
+    private static final DaoMetrics.Operation INSERT_PRESCRIPTIONS = DaoMetrics.operation("PrescriptionDAO", "insertPrescriptions");
+    private static final DaoMetrics.Operation UPDATE_PRESCRIPTIONS = DaoMetrics.operation("PrescriptionDAO", "updatePrescriptions");
+    private static final DaoMetrics.Operation DELETE_PRESCRIPTIONS = DaoMetrics.operation("PrescriptionDAO", "deletePrescriptions");
+    private static final DaoMetrics.Operation GET_ALL_PRESCRIPTIONS = DaoMetrics.operation("PrescriptionDAO", "getAllPrescriptions");
+    private static final DaoMetrics.Operation STREAM_PRESCRIPTIONS = DaoMetrics.operation("PrescriptionDAO", "streamPrescriptions");
+    private static final DaoMetrics.Operation GET_PRESCRIPTIONS_PAGE = DaoMetrics.operation("PrescriptionDAO", "getPrescriptionsPage");
+    private static final DaoMetrics.Operation COUNT_PRESCRIPTIONS = DaoMetrics.operation("PrescriptionDAO", "countPrescriptions");
+
     // CREATE
     public void insertPrescription(Prescription prescription) {
+        long start = INSERT_PRESCRIPTION.start();
         // columns: (prescriptionID, dateprescribed, dosage, duration, comment, doctorID, patientID, drugID)
-        String sql = "INSERT INTO prescriptions (prescriptionID, dateprescribed, dosage, duration, comment, doctorID, patientID, drugID) "
-                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, prescription.getPrescriptionId());
-            stmt.setDate(2, Date.valueOf(prescription.getDateOfPrescribe()));
-            stmt.setString(3, prescription.getDosage());
-            stmt.setString(4, prescription.getDuration());
-            stmt.setString(5, prescription.getComment());
-            stmt.setInt(6, prescription.getDoctorId());
-            stmt.setInt(7, prescription.getPatientId());
-            stmt.setInt(8, prescription.getDrugId());
-            stmt.executeUpdate();
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+
+            bindInsert(stmt, prescription);
+            int rows = stmt.executeUpdate();
+            INSERT_PRESCRIPTION.rows(rows);
+            if (rows > 0) {
+                TextSearch.prescriptionsSaved(List.of(prescription));
+            }
 
         } catch (SQLException e) {
+            INSERT_PRESCRIPTION.error();
             e.printStackTrace();
+        } finally {
+            INSERT_PRESCRIPTION.stop(start);
         }
     }
 
     // READ single
     public Prescription getPrescriptionById(int id) {
+        long start = GET_PRESCRIPTION_BY_ID.start();
         Prescription prescription = null;
-        String sql = "SELECT * FROM prescriptions WHERE prescriptionID = ?";
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(SELECT_BY_ID_SQL)) {
 
             stmt.setInt(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
@@ -55,71 +82,215 @@ public class PrescriptionDAO {
                 }
             }
         } catch (SQLException e) {
+            GET_PRESCRIPTION_BY_ID.error();
             e.printStackTrace();
+        } finally {
+            GET_PRESCRIPTION_BY_ID.stop(start);
         }
+        GET_PRESCRIPTION_BY_ID.rows(prescription == null ? 0 : 1);
         return prescription;
     }
 
     // UPDATE
     public void updatePrescription(Prescription prescription) {
-        String sql = "UPDATE prescriptions "
-                + "SET dateprescribed=?, dosage=?, duration=?, comment=?, doctorID=?, patientID=?, drugID=? "
-                + "WHERE prescriptionID=?";
+        long start = UPDATE_PRESCRIPTION.start();
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setDate(1, Date.valueOf(prescription.getDateOfPrescribe()));
-            stmt.setString(2, prescription.getDosage());
-            stmt.setString(3, prescription.getDuration());
-            stmt.setString(4, prescription.getComment());
-            stmt.setInt(5, prescription.getDoctorId());
-            stmt.setInt(6, prescription.getPatientId());
-            stmt.setInt(7, prescription.getDrugId());
-            stmt.setInt(8, prescription.getPrescriptionId());
-            stmt.executeUpdate();
+             PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
+
+            bindUpdate(stmt, prescription);
+            int rows = stmt.executeUpdate();
+            UPDATE_PRESCRIPTION.rows(rows);
+            if (rows > 0) {
+                TextSearch.prescriptionsSaved(List.of(prescription));
+            }
 
         } catch (SQLException e) {
+            UPDATE_PRESCRIPTION.error();
             e.printStackTrace();
+        } finally {
+            UPDATE_PRESCRIPTION.stop(start);
         }
     }
 
     // DELETE
     public void deletePrescription(int id) {
-        String sql = "DELETE FROM prescriptions WHERE prescriptionID = ?";
+        long start = DELETE_PRESCRIPTION.start();
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(DELETE_SQL)) {
 
             stmt.setInt(1, id);
-            stmt.executeUpdate();
+            int rows = stmt.executeUpdate();
+            DELETE_PRESCRIPTION.rows(rows);
+            if (rows > 0) {
+                TextSearch.deleted(TextSearch.Source.PRESCRIPTION, id);
+            }
         } catch (SQLException e) {
+            DELETE_PRESCRIPTION.error();
             e.printStackTrace();
+        } finally {
+            DELETE_PRESCRIPTION.stop(start);
+        }
+    }
+
+    // BULK
+    /**
+     * For upstream feeds: writes every prescription of the collection in one batched transaction.
+     * If the database rejects a row, nothing is kept and that row is marked FAILED in the result.
+     */
+    public BatchResult insertPrescriptions(Collection<? extends Prescription> prescriptions) {
+        BatchResult result = BulkWrite.run(INSERT_PRESCRIPTIONS, prescriptions, INSERT_SQL, PrescriptionDAO::bindInsert);
+        if (result.isCommitted()) {
+            TextSearch.prescriptionsSaved(prescriptions);
+        }
+        return result;
+    }
+
+    public BatchResult updatePrescriptions(Collection<? extends Prescription> prescriptions) {
+        BatchResult result = BulkWrite.run(UPDATE_PRESCRIPTIONS, prescriptions, UPDATE_SQL, PrescriptionDAO::bindUpdate);
+        if (result.isCommitted()) {
+            TextSearch.prescriptionsSaved(prescriptions);
         }
+        return result;
+    }
+
+    public BatchResult deletePrescriptions(int... ids) {
+        BatchResult result = BulkWrite.deleteIds(DELETE_PRESCRIPTIONS, DELETE_SQL, ids);
+        if (result.isCommitted()) {
+            TextSearch.deleted(TextSearch.Source.PRESCRIPTION, ids);
+        }
+        return result;
     }
 
     // LIST ALL
     public List<Prescription> getAllPrescriptions() {
+        long start = GET_ALL_PRESCRIPTIONS.start();
         List<Prescription> prescriptions = new ArrayList<>();
-        String sql = "SELECT * FROM prescriptions";
         try (Connection conn = DBConnection.getConnection();
              Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+             ResultSet rs = stmt.executeQuery(SELECT_ALL_SQL)) {
 
             while (rs.next()) {
-                Prescription prescription = new Prescription(
-                        rs.getInt("prescriptionID"),
-                        rs.getDate("dateprescribed").toLocalDate(),
-                        rs.getString("dosage"),
-                        rs.getString("duration"),
-                        rs.getString("comment"),
-                        rs.getInt("doctorID"),
-                        rs.getInt("patientID"),
-                        rs.getInt("drugID")
-                );
-                prescriptions.add(prescription);
+                prescriptions.add(mapRow(rs));
             }
         } catch (SQLException e) {
+            GET_ALL_PRESCRIPTIONS.error();
             e.printStackTrace();
+        } finally {
+            GET_ALL_PRESCRIPTIONS.stop(start);
         }
+        GET_ALL_PRESCRIPTIONS.rows(prescriptions.size());
         return prescriptions;
     }
+
+    // STREAM ALL
+    /**
+     * Streams all prescriptions through a server-side cursor instead of building a list.
+     * The stream holds a pooled connection, so close it (try-with-resources) when done.
+     */
+    public Stream<Prescription> streamPrescriptions() {
+        try {
+            return streamPrescriptionsOrThrow();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return Stream.empty();
+        }
+    }
+
+    /**
+     * Same as {@link #streamPrescriptions()}, but a cursor that can't be opened is an exception
+     * rather than an empty stream, for callers that must not mistake it for an empty table.
+     */
+    Stream<Prescription> streamPrescriptionsOrThrow() throws SQLException {
+        return ResultStreams.open(SELECT_ALL_SQL, this::mapRow, STREAM_PRESCRIPTIONS);
+    }
+
+    // PAGE (keyset): rows with prescriptionID > afterId, in key order
+    /**
+     * Returns up to pageSize rows whose prescriptionID is greater than afterId, ordered by prescriptionID.
+     * Pass Integer.MIN_VALUE for the first page, then the last id of the previous page.
+     */
+    public List<Prescription> getPrescriptionsPage(int afterId, int pageSize) {
+        long start = GET_PRESCRIPTIONS_PAGE.start();
+        List<Prescription> page = new ArrayList<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_PAGE_SQL)) {
+
+            stmt.setInt(1, afterId);
+            stmt.setInt(2, pageSize);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    page.add(mapRow(rs));
+                }
+            }
+        } catch (SQLException e) {
+            GET_PRESCRIPTIONS_PAGE.error();
+            e.printStackTrace();
+        } finally {
+            GET_PRESCRIPTIONS_PAGE.stop(start);
+        }
+        GET_PRESCRIPTIONS_PAGE.rows(page.size());
+        return page;
+    }
+
+    // LISTING (sortable pages for the results table)
+    public SortedPageQuery listingQuery() {
+        return new SortedPageQuery("prescriptions", "prescriptionID",
+                new String[]{"prescriptionID", "dateprescribed", "dosage", "duration", "comment", "drugID", "doctorID", "patientID"},
+                new String[]{"Prescription ID", "Date", "Dosage", "Duration", "Comment", "Drug ID", "Doctor ID", "Patient ID"});
+    }
+
+    // COUNT
+    public long countPrescriptions() {
+        long start = COUNT_PRESCRIPTIONS.start();
+        try (Connection conn = DBConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(COUNT_SQL)) {
+
+            if (rs.next()) {
+                return rs.getLong(1);
+            }
+        } catch (SQLException e) {
+            COUNT_PRESCRIPTIONS.error();
+            e.printStackTrace();
+        } finally {
+            COUNT_PRESCRIPTIONS.stop(start);
+        }
+        return 0;
+    }
+
+    /** Maps the current row of a list query to a Prescription. */
+    Prescription mapRow(ResultSet rs) throws SQLException {
+        return new Prescription(
+                rs.getInt("prescriptionID"),
+                rs.getDate("dateprescribed").toLocalDate(),
+                rs.getString("dosage"),
+                rs.getString("duration"),
+                rs.getString("comment"),
+                rs.getInt("doctorID"),
+                rs.getInt("patientID"),
+                rs.getInt("drugID")
+        );
+    }
+
+    private static void bindInsert(PreparedStatement stmt, Prescription prescription) throws SQLException {
+        stmt.setInt(1, prescription.getPrescriptionId());
+        stmt.setDate(2, Date.valueOf(prescription.getDateOfPrescribe()));
+        stmt.setString(3, prescription.getDosage());
+        stmt.setString(4, prescription.getDuration());
+        stmt.setString(5, prescription.getComment());
+        stmt.setInt(6, prescription.getDoctorId());
+        stmt.setInt(7, prescription.getPatientId());
+        stmt.setInt(8, prescription.getDrugId());
+    }
+
+    private static void bindUpdate(PreparedStatement stmt, Prescription prescription) throws SQLException {
+        stmt.setDate(1, Date.valueOf(prescription.getDateOfPrescribe()));
+        stmt.setString(2, prescription.getDosage());
+        stmt.setString(3, prescription.getDuration());
+        stmt.setString(4, prescription.getComment());
+        stmt.setInt(5, prescription.getDoctorId());
+        stmt.setInt(6, prescription.getPatientId());
+        stmt.setInt(7, prescription.getDrugId());
+        stmt.setInt(8, prescription.getPrescriptionId());
+    }
 }
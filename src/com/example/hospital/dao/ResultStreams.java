@@ -0,0 +1,140 @@
+package com.example.hospital.dao;
+
+import com.example.hospital.util.DBConnection;
+import com.example.hospital.util.DaoMetrics;
+
+import java.sql.*;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Turns a query into a lazily-read Stream for the DAOs' stream* methods.
+ *
+ * The statement gets a fetch size, which makes the MariaDB driver stream the result
+ * instead of buffering it, so only one fetch window of rows is in memory at a time.
+ * The stream holds a pooled connection until it is closed; closing it early cancels the
+ * query on the server rather than draining the remaining rows.
+ *
+ * The DAO's metrics operation covers the whole life of the stream, from opening the cursor
+ * until the stream is closed, and counts the rows actually read.
+ */
+class ResultStreams {
+
+    static final int FETCH_SIZE = Integer.getInteger("hospital.stream.fetchSize", 500);
+
+    /** Maps the current row of a ResultSet. */
+    @FunctionalInterface
+    interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    private ResultStreams() {
+    }
+
+    /** Opens the cursor; if that fails, prints the error and returns an empty stream. */
+    static <T> Stream<T> query(String sql, RowMapper<T> mapper, DaoMetrics.Operation op) {
+        try {
+            return open(sql, mapper, op);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return Stream.empty();
+        }
+    }
+
+    /**
+     * Opens the cursor, or throws if it can't be opened, so a caller can tell "no rows" from
+     * "couldn't read". Errors later on, while rows are read, surface as IllegalStateException.
+     */
+    static <T> Stream<T> open(String sql, RowMapper<T> mapper, DaoMetrics.Operation op) throws SQLException {
+        long start = op.start();
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        try {
+            conn = DBConnection.getConnection();
+            stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(FETCH_SIZE);
+            ResultSet rs = stmt.executeQuery();
+
+            Cursor<T> cursor = new Cursor<>(conn, stmt, rs, mapper, op, start);
+            return StreamSupport.stream(cursor, false).onClose(cursor::close);
+        } catch (SQLException e) {
+            closeQuietly(stmt);
+            closeQuietly(conn);
+            op.error();
+            op.stop(start);
+            throw e;
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable c) {
+        if (c == null) return;
+        try {
+            c.close();
+        } catch (Exception ignored) {
+            // already failing, nothing more to report
+        }
+    }
+
+    private static final class Cursor<T> extends Spliterators.AbstractSpliterator<T> {
+        private final Connection conn;
+        private final Statement stmt;
+        private final ResultSet rs;
+        private final RowMapper<T> mapper;
+        private final DaoMetrics.Operation op;
+        private final long start;
+        private long rows = 0;
+        private boolean exhausted = false;
+        private boolean closed = false;
+
+        Cursor(Connection conn, Statement stmt, ResultSet rs, RowMapper<T> mapper,
+               DaoMetrics.Operation op, long start) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.conn = conn;
+            this.stmt = stmt;
+            this.rs = rs;
+            this.mapper = mapper;
+            this.op = op;
+            this.start = start;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (exhausted || closed) {
+                return false;
+            }
+            try {
+                if (!rs.next()) {
+                    exhausted = true;
+                    return false;
+                }
+                T row = mapper.map(rs);
+                rows++;
+                action.accept(row);
+                return true;
+            } catch (SQLException e) {
+                op.error();
+                throw new IllegalStateException("Failed while streaming rows", e);
+            }
+        }
+
+        void close() {
+            if (closed) return;
+            closed = true;
+            if (!exhausted) {
+                try {
+                    stmt.cancel(); // don't read the rest of a large result just to throw it away
+                } catch (SQLException ignored) {
+                    // best effort; closing below still releases everything
+                }
+            }
+            closeQuietly(rs);
+            closeQuietly(stmt);
+            closeQuietly(conn);
+            op.rows(rows);
+            op.stop(start);
+        }
+    }
+}
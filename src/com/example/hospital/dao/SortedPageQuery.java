@@ -0,0 +1,133 @@
+package com.example.hospital.dao;
+
+import com.example.hospital.util.DBConnection;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A sortable, paged listing of one table (or join), used by the results table in the GUI.
+ *
+ * Rows come back as Object[] holding the listed columns followed by the row's key, so any
+ * entity can be shown without a dedicated model class. Pages are fetched either
+ * - by keyset: given the sort value and key of the previous page's last row
+ *   (WHERE sortCol > ? OR (sortCol = ? AND key > ?)), which stays fast at any depth, or
+ * - by OFFSET, for random jumps where the previous page is not known.
+ *
+ * Column expressions are fixed by the DAOs; callers only pick a column index, never SQL.
+ */
+public class SortedPageQuery {
+
+    private final String from;
+    private final String keyColumn;
+    private final String[] columns;
+    private final String[] labels;
+
+    /**
+     * @param from      FROM clause, e.g. "visits" or "specialists s JOIN doctors d ON ..."
+     * @param keyColumn unique, non-null key used as tie-breaker (normally the primary key)
+     * @param columns   column expressions to list
+     * @param labels    column headers, same length as columns
+     */
+    public SortedPageQuery(String from, String keyColumn, String[] columns, String[] labels) {
+        if (columns.length != labels.length) {
+            throw new IllegalArgumentException("columns and labels differ in length");
+        }
+        this.from = from;
+        this.keyColumn = keyColumn;
+        this.columns = columns.clone();
+        this.labels = labels.clone();
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    public String getLabel(int column) {
+        return labels[column];
+    }
+
+    public long count() throws SQLException {
+        String sql = "SELECT COUNT(*) FROM " + from;
+        try (Connection conn = DBConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * Fetches one page.
+     *
+     * @param sortColumn index into the listed columns, or -1 to sort by key only
+     * @param ascending  sort direction
+     * @param after      row (as returned by this method) that ends the previous page, or null;
+     *                   when given, the page is read by keyset and offset is ignored
+     * @param offset     rows to skip when after is null
+     * @param limit      page size
+     * @return rows of getColumnCount() values plus the key as last element
+     */
+    public List<Object[]> fetchPage(int sortColumn, boolean ascending, Object[] after,
+                                    long offset, int limit) throws SQLException {
+        String sortExpr = sortColumn < 0 ? null : columns[sortColumn];
+        Object afterSort = after == null || sortColumn < 0 ? null : after[sortColumn];
+        Object afterKey = after == null ? null : after[columns.length];
+        // NULL sort values cannot be compared with > / <, so fall back to OFFSET for those
+        boolean keyset = after != null && (sortExpr == null || afterSort != null);
+
+        String dir = ascending ? "ASC" : "DESC";
+        String cmp = ascending ? ">" : "<";
+        StringBuilder sql = new StringBuilder("SELECT ");
+        sql.append(String.join(", ", columns)).append(", ").append(keyColumn).append(" FROM ").append(from);
+        if (keyset) {
+            if (sortExpr == null) {
+                sql.append(" WHERE ").append(keyColumn).append(' ').append(cmp).append(" ?");
+            } else {
+                sql.append(" WHERE (").append(sortExpr).append(' ').append(cmp).append(" ? OR (")
+                        .append(sortExpr).append(" = ? AND ").append(keyColumn).append(' ').append(cmp).append(" ?)");
+                if (!ascending) {
+                    sql.append(" OR ").append(sortExpr).append(" IS NULL"); // NULLs sort last in DESC
+                }
+                sql.append(')');
+            }
+        }
+        sql.append(" ORDER BY ");
+        if (sortExpr != null) {
+            sql.append(sortExpr).append(' ').append(dir).append(", ");
+        }
+        sql.append(keyColumn).append(' ').append(dir).append(" LIMIT ?");
+        if (!keyset) {
+            sql.append(" OFFSET ?");
+        }
+
+        List<Object[]> rows = new ArrayList<>(limit);
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+
+            int i = 1;
+            if (keyset) {
+                if (sortExpr != null) {
+                    stmt.setObject(i++, afterSort);
+                    stmt.setObject(i++, afterSort);
+                }
+                stmt.setObject(i++, afterKey);
+            }
+            stmt.setInt(i++, limit);
+            if (!keyset) {
+                stmt.setLong(i, offset);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                int width = columns.length + 1;
+                while (rs.next()) {
+                    Object[] row = new Object[width];
+                    for (int c = 0; c < width; c++) {
+                        row[c] = rs.getObject(c + 1);
+                    }
+                    rows.add(row);
+                }
+            }
+        }
+        return rows;
+    }
+}
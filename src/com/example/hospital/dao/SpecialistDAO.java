@@ -2,85 +2,79 @@ package com.example.hospital.dao;
 
 import com.example.hospital.model.Specialist;
 import com.example.hospital.util.DBConnection;
+import com.example.hospital.util.DaoMetrics;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public class SpecialistDAO {
 
+    // SQL
+    private static final String INSERT_SPECIALIST_SQL = "INSERT INTO specialists (specialist_id, experience) VALUES (?, ?)";
+    private static final String UPSERT_DOCTOR_SQL = "INSERT INTO doctors (doctor_id, firstname, surname, address, email, specialization) "
+            + "VALUES (?, ?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE "
+            + " firstname=?, surname=?, address=?, email=?, specialization=?";
+    private static final String SELECT_BY_ID_SQL = "SELECT d.doctor_id, d.firstname, d.surname, d.address, d.email, d.specialization, s.experience "
+            + "FROM specialists s "
+            + "JOIN doctors d ON s.specialist_id = d.doctor_id "
+            + "WHERE s.specialist_id = ?";
+    private static final String UPDATE_DOCTOR_SQL = "UPDATE doctors SET firstname=?, surname=?, address=?, email=?, specialization=? "
+            + "WHERE doctor_id=?";
+    private static final String UPDATE_SPECIALIST_SQL = "UPDATE specialists SET experience=? WHERE specialist_id=?";
+    private static final String DELETE_SQL = "DELETE FROM specialists WHERE specialist_id = ?";
+    private static final String SELECT_ALL_SQL = "SELECT d.doctor_id, d.firstname, d.surname, d.address, d.email, d.specialization, s.experience "
+            + "FROM specialists s "
+            + "JOIN doctors d ON s.specialist_id = d.doctor_id";
+    private static final String SELECT_PAGE_SQL = "SELECT d.doctor_id, d.firstname, d.surname, d.address, d.email, d.specialization, s.experience "
+            + "FROM specialists s "
+            + "JOIN doctors d ON s.specialist_id = d.doctor_id "
+            + "WHERE s.specialist_id > ? ORDER BY s.specialist_id LIMIT ?";
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM specialists";
+
+    // METRICS (see DaoMetrics)
+    private static final DaoMetrics.Operation INSERT_SPECIALIST = DaoMetrics.operation("SpecialistDAO", "insertSpecialist");
+    private static final DaoMetrics.Operation GET_SPECIALIST_BY_ID = DaoMetrics.operation("SpecialistDAO", "getSpecialistById");
+    private static final DaoMetrics.Operation UPDATE_SPECIALIST = DaoMetrics.operation("SpecialistDAO", "updateSpecialist");
+    private static final DaoMetrics.Operation DELETE_SPECIALIST = DaoMetrics.operation("SpecialistDAO", "deleteSpecialist");
+    private static final DaoMetrics.Operation INSERT_SPECIALISTS = DaoMetrics.operation("SpecialistDAO", "insertSpecialists");
+    private static final DaoMetrics.Operation UPDATE_SPECIALISTS = DaoMetrics.operation("SpecialistDAO", "updateSpecialists");
+    private static final DaoMetrics.Operation DELETE_SPECIALISTS = DaoMetrics.operation("SpecialistDAO", "deleteSpecialists");
+    private static final DaoMetrics.Operation GET_ALL_SPECIALISTS = DaoMetrics.operation("SpecialistDAO", "getAllSpecialists");
+    private static final DaoMetrics.Operation STREAM_SPECIALISTS = DaoMetrics.operation("SpecialistDAO", "streamSpecialists");
+    private static final DaoMetrics.Operation GET_SPECIALISTS_PAGE = DaoMetrics.operation("SpecialistDAO", "getSpecialistsPage");
+    private static final DaoMetrics.Operation COUNT_SPECIALISTS = DaoMetrics.operation("SpecialistDAO", "countSpecialists");
+
     /**
-     * Insert a Specialist into two tables:
+     * Insert a Specialist into two tables, on one connection and in one transaction:
      * 1) Update/insert the base 'doctors' row for the core fields
      * 2) Insert into 'specialists' for the extra 'experience' field
      *
-     * If you already inserted the base Doctor row elsewhere, you only do step 2.
+     * If step 2 fails (e.g. the specialist already exists), step 1 is rolled back too,
+     * so there is never a doctors row left behind from a half-done insert.
      */
     public void insertSpecialist(Specialist specialist) {
-        // 1) Insert/Update base doctor row
-        insertOrUpdateDoctorBase(specialist);
-
-        // 2) Insert into specialists (just the specialist_id + experience)
-        String sqlSpec = "INSERT INTO specialists (specialist_id, experience) VALUES (?, ?)";
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sqlSpec)) {
-
-            stmt.setInt(1, specialist.getDoctorId());
-            stmt.setInt(2, specialist.getYearsOfExperience());
-            stmt.executeUpdate();
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-    }
-
-    /**
-     * For table-per-subclass, you typically have a 'doctors' table for base fields,
-     * so we either do an upsert or separate code to ensure the base fields exist in 'doctors'.
-     */
-    private void insertOrUpdateDoctorBase(Specialist s) {
-        // You can do an "INSERT IGNORE" or check if row exists, or an ON DUPLICATE KEY approach, etc.
-        String sql = "INSERT INTO doctors (doctor_id, firstname, surname, address, email, specialization) "
-                + "VALUES (?, ?, ?, ?, ?, ?) "
-                + "ON DUPLICATE KEY UPDATE "
-                + " firstname=?, surname=?, address=?, email=?, specialization=?";
-
         // We store specialization in the doctors table too (some designs keep it in specialists),
         // but let's assume it remains a base field from "Doctor.csv."
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setInt(1, s.getDoctorId());
-            ps.setString(2, s.getFirstName());
-            ps.setString(3, s.getSurname());
-            ps.setString(4, s.getAddress());
-            ps.setString(5, s.getEmail());
-            ps.setString(6, s.getSpecialization());
-
-            // For the ON DUPLICATE KEY part
-            ps.setString(7, s.getFirstName());
-            ps.setString(8, s.getSurname());
-            ps.setString(9, s.getAddress());
-            ps.setString(10, s.getEmail());
-            ps.setString(11, s.getSpecialization());
-
-            ps.executeUpdate();
-
-        } catch (SQLException e) {
-            e.printStackTrace();
+        BatchResult result = BulkWrite.run(INSERT_SPECIALIST, List.of(specialist),
+                UPSERT_DOCTOR_SQL, SpecialistDAO::bindDoctorUpsert,
+                INSERT_SPECIALIST_SQL, SpecialistDAO::bindSpecialistInsert);
+        DoctorDAO.CACHE.invalidate(specialist.getDoctorId()); // the doctors row may have changed
+        if (result.isCommitted()) {
+            NameLookup.specialistsSaved(List.of(specialist));
         }
     }
 
     // READ single
     public Specialist getSpecialistById(int id) {
+        long start = GET_SPECIALIST_BY_ID.start();
         Specialist specialist = null;
         // We must JOIN doctors + specialists to get all columns
-        String sql = "SELECT d.doctor_id, d.firstname, d.surname, d.address, d.email, d.specialization, s.experience "
-                + "FROM specialists s "
-                + "JOIN doctors d ON s.specialist_id = d.doctor_id "
-                + "WHERE s.specialist_id = ?";
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(SELECT_BY_ID_SQL)) {
 
             stmt.setInt(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
@@ -97,91 +91,233 @@ public class SpecialistDAO {
                 }
             }
         } catch (SQLException e) {
+            GET_SPECIALIST_BY_ID.error();
             e.printStackTrace();
+        } finally {
+            GET_SPECIALIST_BY_ID.stop(start);
         }
+        GET_SPECIALIST_BY_ID.rows(specialist == null ? 0 : 1);
         return specialist;
     }
 
     /**
-     * Update means update doctors + specialists
+     * Update means update doctors + specialists, both in the same transaction
      */
     public void updateSpecialist(Specialist specialist) {
-        // 1) Update base doctors row
-        String sqlDoc = "UPDATE doctors SET firstname=?, surname=?, address=?, email=?, specialization=? "
-                + "WHERE doctor_id=?";
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sqlDoc)) {
-
-            stmt.setString(1, specialist.getFirstName());
-            stmt.setString(2, specialist.getSurname());
-            stmt.setString(3, specialist.getAddress());
-            stmt.setString(4, specialist.getEmail());
-            stmt.setString(5, specialist.getSpecialization());
-            stmt.setInt(6, specialist.getDoctorId());
-            stmt.executeUpdate();
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-
-        // 2) Update 'specialists' row
-        String sqlSpec = "UPDATE specialists SET experience=? WHERE specialist_id=?";
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sqlSpec)) {
-
-            stmt.setInt(1, specialist.getYearsOfExperience());
-            stmt.setInt(2, specialist.getDoctorId());
-            stmt.executeUpdate();
-
-        } catch (SQLException e) {
-            e.printStackTrace();
+        BatchResult result = BulkWrite.run(UPDATE_SPECIALIST, List.of(specialist),
+                UPDATE_DOCTOR_SQL, SpecialistDAO::bindDoctorUpdate,
+                UPDATE_SPECIALIST_SQL, SpecialistDAO::bindSpecialistUpdate);
+        DoctorDAO.CACHE.invalidate(specialist.getDoctorId());
+        if (result.isCommitted()) {
+            NameLookup.specialistsSaved(List.of(specialist));
         }
     }
 
     // DELETE
     public void deleteSpecialist(int id) {
+        long start = DELETE_SPECIALIST.start();
         // Deleting from specialists is enough, because doctor is your base.
         // Or you might want to also remove from doctors if there's no more usage, but typically you only remove the subclass row.
         // If ON DELETE CASCADE is set, removing from specialists alone might not remove from doctors.
         // So decide your business logic carefully.
-        String sql = "DELETE FROM specialists WHERE specialist_id = ?";
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(DELETE_SQL)) {
 
             stmt.setInt(1, id);
-            stmt.executeUpdate();
+            int rows = stmt.executeUpdate();
+            DELETE_SPECIALIST.rows(rows);
+            if (rows > 0) {
+                NameLookup.deleted(NameLookup.Kind.SPECIALIST, id);
+            }
 
         } catch (SQLException e) {
+            DELETE_SPECIALIST.error();
             e.printStackTrace();
+        } finally {
+            DELETE_SPECIALIST.stop(start);
+        }
+    }
+
+    // BULK
+    /**
+     * Bulk writes for specialists. Each call is one transaction covering both tables:
+     * all 'doctors' rows are written first (one batch), then all 'specialists' rows.
+     * The per-row outcome in the result is the one of the 'specialists' statement.
+     */
+    public BatchResult insertSpecialists(Collection<? extends Specialist> specialists) {
+        BatchResult result = BulkWrite.run(INSERT_SPECIALISTS, specialists,
+                UPSERT_DOCTOR_SQL, SpecialistDAO::bindDoctorUpsert,
+                INSERT_SPECIALIST_SQL, SpecialistDAO::bindSpecialistInsert);
+        specialists.forEach(s -> DoctorDAO.CACHE.invalidate(s.getDoctorId()));
+        if (result.isCommitted()) {
+            NameLookup.specialistsSaved(specialists);
+        }
+        return result;
+    }
+
+    public BatchResult updateSpecialists(Collection<? extends Specialist> specialists) {
+        BatchResult result = BulkWrite.run(UPDATE_SPECIALISTS, specialists,
+                UPDATE_DOCTOR_SQL, SpecialistDAO::bindDoctorUpdate,
+                UPDATE_SPECIALIST_SQL, SpecialistDAO::bindSpecialistUpdate);
+        specialists.forEach(s -> DoctorDAO.CACHE.invalidate(s.getDoctorId()));
+        if (result.isCommitted()) {
+            NameLookup.specialistsSaved(specialists);
+        }
+        return result;
+    }
+
+    /** Like deleteSpecialist, only removes the 'specialists' rows. */
+    public BatchResult deleteSpecialists(int... ids) {
+        BatchResult result = BulkWrite.deleteIds(DELETE_SPECIALISTS, DELETE_SQL, ids);
+        if (result.isCommitted()) {
+            NameLookup.deleted(NameLookup.Kind.SPECIALIST, ids);
         }
+        return result;
     }
 
     // LIST ALL
     public List<Specialist> getAllSpecialists() {
+        long start = GET_ALL_SPECIALISTS.start();
         List<Specialist> specialists = new ArrayList<>();
         // Again, join specialists + doctors
-        String sql = "SELECT d.doctor_id, d.firstname, d.surname, d.address, d.email, d.specialization, s.experience "
-                + "FROM specialists s "
-                + "JOIN doctors d ON s.specialist_id = d.doctor_id";
         try (Connection conn = DBConnection.getConnection();
              Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+             ResultSet rs = stmt.executeQuery(SELECT_ALL_SQL)) {
 
             while (rs.next()) {
-                Specialist sp = new Specialist(
-                        rs.getInt("doctor_id"),
-                        rs.getString("firstname"),
-                        rs.getString("surname"),
-                        rs.getString("address"),
-                        rs.getString("email"),
-                        rs.getString("specialization"),
-                        rs.getInt("experience")
-                );
-                specialists.add(sp);
+                specialists.add(mapRow(rs));
             }
         } catch (SQLException e) {
+            GET_ALL_SPECIALISTS.error();
             e.printStackTrace();
+        } finally {
+            GET_ALL_SPECIALISTS.stop(start);
         }
+        GET_ALL_SPECIALISTS.rows(specialists.size());
         return specialists;
     }
+
+    // STREAM ALL
+    /**
+     * Streams all specialists through a server-side cursor instead of building a list.
+     * The stream holds a pooled connection, so close it (try-with-resources) when done.
+     */
+    public Stream<Specialist> streamSpecialists() {
+        try {
+            return streamSpecialistsOrThrow();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return Stream.empty();
+        }
+    }
+
+    /**
+     * Same as {@link #streamSpecialists()}, but a cursor that can't be opened is an exception
+     * rather than an empty stream, for callers that must not mistake it for an empty table.
+     */
+    Stream<Specialist> streamSpecialistsOrThrow() throws SQLException {
+        return ResultStreams.open(SELECT_ALL_SQL, this::mapRow, STREAM_SPECIALISTS);
+    }
+
+    // PAGE (keyset): rows with specialist_id > afterId, in key order
+    /**
+     * Returns up to pageSize rows whose specialist_id is greater than afterId, ordered by specialist_id.
+     * Pass Integer.MIN_VALUE for the first page, then the last id of the previous page.
+     */
+    public List<Specialist> getSpecialistsPage(int afterId, int pageSize) {
+        long start = GET_SPECIALISTS_PAGE.start();
+        List<Specialist> page = new ArrayList<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_PAGE_SQL)) {
+
+            stmt.setInt(1, afterId);
+            stmt.setInt(2, pageSize);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    page.add(mapRow(rs));
+                }
+            }
+        } catch (SQLException e) {
+            GET_SPECIALISTS_PAGE.error();
+            e.printStackTrace();
+        } finally {
+            GET_SPECIALISTS_PAGE.stop(start);
+        }
+        GET_SPECIALISTS_PAGE.rows(page.size());
+        return page;
+    }
+
+    // LISTING (sortable pages for the results table)
+    public SortedPageQuery listingQuery() {
+        return new SortedPageQuery("specialists s JOIN doctors d ON s.specialist_id = d.doctor_id", "s.specialist_id",
+                new String[]{"d.doctor_id", "d.firstname", "d.surname", "d.specialization", "s.experience"},
+                new String[]{"ID", "First Name", "Surname", "Specialization", "Experience"});
+    }
+
+    // COUNT
+    public long countSpecialists() {
+        long start = COUNT_SPECIALISTS.start();
+        try (Connection conn = DBConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(COUNT_SQL)) {
+
+            if (rs.next()) {
+                return rs.getLong(1);
+            }
+        } catch (SQLException e) {
+            COUNT_SPECIALISTS.error();
+            e.printStackTrace();
+        } finally {
+            COUNT_SPECIALISTS.stop(start);
+        }
+        return 0;
+    }
+
+    /** Maps the current row of a list query to a Specialist. */
+    private Specialist mapRow(ResultSet rs) throws SQLException {
+        return new Specialist(
+                rs.getInt("doctor_id"),
+                rs.getString("firstname"),
+                rs.getString("surname"),
+                rs.getString("address"),
+                rs.getString("email"),
+                rs.getString("specialization"),
+                rs.getInt("experience")
+        );
+    }
+
+    private static void bindDoctorUpsert(PreparedStatement ps, Specialist s) throws SQLException {
+        ps.setInt(1, s.getDoctorId());
+        ps.setString(2, s.getFirstName());
+        ps.setString(3, s.getSurname());
+        ps.setString(4, s.getAddress());
+        ps.setString(5, s.getEmail());
+        ps.setString(6, s.getSpecialization());
+
+        // For the ON DUPLICATE KEY part
+        ps.setString(7, s.getFirstName());
+        ps.setString(8, s.getSurname());
+        ps.setString(9, s.getAddress());
+        ps.setString(10, s.getEmail());
+        ps.setString(11, s.getSpecialization());
+    }
+
+    private static void bindSpecialistInsert(PreparedStatement stmt, Specialist specialist) throws SQLException {
+        stmt.setInt(1, specialist.getDoctorId());
+        stmt.setInt(2, specialist.getYearsOfExperience());
+    }
+
+    private static void bindDoctorUpdate(PreparedStatement stmt, Specialist specialist) throws SQLException {
+        stmt.setString(1, specialist.getFirstName());
+        stmt.setString(2, specialist.getSurname());
+        stmt.setString(3, specialist.getAddress());
+        stmt.setString(4, specialist.getEmail());
+        stmt.setString(5, specialist.getSpecialization());
+        stmt.setInt(6, specialist.getDoctorId());
+    }
+
+    private static void bindSpecialistUpdate(PreparedStatement stmt, Specialist specialist) throws SQLException {
+        stmt.setInt(1, specialist.getYearsOfExperience());
+        stmt.setInt(2, specialist.getDoctorId());
+    }
 }
@@ -0,0 +1,100 @@
+package com.example.hospital.dao;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Every SQL statement the DAOs prepare, read straight from their constants, so tools like
+ * {@link com.example.hospital.util.QueryPlanCheck} check the real SQL instead of a copy.
+ *
+ * 1) Each DAO declares its SQL once, in static final String fields named *_SQL (the same
+ *    text the pooled statement cache is keyed by). All of them are listed here in declaration
+ *    order, so a new constant is picked up without touching this class.
+ * 2) Batch lookups are listed in their one-id "IN (?)" form; {@link IdBatchQuery} only
+ *    widens the placeholder list, so the plan is the same.
+ */
+public final class SqlRegistry {
+
+    /** One DAO statement, e.g. DoctorDAO.UPDATE_SQL. */
+    public static final class Statement {
+        private final String dao;
+        private final String constant;
+        private final String sql;
+
+        Statement(String dao, String constant, String sql) {
+            this.dao = dao;
+            this.constant = constant;
+            this.sql = sql;
+        }
+
+        public String getDao() {
+            return dao;
+        }
+
+        public String getConstant() {
+            return constant;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        /** "DoctorDAO.UPDATE_SQL" */
+        public String getName() {
+            return dao + "." + constant;
+        }
+
+        /** Number of ? placeholders (none of the DAO SQL has a ? inside a string literal). */
+        public int getParameterCount() {
+            return (int) sql.chars().filter(c -> c == '?').count();
+        }
+
+        /** True for the list-all, stream and count statements, which read the whole table on purpose. */
+        public boolean readsWholeTable() {
+            return constant.equals("SELECT_ALL_SQL") || constant.equals("STREAM_SQL") || constant.equals("COUNT_SQL");
+        }
+
+        @Override
+        public String toString() {
+            return getName();
+        }
+    }
+
+    private static final List<Class<?>> DAOS = List.of(
+            DoctorDAO.class, SpecialistDAO.class, DrugDAO.class, InsuranceDAO.class,
+            PatientDAO.class, InsuredPatientDAO.class, VisitDAO.class, PrescriptionDAO.class,
+            PatientTimelineDAO.class);
+
+    private static final List<Statement> STATEMENTS = load();
+
+    private SqlRegistry() {
+    }
+
+    /** All DAO statements, grouped by DAO. */
+    public static List<Statement> statements() {
+        return STATEMENTS;
+    }
+
+    private static List<Statement> load() {
+        List<Statement> found = new ArrayList<>();
+        for (Class<?> dao : DAOS) {
+            for (Field f : dao.getDeclaredFields()) {
+                int mod = f.getModifiers();
+                if (!Modifier.isStatic(mod) || !Modifier.isFinal(mod)
+                        || f.getType() != String.class || !f.getName().endsWith("_SQL")) {
+                    continue;
+                }
+                try {
+                    f.setAccessible(true); // the constants stay private to their DAO
+                    found.add(new Statement(dao.getSimpleName(), f.getName(), (String) f.get(null)));
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException("Cannot read " + dao.getSimpleName() + "." + f.getName(), e);
+                }
+            }
+        }
+        return Collections.unmodifiableList(found);
+    }
+}
@@ -0,0 +1,315 @@
+package com.example.hospital.dao;
+
+import com.example.hospital.model.Drug;
+import com.example.hospital.model.Prescription;
+import com.example.hospital.model.Visit;
+import com.example.hospital.util.DBConnection;
+import com.example.hospital.util.DaoMetrics;
+import com.example.hospital.util.FullTextIndex;
+import com.example.hospital.util.SchemaBootstrap;
+import com.example.hospital.util.Transactions;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Ranked full-text search over visit symptoms and diagnoses, prescription comments and drug
+ * side effects and benefits, backed by a {@link FullTextIndex}.
+ *
+ *   List<TextSearch.Hit> hits = TextSearch.search("chest pain", 20);
+ *
+ * 1) The index is opened on the first search (or by {@link #open()}): read from
+ *    hospital.search.indexFile (default search-index.bin) if it was built from the same
+ *    bootstrap (schema version and CSV checksum, see {@link SchemaBootstrap#currentStamp})
+ *    and its document counts still match the tables, otherwise rebuilt by streaming the
+ *    three tables.
+ * 2) VisitDAO, PrescriptionDAO and DrugDAO report their successful writes here, and the index
+ *    is updated in place. Inside a {@link Transactions} scope that happens on commit only.
+ * 3) The index is saved after a rebuild and again at JVM exit if it changed.
+ *
+ * A bootstrap re-import or schema upgrade is noticed on the next start. Edits made by another
+ * app instance aren't, unless they change a table's row count; call {@link #rebuild()} then.
+ */
+public class TextSearch {
+
+    public enum Source { VISIT, PRESCRIPTION, DRUG }
+
+    /** One search result: which row matched and how well. */
+    public static final class Hit {
+        private final Source source;
+        private final int id;
+        private final double score;
+
+        Hit(Source source, int id, double score) {
+            this.source = source;
+            this.id = id;
+            this.score = score;
+        }
+
+        public Source getSource() {
+            return source;
+        }
+
+        /** visit_id, prescriptionID or drug_id, depending on the source. */
+        public int getId() {
+            return id;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        @Override
+        public String toString() {
+            return source + " #" + id + String.format(Locale.ROOT, " (%.3f)", score);
+        }
+    }
+
+    private static final Path INDEX_FILE = Paths.get(System.getProperty("hospital.search.indexFile", "search-index.bin"));
+
+    // METRICS (see DaoMetrics)
+    private static final DaoMetrics.Operation SEARCH = DaoMetrics.operation("TextSearch", "search");
+    private static final DaoMetrics.Operation REBUILD = DaoMetrics.operation("TextSearch", "rebuild");
+
+    private static final Object UPDATES = new Object(); // guards index, pending and dirty
+    private static volatile FullTextIndex index;        // null until opened
+    private static String indexStamp;                   // what index was built from
+    private static List<Consumer<FullTextIndex>> pending; // writes seen during a rebuild
+    private static boolean dirty = false;
+    private static boolean saveHookAdded = false;
+
+    private TextSearch() {
+    }
+
+    // SEARCH
+    /** The best limit matches across all three sources, best first. */
+    public static List<Hit> search(String query, int limit) {
+        return search(query, null, limit);
+    }
+
+    /** The best limit matches from one source (or all of them if source is null). */
+    public static List<Hit> search(String query, Source source, int limit) {
+        FullTextIndex current = index;
+        if (current == null) {
+            current = open();
+        }
+        long start = SEARCH.start();
+        try {
+            List<FullTextIndex.Hit> found = current.search(query, limit,
+                    source == null ? null : key -> sourceOf(key) == source);
+            List<Hit> hits = new ArrayList<>(found.size());
+            for (FullTextIndex.Hit h : found) {
+                hits.add(new Hit(sourceOf(h.getKey()), (int) h.getKey(), h.getScore()));
+            }
+            SEARCH.rows(hits.size());
+            return hits;
+        } finally {
+            SEARCH.stop(start);
+        }
+    }
+
+    // LIFECYCLE
+    /** Loads or builds the index if that hasn't happened yet, and returns it. */
+    public static synchronized FullTextIndex open() {
+        synchronized (UPDATES) {
+            if (index != null) return index;
+        }
+        String stamp = dataStamp();
+        FullTextIndex loaded = loadIfFresh(stamp);
+        if (loaded == null) {
+            return rebuild();
+        }
+        synchronized (UPDATES) {
+            index = loaded;
+            indexStamp = stamp;
+        }
+        addSaveHook();
+        return loaded;
+    }
+
+    /**
+     * Re-reads all three tables into a new index, saves it and makes it the current one.
+     * If a table can't be read (or reading breaks off), nothing is installed or saved: the
+     * current index is returned as it was, or, if there is none yet, an empty one that isn't
+     * kept, so the next search tries again.
+     */
+    public static synchronized FullTextIndex rebuild() {
+        long start = REBUILD.start();
+        String stamp = dataStamp(); // before reading, so a re-import during the scan counts as newer
+        synchronized (UPDATES) {
+            pending = new ArrayList<>();
+        }
+        FullTextIndex fresh = new FullTextIndex();
+        boolean complete = false;
+        try {
+            try (Stream<Visit> visits = new VisitDAO().streamVisitsOrThrow()) {
+                visits.forEach(v -> putVisit(fresh, v));
+            }
+            try (Stream<Prescription> prescriptions = new PrescriptionDAO().streamPrescriptionsOrThrow()) {
+                prescriptions.forEach(p -> putPrescription(fresh, p));
+            }
+            try (Stream<Drug> drugs = new DrugDAO().streamDrugsOrThrow()) {
+                drugs.forEach(d -> putDrug(fresh, d));
+            }
+            REBUILD.rows(fresh.size());
+            complete = true;
+        } catch (SQLException | IllegalStateException e) {
+            REBUILD.error();
+            e.printStackTrace(); // a partial index would hide rows for the rest of the session
+        } finally {
+            REBUILD.stop(start);
+        }
+
+        FullTextIndex result;
+        synchronized (UPDATES) {
+            List<Consumer<FullTextIndex>> raced = pending; // writes that raced the table scans
+            pending = null;
+            if (complete) {
+                raced.forEach(update -> update.accept(fresh));
+                index = fresh;
+                indexStamp = stamp;
+                dirty = false;
+            } else if (index != null) {
+                raced.forEach(update -> update.accept(index));
+                dirty |= !raced.isEmpty();
+            }
+            result = complete ? fresh : index != null ? index : new FullTextIndex();
+        }
+        if (complete) {
+            save();
+            addSaveHook();
+        }
+        return result;
+    }
+
+    /** Writes the index to hospital.search.indexFile. */
+    public static void save() {
+        FullTextIndex current;
+        String stamp;
+        synchronized (UPDATES) {
+            current = index;
+            stamp = indexStamp;
+            dirty = false;
+        }
+        if (current == null) return;
+        try {
+            current.save(INDEX_FILE, stamp);
+        } catch (IOException e) {
+            System.err.println("Could not save the search index to " + INDEX_FILE + ": " + e.getMessage());
+        }
+    }
+
+    private static FullTextIndex loadIfFresh(String stamp) {
+        if (!Files.isRegularFile(INDEX_FILE)) return null;
+        try {
+            if (stamp.isEmpty() || !stamp.equals(FullTextIndex.readStamp(INDEX_FILE))) {
+                return null; // re-imported or upgraded since the index was saved
+            }
+            FullTextIndex loaded = FullTextIndex.load(INDEX_FILE);
+            long[] counts = new long[Source.values().length];
+            loaded.forEachKey(key -> counts[sourceOf(key).ordinal()]++);
+            if (counts[Source.VISIT.ordinal()] != new VisitDAO().countVisits()
+                    || counts[Source.PRESCRIPTION.ordinal()] != new PrescriptionDAO().countPrescriptions()
+                    || counts[Source.DRUG.ordinal()] != new DrugDAO().countDrugs()) {
+                return null; // the tables changed while the index was on disk
+            }
+            return loaded;
+        } catch (IOException e) {
+            System.err.println("Rebuilding the search index, cannot read " + INDEX_FILE + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** SchemaBootstrap's stamp for the database, or "" if it can't be read (never counts as fresh). */
+    private static String dataStamp() {
+        try (Connection conn = DBConnection.getConnection()) {
+            String stamp = SchemaBootstrap.currentStamp(conn);
+            return stamp == null ? "" : stamp;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return "";
+        }
+    }
+
+    private static void addSaveHook() {
+        if (saveHookAdded) return;
+        saveHookAdded = true;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            boolean changed;
+            synchronized (UPDATES) {
+                changed = dirty;
+            }
+            if (changed) save();
+        }, "search-index-save"));
+    }
+
+    // WRITE HOOKS (called by the DAOs after a successful write)
+    static void visitsSaved(Collection<? extends Visit> visits) {
+        List<Visit> copy = new ArrayList<>(visits);
+        update(ix -> copy.forEach(v -> putVisit(ix, v)));
+    }
+
+    static void prescriptionsSaved(Collection<? extends Prescription> prescriptions) {
+        List<Prescription> copy = new ArrayList<>(prescriptions);
+        update(ix -> copy.forEach(p -> putPrescription(ix, p)));
+    }
+
+    static void drugsSaved(Collection<? extends Drug> drugs) {
+        List<Drug> copy = new ArrayList<>(drugs);
+        update(ix -> copy.forEach(d -> putDrug(ix, d)));
+    }
+
+    static void deleted(Source source, int... ids) {
+        int[] copy = ids.clone();
+        update(ix -> {
+            for (int id : copy) {
+                ix.remove(keyOf(source, id));
+            }
+        });
+    }
+
+    private static void update(Consumer<FullTextIndex> change) {
+        Transactions.afterCommit(() -> {
+            synchronized (UPDATES) {
+                if (pending != null) {
+                    pending.add(change);
+                } else if (index != null) {
+                    change.accept(index);
+                    dirty = true;
+                }
+                // not opened yet: the index will read the rows when it is built
+            }
+        });
+    }
+
+    private static void putVisit(FullTextIndex ix, Visit v) {
+        ix.put(keyOf(Source.VISIT, v.getVisitId()), v.getSymptoms(), v.getDiagnosis());
+    }
+
+    private static void putPrescription(FullTextIndex ix, Prescription p) {
+        ix.put(keyOf(Source.PRESCRIPTION, p.getPrescriptionId()), p.getComment());
+    }
+
+    private static void putDrug(FullTextIndex ix, Drug d) {
+        ix.put(keyOf(Source.DRUG, d.getDrugId()), d.getSideEffects(), d.getBenefits());
+    }
+
+    // index key: source in the high 32 bits, row id in the low 32
+    private static long keyOf(Source source, int id) {
+        return ((long) source.ordinal() << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    private static Source sourceOf(long key) {
+        return Source.values()[(int) (key >>> 32)];
+    }
+}
@@ -4,122 +4,391 @@ import com.example.hospital.model.Doctor;
 import com.example.hospital.model.Patient;
 import com.example.hospital.model.Visit;
 import com.example.hospital.util.DBConnection;
+import com.example.hospital.util.DaoMetrics;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public class VisitDAO {
 
+    // SQL
+    private static final String INSERT_SQL = "INSERT INTO visits (visit_id, dateofvisit, symptoms, diagnosis, doctorID, patientID) "
+            + "VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_BY_ID_SQL = "SELECT * FROM visits WHERE visit_id = ?";
+    private static final String SELECT_WITH_PATIENT_BY_ID_SQL = "SELECT v.*, p.patient_id AS p_patient_id, p.firstname, p.surname, "
+            + "p.postcode, p.address, p.phone, p.email "
+            + "FROM visits v LEFT JOIN patients p ON p.patient_id = v.patientID "
+            + "WHERE v.visit_id = ?";
+    private static final String UPDATE_SQL = "UPDATE visits SET dateofvisit=?, symptoms=?, diagnosis=?, doctorID=?, patientID=? "
+            + "WHERE visit_id=?";
+    private static final String DELETE_SQL = "DELETE FROM visits WHERE visit_id = ?";
+    private static final String SELECT_ALL_SQL = "SELECT * FROM visits";
+    private static final String SELECT_PAGE_SQL = "SELECT * FROM visits WHERE visit_id > ? ORDER BY visit_id LIMIT ?";
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM visits";
+
+    // METRICS (see DaoMetrics)
+    private static final DaoMetrics.Operation INSERT_VISIT = DaoMetrics.operation("VisitDAO", "insertVisit");
+    private static final DaoMetrics.Operation GET_VISIT_BY_ID = DaoMetrics.operation("VisitDAO", "getVisitById");
+    private static final DaoMetrics.Operation GET_VISIT_WITH_PARTICIPANTS = DaoMetrics.operation("VisitDAO", "getVisitWithParticipants");
+    private static final DaoMetrics.Operation UPDATE_VISIT = DaoMetrics.operation("VisitDAO", "updateVisit");
+    private static final DaoMetrics.Operation DELETE_VISIT = DaoMetrics.operation("VisitDAO", "deleteVisit");
+    private static final DaoMetrics.Operation INSERT_VISITS = DaoMetrics.operation("VisitDAO", "insertVisits");
+    private static final DaoMetrics.Operation UPDATE_VISITS = DaoMetrics.operation("VisitDAO", "updateVisits");
+    private static final DaoMetrics.Operation DELETE_VISITS = DaoMetrics.operation("VisitDAO", "deleteVisits");
+    private static final DaoMetrics.Operation GET_ALL_VISITS = DaoMetrics.operation("VisitDAO", "getAllVisits");
+    private static final DaoMetrics.Operation GET_ALL_VISITS_WITH_PARTICIPANTS = DaoMetrics.operation("VisitDAO", "getAllVisitsWithParticipants");
+    private static final DaoMetrics.Operation LOAD_PARTICIPANTS = DaoMetrics.operation("VisitDAO", "loadParticipants");
+    private static final DaoMetrics.Operation STREAM_VISITS = DaoMetrics.operation("VisitDAO", "streamVisits");
+    private static final DaoMetrics.Operation GET_VISITS_PAGE = DaoMetrics.operation("VisitDAO", "getVisitsPage");
+    private static final DaoMetrics.Operation COUNT_VISITS = DaoMetrics.operation("VisitDAO", "countVisits");
+
     // CREATE
     public void insertVisit(Visit visit) {
-        String sql = "INSERT INTO visits (visit_id, date_of_visit, symptoms, diagnosis, doctor_id, patient_id) "
-                   + "VALUES (?, ?, ?, ?, ?, ?)";
+        long start = INSERT_VISIT.start();
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
 
-            stmt.setInt(1, visit.getVisitId());
-            stmt.setDate(2, Date.valueOf(visit.getDateOfVisit()));
-            stmt.setString(3, visit.getSymptoms());
-            stmt.setString(4, visit.getDiagnosis());
-            stmt.setInt(5, visit.getDoctor().getDoctorId());
-            stmt.setInt(6, visit.getPatient().getPatientId());
-            stmt.executeUpdate();
+            bindInsert(stmt, visit);
+            int rows = stmt.executeUpdate();
+            INSERT_VISIT.rows(rows);
+            if (rows > 0) {
+                TextSearch.visitsSaved(List.of(visit));
+            }
 
         } catch (SQLException e) {
+            INSERT_VISIT.error();
             e.printStackTrace();
+        } finally {
+            INSERT_VISIT.stop(start);
         }
     }
 
     // READ
+    /** The visit with id-only Doctor/Patient placeholders, like the list queries return. */
     public Visit getVisitById(int id) {
+        long start = GET_VISIT_BY_ID.start();
         Visit visit = null;
-        String sql = "SELECT * FROM visits WHERE visit_id = ?";
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(SELECT_BY_ID_SQL)) {
 
             stmt.setInt(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    // In a real system, you’d retrieve the Doctor and Patient from their DAOs
-                    Doctor doctorPlaceholder = new Doctor(rs.getInt("doctorid"), "", "", "", "");
-                    Patient patientPlaceholder = new Patient(rs.getInt("patientid"), "", "");
-
-                    visit = new Visit(
-                        rs.getInt("visit_id"),
-                        rs.getDate("dateofvisit").toLocalDate(),
-                        rs.getString("symptoms"),
-                        rs.getString("diagnosis"),
-                        doctorPlaceholder,
-                        patientPlaceholder
-                    );
+                    visit = mapRow(rs);
                 }
             }
         } catch (SQLException e) {
+            GET_VISIT_BY_ID.error();
             e.printStackTrace();
+        } finally {
+            GET_VISIT_BY_ID.stop(start);
         }
+        GET_VISIT_BY_ID.rows(visit == null ? 0 : 1);
         return visit;
     }
 
+    /**
+     * The visit with its real Doctor and Patient: the patient comes from the same query
+     * (LEFT JOIN), the doctor through DoctorDAO and its cache. A participant whose row no
+     * longer exists stays an id-only placeholder.
+     */
+    public Visit getVisitWithParticipants(int id) {
+        long start = GET_VISIT_WITH_PARTICIPANTS.start();
+        try {
+            Visit visit = null;
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(SELECT_WITH_PATIENT_BY_ID_SQL)) {
+
+                stmt.setInt(1, id);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        visit = mapRow(rs);
+                        rs.getInt("p_patient_id");
+                        if (!rs.wasNull()) {
+                            visit.setPatient(new Patient(
+                                rs.getInt("p_patient_id"),
+                                rs.getString("firstname"),
+                                rs.getString("surname"),
+                                rs.getString("postcode"),
+                                rs.getString("address"),
+                                rs.getString("phone"),
+                                rs.getString("email")
+                            ));
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                GET_VISIT_WITH_PARTICIPANTS.error();
+                e.printStackTrace();
+            }
+            if (visit != null) {
+                // after the connection is back: a cache miss borrows its own
+                Doctor doctor = new DoctorDAO().getDoctorById(visit.getDoctor().getDoctorId());
+                if (doctor != null) {
+                    visit.setDoctor(doctor);
+                }
+            }
+            GET_VISIT_WITH_PARTICIPANTS.rows(visit == null ? 0 : 1);
+            return visit;
+        } finally {
+            GET_VISIT_WITH_PARTICIPANTS.stop(start);
+        }
+    }
+
     // UPDATE
     public void updateVisit(Visit visit) {
-        String sql = "UPDATE visits SET date_of_visit=?, symptoms=?, diagnosis=?, doctor_id=?, patient_id=? "
-                   + "WHERE visit_id=?";
+        long start = UPDATE_VISIT.start();
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
 
-            stmt.setDate(1, Date.valueOf(visit.getDateOfVisit()));
-            stmt.setString(2, visit.getSymptoms());
-            stmt.setString(3, visit.getDiagnosis());
-            stmt.setInt(4, visit.getDoctor().getDoctorId());
-            stmt.setInt(5, visit.getPatient().getPatientId());
-            stmt.setInt(6, visit.getVisitId());
-            stmt.executeUpdate();
+            bindUpdate(stmt, visit);
+            int rows = stmt.executeUpdate();
+            UPDATE_VISIT.rows(rows);
+            if (rows > 0) {
+                TextSearch.visitsSaved(List.of(visit));
+            }
 
         } catch (SQLException e) {
+            UPDATE_VISIT.error();
             e.printStackTrace();
+        } finally {
+            UPDATE_VISIT.stop(start);
         }
     }
 
     // DELETE
     public void deleteVisit(int id) {
-        String sql = "DELETE FROM visits WHERE visit_id = ?";
+        long start = DELETE_VISIT.start();
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(DELETE_SQL)) {
 
             stmt.setInt(1, id);
-            stmt.executeUpdate();
+            int rows = stmt.executeUpdate();
+            DELETE_VISIT.rows(rows);
+            if (rows > 0) {
+                TextSearch.deleted(TextSearch.Source.VISIT, id);
+            }
         } catch (SQLException e) {
+            DELETE_VISIT.error();
             e.printStackTrace();
+        } finally {
+            DELETE_VISIT.stop(start);
         }
     }
 
+    // BULK
+    /**
+     * Bulk writes: one transaction per call, rows sent in JDBC batches.
+     * Visits need their doctor and patient set (only the ids are written).
+     */
+    public BatchResult insertVisits(Collection<? extends Visit> visits) {
+        BatchResult result = BulkWrite.run(INSERT_VISITS, visits, INSERT_SQL, VisitDAO::bindInsert);
+        if (result.isCommitted()) {
+            TextSearch.visitsSaved(visits);
+        }
+        return result;
+    }
+
+    public BatchResult updateVisits(Collection<? extends Visit> visits) {
+        BatchResult result = BulkWrite.run(UPDATE_VISITS, visits, UPDATE_SQL, VisitDAO::bindUpdate);
+        if (result.isCommitted()) {
+            TextSearch.visitsSaved(visits);
+        }
+        return result;
+    }
+
+    public BatchResult deleteVisits(int... ids) {
+        BatchResult result = BulkWrite.deleteIds(DELETE_VISITS, DELETE_SQL, ids);
+        if (result.isCommitted()) {
+            TextSearch.deleted(TextSearch.Source.VISIT, ids);
+        }
+        return result;
+    }
+
     // LIST ALL
     public List<Visit> getAllVisits() {
+        long start = GET_ALL_VISITS.start();
         List<Visit> visits = new ArrayList<>();
-        String sql = "SELECT * FROM visits";
         try (Connection conn = DBConnection.getConnection();
              Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+             ResultSet rs = stmt.executeQuery(SELECT_ALL_SQL)) {
 
             while (rs.next()) {
-                // Minimal placeholders; normally you'd fetch from DoctorDAO/PatientDAO
-                Doctor doctorPlaceholder = new Doctor(rs.getInt("doctorid"), "", "", "", "");
-                Patient patientPlaceholder = new Patient(rs.getInt("patientid"), "", "");
-
-                Visit visit = new Visit(
-                    rs.getInt("visit_id"),
-                    rs.getDate("dateofvisit").toLocalDate(),
-                    rs.getString("symptoms"),
-                    rs.getString("diagnosis"),
-                    doctorPlaceholder,
-                    patientPlaceholder
-                );
-                visits.add(visit);
+                visits.add(mapRow(rs));
             }
         } catch (SQLException e) {
+            GET_ALL_VISITS.error();
             e.printStackTrace();
+        } finally {
+            GET_ALL_VISITS.stop(start);
         }
+        GET_ALL_VISITS.rows(visits.size());
         return visits;
     }
+
+    /** Like getAllVisits, but with real Doctor and Patient objects (3 queries in total). */
+    public List<Visit> getAllVisitsWithParticipants() {
+        long start = GET_ALL_VISITS_WITH_PARTICIPANTS.start();
+        try {
+            List<Visit> visits = getAllVisits();
+            loadParticipants(visits);
+            GET_ALL_VISITS_WITH_PARTICIPANTS.rows(visits.size());
+            return visits;
+        } finally {
+            GET_ALL_VISITS_WITH_PARTICIPANTS.stop(start);
+        }
+    }
+
+    // ASSOCIATIONS
+    /**
+     * Replaces the id-only Doctor/Patient placeholders of the given visits with the real rows,
+     * using one IN (...) query for all patients and one for the doctors not in DoctorDAO's
+     * cache, instead of two queries per visit. Visits sharing a doctor or patient get the same instance.
+     * Placeholders whose row no longer exists are left as they are.
+     */
+    public void loadParticipants(List<Visit> visits) {
+        long start = LOAD_PARTICIPANTS.start();
+        try {
+            if (visits.isEmpty()) return;
+
+            Set<Integer> doctorIds = new HashSet<>();
+            Set<Integer> patientIds = new HashSet<>();
+            for (Visit v : visits) {
+                doctorIds.add(v.getDoctor().getDoctorId());
+                patientIds.add(v.getPatient().getPatientId());
+            }
+
+            Map<Integer, Doctor> doctors = new DoctorDAO().getDoctorsByIds(doctorIds);
+            Map<Integer, Patient> patients = new PatientDAO().getPatientsByIds(patientIds);
+
+            for (Visit v : visits) {
+                Doctor d = doctors.get(v.getDoctor().getDoctorId());
+                if (d != null) {
+                    v.setDoctor(d);
+                }
+                Patient p = patients.get(v.getPatient().getPatientId());
+                if (p != null) {
+                    v.setPatient(p);
+                }
+            }
+        } finally {
+            LOAD_PARTICIPANTS.stop(start);
+        }
+    }
+
+    // STREAM ALL
+    /**
+     * Streams all visits through a server-side cursor instead of building a list.
+     * The stream holds a pooled connection, so close it (try-with-resources) when done.
+     */
+    public Stream<Visit> streamVisits() {
+        try {
+            return streamVisitsOrThrow();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return Stream.empty();
+        }
+    }
+
+    /**
+     * Same as {@link #streamVisits()}, but a cursor that can't be opened is an exception
+     * rather than an empty stream, for callers that must not mistake it for an empty table.
+     */
+    Stream<Visit> streamVisitsOrThrow() throws SQLException {
+        return ResultStreams.open(SELECT_ALL_SQL, this::mapRow, STREAM_VISITS);
+    }
+
+    // PAGE (keyset): rows with visit_id > afterId, in key order
+    /**
+     * Returns up to pageSize rows whose visit_id is greater than afterId, ordered by visit_id.
+     * Pass Integer.MIN_VALUE for the first page, then the last id of the previous page.
+     */
+    public List<Visit> getVisitsPage(int afterId, int pageSize) {
+        long start = GET_VISITS_PAGE.start();
+        List<Visit> page = new ArrayList<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_PAGE_SQL)) {
+
+            stmt.setInt(1, afterId);
+            stmt.setInt(2, pageSize);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    page.add(mapRow(rs));
+                }
+            }
+        } catch (SQLException e) {
+            GET_VISITS_PAGE.error();
+            e.printStackTrace();
+        } finally {
+            GET_VISITS_PAGE.stop(start);
+        }
+        GET_VISITS_PAGE.rows(page.size());
+        return page;
+    }
+
+    // LISTING (sortable pages for the results table)
+    public SortedPageQuery listingQuery() {
+        return new SortedPageQuery("visits", "visit_id",
+                new String[]{"visit_id", "dateofvisit", "symptoms", "diagnosis", "doctorID", "patientID"},
+                new String[]{"Visit ID", "Date", "Symptoms", "Diagnosis", "Doctor ID", "Patient ID"});
+    }
+
+    // COUNT
+    public long countVisits() {
+        long start = COUNT_VISITS.start();
+        try (Connection conn = DBConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(COUNT_SQL)) {
+
+            if (rs.next()) {
+                return rs.getLong(1);
+            }
+        } catch (SQLException e) {
+            COUNT_VISITS.error();
+            e.printStackTrace();
+        } finally {
+            COUNT_VISITS.stop(start);
+        }
+        return 0;
+    }
+
+    /** Maps the current row of a list query to a Visit. */
+    Visit mapRow(ResultSet rs) throws SQLException {
+        // Minimal placeholders; normally you'd fetch from DoctorDAO/PatientDAO
+        Doctor doctorPlaceholder = new Doctor(rs.getInt("doctorid"), "", "", "", "");
+        Patient patientPlaceholder = new Patient(rs.getInt("patientid"), "", "");
+
+        return new Visit(
+            rs.getInt("visit_id"),
+            rs.getDate("dateofvisit").toLocalDate(),
+            rs.getString("symptoms"),
+            rs.getString("diagnosis"),
+            doctorPlaceholder,
+            patientPlaceholder
+        );
+    }
+
+    private static void bindInsert(PreparedStatement stmt, Visit visit) throws SQLException {
+        stmt.setInt(1, visit.getVisitId());
+        stmt.setDate(2, Date.valueOf(visit.getDateOfVisit()));
+        stmt.setString(3, visit.getSymptoms());
+        stmt.setString(4, visit.getDiagnosis());
+        stmt.setInt(5, visit.getDoctor().getDoctorId());
+        stmt.setInt(6, visit.getPatient().getPatientId());
+    }
+
+    private static void bindUpdate(PreparedStatement stmt, Visit visit) throws SQLException {
+        stmt.setDate(1, Date.valueOf(visit.getDateOfVisit()));
+        stmt.setString(2, visit.getSymptoms());
+        stmt.setString(3, visit.getDiagnosis());
+        stmt.setInt(4, visit.getDoctor().getDoctorId());
+        stmt.setInt(5, visit.getPatient().getPatientId());
+        stmt.setInt(6, visit.getVisitId());
+    }
 }
@@ -0,0 +1,53 @@
+package com.example.hospital.model;
+
+import java.time.LocalDate;
+
+/**
+ * One line of a patient's timeline: either a visit or a prescription, with its date.
+ */
+public class TimelineEntry {
+
+    public enum Kind { VISIT, PRESCRIPTION }
+
+    private final LocalDate date;
+    private final Visit visit;               // set for VISIT entries
+    private final Prescription prescription; // set for PRESCRIPTION entries
+
+    public TimelineEntry(Visit visit) {
+        this.date = visit.getDateOfVisit();
+        this.visit = visit;
+        this.prescription = null;
+    }
+
+    public TimelineEntry(Prescription prescription) {
+        this.date = prescription.getDateOfPrescribe();
+        this.visit = null;
+        this.prescription = prescription;
+    }
+
+    public Kind getKind() {
+        return visit != null ? Kind.VISIT : Kind.PRESCRIPTION;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    /** The visit, or null for a prescription entry. */
+    public Visit getVisit() {
+        return visit;
+    }
+
+    /** The prescription, or null for a visit entry. */
+    public Prescription getPrescription() {
+        return prescription;
+    }
+
+    @Override
+    public String toString() {
+        if (visit != null) {
+            return date + " Visit #" + visit.getVisitId() + ": " + visit.getDiagnosis();
+        }
+        return date + " Prescription #" + prescription.getPrescriptionId() + ": " + prescription.getDosage();
+    }
+}
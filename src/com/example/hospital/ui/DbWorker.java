@@ -0,0 +1,194 @@
+package com.example.hospital.ui;
+
+import com.example.hospital.util.QueryCancellation;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * Runs database work off the Swing event thread and hands the result back to it.
+ *
+ * 1) Each job runs on its own virtual thread, but at most hospital.ui.workerThreads
+ *    (default 4) of them at a time, so a burst of clicks can't take every pooled connection.
+ *    The others wait for a slot, and can be cancelled while they wait.
+ * 2) If it is still running after a moment, a progress dialog with the elapsed time and
+ *    a Cancel button pops up.
+ * 3) Cancel interrupts the worker and cancels the JDBC statement it is executing
+ *    (through {@link QueryCancellation}). The statement cancel runs on its own virtual
+ *    thread, because MariaDB sends it as KILL QUERY over a new connection.
+ * 4) onSuccess is called on the EDT; failures are shown in an error dialog and cancelled
+ *    tasks report nothing.
+ * 5) {@link #background} is the same without the dialogs, for loads the user didn't start
+ *    directly (e.g. table pages): they share the slots from 1) with everything else.
+ *
+ * All methods must be called on the EDT.
+ */
+public final class DbWorker {
+
+    private static final int PARALLELISM = Math.max(1, Integer.getInteger("hospital.ui.workerThreads", 4));
+    private static final int PROGRESS_DELAY_MILLIS = 300;
+
+    private static final ExecutorService EXECUTOR = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("db-worker-", 1).factory());
+    private static final Semaphore RUNNING = new Semaphore(PARALLELISM, true);
+
+    private DbWorker() {
+    }
+
+    /**
+     * Runs the work in the background with a cancellable progress dialog.
+     *
+     * @param description what is being done, e.g. "Removing Doctor 12"; shown in the
+     *                    progress dialog and in the error message if it fails
+     */
+    public static <T> Task run(Component parent, String description, Callable<T> work, Consumer<? super T> onSuccess) {
+        return run(parent, description, true, work, onSuccess);
+    }
+
+    public static <T> Task run(Component parent, String description, boolean cancellable,
+                               Callable<T> work, Consumer<? super T> onSuccess) {
+        Task task = new Task(parent, description, cancellable, null);
+        submit(task, work, onSuccess);
+        task.progressTimer.start();
+        return task;
+    }
+
+    /**
+     * Runs the work in the background with no progress dialog; failures go to onError
+     * (on the EDT) instead of an error dialog. The task can still be cancelled.
+     */
+    public static <T> Task background(String description, Callable<T> work, Consumer<? super T> onSuccess,
+                                      Consumer<Exception> onError) {
+        Task task = new Task(null, description, true, onError);
+        submit(task, work, onSuccess);
+        return task;
+    }
+
+    private static <T> void submit(Task task, Callable<T> work, Consumer<? super T> onSuccess) {
+        task.future = EXECUTOR.submit(() -> {
+            T result = null;
+            Exception error = null;
+            QueryCancellation.bind(task.token);
+            try {
+                RUNNING.acquire(); // interrupted here if cancelled before its turn
+                try {
+                    result = work.call();
+                } finally {
+                    RUNNING.release();
+                }
+            } catch (Exception e) {
+                error = e;
+            } finally {
+                QueryCancellation.unbind();
+            }
+            T finalResult = result;
+            Exception finalError = error;
+            SwingUtilities.invokeLater(() -> task.complete(finalResult, finalError, onSuccess));
+        });
+    }
+
+    /** A running background job; lets the caller cancel it. */
+    public static final class Task {
+        private final Component parent;
+        private final String description;
+        private final boolean cancellable;
+        private final Consumer<Exception> onError; // null: error dialog
+        private final QueryCancellation.Token token = new QueryCancellation.Token();
+        private final Timer progressTimer;
+        private final long startedAt = System.currentTimeMillis();
+        private Future<?> future;
+        private JDialog dialog;
+        private JLabel dialogLabel;
+        private boolean finished = false;
+
+        private Task(Component parent, String description, boolean cancellable, Consumer<Exception> onError) {
+            this.parent = parent;
+            this.description = description;
+            this.cancellable = cancellable;
+            this.onError = onError;
+            // first tick after a short delay, then once a second to update the elapsed time
+            this.progressTimer = new Timer(1000, e -> showProgress());
+            this.progressTimer.setInitialDelay(PROGRESS_DELAY_MILLIS);
+        }
+
+        public boolean isFinished() {
+            return finished;
+        }
+
+        public void cancel() {
+            if (finished || !cancellable) return;
+            Thread.ofVirtual().name("db-cancel").start(token::cancel); // opens a connection, keep it off the EDT
+            future.cancel(true);
+            finish();
+        }
+
+        private void showProgress() {
+            if (finished) return;
+            if (dialog == null) {
+                Window owner = parent == null ? null : SwingUtilities.getWindowAncestor(parent);
+                if (owner == null && parent instanceof Window) {
+                    owner = (Window) parent;
+                }
+                dialog = new JDialog(owner, "Please wait", Dialog.ModalityType.MODELESS);
+                dialog.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+
+                dialogLabel = new JLabel(description + "...");
+                JProgressBar bar = new JProgressBar();
+                bar.setIndeterminate(true);
+
+                JPanel panel = new JPanel(new BorderLayout(10, 10));
+                panel.setBorder(BorderFactory.createEmptyBorder(12, 12, 12, 12));
+                panel.add(dialogLabel, BorderLayout.NORTH);
+                panel.add(bar, BorderLayout.CENTER);
+                if (cancellable) {
+                    JButton cancelButton = new JButton("Cancel");
+                    cancelButton.addActionListener(e -> cancel());
+                    JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT, 0, 0));
+                    buttons.add(cancelButton);
+                    panel.add(buttons, BorderLayout.SOUTH);
+                }
+                dialog.setContentPane(panel);
+                dialog.pack();
+                dialog.setLocationRelativeTo(owner);
+                dialog.setVisible(true);
+            } else {
+                long seconds = (System.currentTimeMillis() - startedAt) / 1000;
+                dialogLabel.setText(description + "... (" + seconds + "s)");
+            }
+        }
+
+        private <T> void complete(T result, Exception error, Consumer<? super T> onSuccess) {
+            if (finished) return; // cancelled meanwhile
+            finish();
+            if (token.isCancelled()) return;
+            if (error != null && onError != null) {
+                onError.accept(error);
+                return;
+            }
+            if (error != null) {
+                Throwable cause = error instanceof ExecutionException && error.getCause() != null
+                        ? error.getCause() : error;
+                JOptionPane.showMessageDialog(parent,
+                        description + " failed: " + cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            onSuccess.accept(result);
+        }
+
+        private void finish() {
+            finished = true;
+            progressTimer.stop();
+            if (dialog != null) {
+                dialog.dispose();
+                dialog = null;
+            }
+        }
+    }
+}
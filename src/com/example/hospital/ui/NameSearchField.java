@@ -0,0 +1,233 @@
+package com.example.hospital.ui;
+
+import com.example.hospital.dao.NameLookup;
+import com.example.hospital.util.PrefixIndex;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+
+/**
+ * Search-as-you-type picker: a text field with the best {@link NameLookup} matches listed
+ * under it, so a patient, doctor or drug can be chosen by name instead of by ID.
+ *
+ * 1) The lookup runs once typing pauses for hospital.ui.searchDelayMillis (default 150 ms),
+ *    not on every keystroke.
+ * 2) It runs through {@link DbWorker}, so the EDT never waits, even for the first lookup,
+ *    which may still be loading the names. Results for text that has changed since are dropped.
+ * 3) While a lookup for the current text is still pending, the list is greyed out and
+ *    nothing counts as selected, so OK/Enter can't pick a row the old text matched.
+ * 4) Up/Down move through the list without leaving the field; a number typed in the field
+ *    is taken as the ID itself.
+ *
+ * Use {@link #pick} or {@link #pickId} for a modal dialog around it.
+ */
+public class NameSearchField extends JPanel {
+
+    /** What {@link #pick} returns: the chosen ID, and its label unless the ID was typed in. */
+    public static final class Choice {
+        private final int id;
+        private final String label;
+
+        Choice(int id, String label) {
+            this.id = id;
+            this.label = label;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        /** The matched row's label, or null if the ID was typed. */
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private static final int DELAY_MILLIS = Integer.getInteger("hospital.ui.searchDelayMillis", 150);
+    private static final int MAX_MATCHES = 15;
+
+    private final NameLookup.Kind kind;
+    private final JTextField field = new JTextField(28);
+    private final DefaultListModel<PrefixIndex.Match> matches = new DefaultListModel<>();
+    private final JList<PrefixIndex.Match> list = new JList<>(matches);
+    private final JLabel status = new JLabel(" ");
+    private final Timer debounce;
+    private int generation = 0; // bumped on every edit, so late results can be recognised
+    private int shown = 0;      // the generation the list currently shows
+
+    public NameSearchField(NameLookup.Kind kind) {
+        super(new BorderLayout(0, 6));
+        this.kind = kind;
+
+        debounce = new Timer(DELAY_MILLIS, e -> search());
+        debounce.setRepeats(false);
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                textChanged();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                textChanged();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                textChanged();
+            }
+        });
+        field.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                int size = matches.getSize();
+                if (size == 0) return;
+                if (e.getKeyCode() == KeyEvent.VK_DOWN) {
+                    list.setSelectedIndex(Math.min(size - 1, list.getSelectedIndex() + 1));
+                    list.ensureIndexIsVisible(list.getSelectedIndex());
+                    e.consume();
+                } else if (e.getKeyCode() == KeyEvent.VK_UP) {
+                    list.setSelectedIndex(Math.max(0, list.getSelectedIndex() - 1));
+                    list.ensureIndexIsVisible(list.getSelectedIndex());
+                    e.consume();
+                }
+            }
+        });
+
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setVisibleRowCount(8);
+        list.setFocusable(false);
+
+        add(field, BorderLayout.NORTH);
+        add(new JScrollPane(list), BorderLayout.CENTER);
+        add(status, BorderLayout.SOUTH);
+    }
+
+    public JTextField getTextField() {
+        return field;
+    }
+
+    /** Calls action when a match is double-clicked. */
+    public void onDoubleClick(Runnable action) {
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2 && list.getSelectedIndex() >= 0) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    /** The ID typed in the field, else the selected (or first) match's, else null. */
+    public Integer getSelectedId() {
+        Choice choice = getChoice();
+        return choice == null ? null : choice.getId();
+    }
+
+    /**
+     * The ID typed in the field, else the selected (or first) match; null if there is neither,
+     * or if the list still shows matches for an earlier text.
+     */
+    public Choice getChoice() {
+        String text = field.getText().trim();
+        if (text.matches("\\d{1,9}")) {
+            return new Choice(Integer.parseInt(text), null);
+        }
+        if (shown != generation) return null; // lookup for the current text not back yet
+        PrefixIndex.Match match = list.getSelectedValue();
+        if (match == null && !matches.isEmpty()) {
+            match = matches.get(0);
+        }
+        return match == null ? null : new Choice(match.getId(), match.getLabel());
+    }
+
+    private void textChanged() {
+        generation++;
+        list.setEnabled(false); // stale until search() catches up
+        status.setText("Searching...");
+        debounce.restart();
+    }
+
+    private void search() {
+        String query = field.getText().trim();
+        int asked = generation;
+        if (query.isEmpty() || query.matches("\\d+")) {
+            matches.clear();
+            shown = asked;
+            list.setEnabled(true);
+            status.setText(query.isEmpty() ? " " : "ID " + query);
+            return;
+        }
+        DbWorker.run(this, "Looking up names", false,
+                () -> NameLookup.find(kind, query, MAX_MATCHES),
+                found -> show(asked, found));
+    }
+
+    private void show(int asked, List<PrefixIndex.Match> found) {
+        if (asked != generation) return; // the text changed while this ran
+        shown = asked;
+        list.setEnabled(true);
+        matches.clear();
+        for (PrefixIndex.Match m : found) {
+            matches.addElement(m);
+        }
+        if (!found.isEmpty()) {
+            list.setSelectedIndex(0);
+        }
+        status.setText(found.isEmpty() ? "No matches"
+                : found.get(0).isFuzzy() ? "No exact matches, showing close ones" : " ");
+    }
+
+    /**
+     * Modal dialog to choose a row by name (or type its ID); returns the ID, or null if cancelled.
+     */
+    public static Integer pickId(Component parent, String title, NameLookup.Kind kind) {
+        Choice choice = pick(parent, title, kind);
+        return choice == null ? null : choice.getId();
+    }
+
+    /** Same as {@link #pickId}, but also returns the label of the chosen row. */
+    public static Choice pick(Component parent, String title, NameLookup.Kind kind) {
+        Window owner = parent instanceof Window ? (Window) parent : SwingUtilities.getWindowAncestor(parent);
+        JDialog dialog = new JDialog(owner, title, Dialog.ModalityType.APPLICATION_MODAL);
+        NameSearchField search = new NameSearchField(kind);
+        Choice[] chosen = {null};
+
+        Runnable accept = () -> {
+            chosen[0] = search.getChoice();
+            if (chosen[0] != null) dialog.dispose();
+        };
+        search.onDoubleClick(accept);
+        search.getTextField().addActionListener(e -> accept.run()); // Enter
+
+        JButton ok = new JButton("OK");
+        ok.addActionListener(e -> accept.run());
+        JButton cancel = new JButton("Cancel");
+        cancel.addActionListener(e -> dialog.dispose());
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT, 6, 0));
+        buttons.add(ok);
+        buttons.add(cancel);
+
+        JPanel panel = new JPanel(new BorderLayout(0, 8));
+        panel.setBorder(BorderFactory.createEmptyBorder(12, 12, 12, 12));
+        panel.add(new JLabel("Type a name (or the ID):"), BorderLayout.NORTH);
+        panel.add(search, BorderLayout.CENTER);
+        panel.add(buttons, BorderLayout.SOUTH);
+
+        dialog.getRootPane().registerKeyboardAction(e -> dialog.dispose(),
+                KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), JComponent.WHEN_IN_FOCUSED_WINDOW);
+        dialog.setContentPane(panel);
+        dialog.pack();
+        dialog.setLocationRelativeTo(owner);
+        dialog.setVisible(true); // blocks until disposed
+        return chosen[0];
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.hospital.ui;
+
+import com.example.hospital.dao.SortedPageQuery;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A TableModel that loads rows lazily, one page at a time, as the JTable asks for them.
+ *
+ * - Only the pages the table actually paints are fetched, in the background through
+ *   {@link DbWorker#background} (so they count against the same worker limit as every other
+ *   database job); until a page arrives its cells show a placeholder. Fetches that a sort or
+ *   refresh made pointless are cancelled.
+ * - At most maxCachedPages pages are kept (least recently used ones are dropped).
+ * - Sorting is done by the database: {@link #toggleSort(int)} clears the cache and re-reads
+ *   pages in the new order.
+ * - When the page before the requested one is known, the next page is read by keyset,
+ *   so scrolling down stays fast however large the table is. Jumps use OFFSET.
+ *
+ * All methods must be called on the EDT.
+ */
+public class PagedTableModel extends AbstractTableModel {
+
+    private static final String LOADING = "...";
+
+    private final SortedPageQuery query;
+    private final int pageSize;
+    private final Map<Integer, List<Object[]>> pages;
+    private final Map<Integer, DbWorker.Task> loading = new HashMap<>();
+    // last row of each page seen so far, for keyset reads of the following page
+    private final Map<Integer, Object[]> pageEnds = new HashMap<>();
+
+    private int rowCount = 0;
+    private int sortColumn = -1; // -1 = key order
+    private boolean ascending = true;
+    private int generation = 0;  // bumped on sort/refresh so late results are dropped
+    private Consumer<Exception> errorHandler = Exception::printStackTrace;
+    private DbWorker.Task counting;
+
+    public PagedTableModel(SortedPageQuery query, int pageSize, int maxCachedPages) {
+        this.query = query;
+        this.pageSize = pageSize;
+        this.pages = new LinkedHashMap<Integer, List<Object[]>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<Object[]>> eldest) {
+                return size() > maxCachedPages;
+            }
+        };
+    }
+
+    public void setErrorHandler(Consumer<Exception> errorHandler) {
+        this.errorHandler = errorHandler;
+    }
+
+    /** (Re)loads the row count in the background and drops all cached pages. */
+    public void refresh() {
+        int gen = ++generation;
+        pages.clear();
+        pageEnds.clear();
+        cancelLoads();
+        if (counting != null) {
+            counting.cancel();
+        }
+        counting = DbWorker.background("Counting rows", query::count, count -> {
+            if (gen != generation) return;
+            rowCount = (int) Math.min(Integer.MAX_VALUE, count);
+            fireTableDataChanged();
+        }, e -> {
+            if (gen == generation) errorHandler.accept(e);
+        });
+    }
+
+    /** Sorts by the given column; clicking the same column again flips the direction. */
+    public void toggleSort(int column) {
+        if (column == sortColumn) {
+            ascending = !ascending;
+        } else {
+            sortColumn = column;
+            ascending = true;
+        }
+        generation++;
+        pages.clear();
+        pageEnds.clear();
+        cancelLoads();
+        fireTableStructureChanged(); // column headers show the sort marker
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return query.getColumnCount();
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        String label = query.getLabel(column);
+        if (column == sortColumn) {
+            label += ascending ? " \u25B2" : " \u25BC";
+        }
+        return label;
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        int page = rowIndex / pageSize;
+        List<Object[]> rows = pages.get(page);
+        if (rows == null) {
+            requestPage(page);
+            return LOADING;
+        }
+        int i = rowIndex % pageSize;
+        return i < rows.size() ? rows.get(i)[columnIndex] : null;
+    }
+
+    public boolean isLoading() {
+        return !loading.isEmpty();
+    }
+
+    private void cancelLoads() {
+        loading.values().forEach(DbWorker.Task::cancel);
+        loading.clear();
+    }
+
+    private void requestPage(int page) {
+        if (loading.containsKey(page)) {
+            return;
+        }
+        int gen = generation;
+        int sortCol = sortColumn;
+        boolean asc = ascending;
+        Object[] after = page > 0 ? pageEnds.get(page - 1) : null;
+        long offset = (long) page * pageSize;
+
+        loading.put(page, DbWorker.background("Loading page " + (page + 1),
+                () -> query.fetchPage(sortCol, asc, after, offset, pageSize),
+                rows -> {
+                    if (gen != generation) return;
+                    loading.remove(page);
+                    pages.put(page, rows);
+                    if (!rows.isEmpty()) {
+                        pageEnds.put(page, rows.get(rows.size() - 1));
+                    }
+                    int first = page * pageSize;
+                    int last = Math.min(rowCount, first + pageSize) - 1;
+                    if (last >= first) {
+                        fireTableRowsUpdated(first, last);
+                    }
+                }, e -> {
+                    if (gen != generation) return;
+                    loading.remove(page);
+                    errorHandler.accept(e);
+                }));
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.hospital.ui;
+
+import com.example.hospital.dao.SortedPageQuery;
+
+import javax.swing.*;
+import javax.swing.event.TableModelEvent;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+
+/**
+ * "Show All" window: a JTable over a {@link PagedTableModel}, so it opens immediately and
+ * only loads the rows being looked at. Clicking a column header sorts by that column
+ * on the server (click again to reverse).
+ */
+public class ResultsWindow extends JDialog {
+
+    private static final int PAGE_SIZE = 200;
+    private static final int MAX_CACHED_PAGES = 20;
+
+    private final PagedTableModel model;
+    private final JLabel status = new JLabel(" ");
+
+    public ResultsWindow(Frame owner, String title, SortedPageQuery query) {
+        super(owner, title, false);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+
+        model = new PagedTableModel(query, PAGE_SIZE, MAX_CACHED_PAGES);
+        model.setErrorHandler(e -> JOptionPane.showMessageDialog(this,
+                "Could not load rows: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE));
+
+        JTable table = new JTable(model);
+        table.setFillsViewportHeight(true);
+        table.getTableHeader().setReorderingAllowed(false);
+        table.getTableHeader().setToolTipText("Click to sort");
+        table.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int viewColumn = table.columnAtPoint(e.getPoint());
+                if (viewColumn >= 0) {
+                    model.toggleSort(table.convertColumnIndexToModel(viewColumn));
+                }
+            }
+        });
+        model.addTableModelListener(e -> {
+            // whole-table changes only, not the per-page updates while scrolling
+            if (e.getFirstRow() == TableModelEvent.HEADER_ROW || e.getLastRow() == Integer.MAX_VALUE) {
+                status.setText(model.getRowCount() + " rows");
+            }
+        });
+
+        setLayout(new BorderLayout());
+        add(new JScrollPane(table), BorderLayout.CENTER);
+        add(status, BorderLayout.SOUTH);
+        setSize(800, 500);
+        setLocationRelativeTo(owner);
+
+        status.setText("Counting rows...");
+        model.refresh();
+    }
+}
@@ -0,0 +1,437 @@
+package com.example.hospital.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A small bounded JDBC connection pool used behind {@link DBConnection}.
+ *
+ * Borrowed connections are handed out as proxies: calling close() on them returns the
+ * physical connection to the pool instead of closing it, so the DAOs keep their usual
+ * try-with-resources code.
+ *
+ * Features:
+ * 1) min/max size (min is opened eagerly, max bounds concurrently borrowed connections)
+ * 2) acquire timeout (SQLTimeoutException when no connection frees up in time)
+ * 3) idle eviction down to min size
+ * 4) validation on borrow via Connection.isValid
+ * 5) leak detection for connections held longer than a threshold
+ * 6) counters for acquire wait time, timeouts, creations, evictions and leaks
+ * 7) statements are registered with the thread's {@link QueryCancellation} token, if any
+ * 8) a per-connection {@link StatementCache}, so repeated prepareStatement(sql) calls reuse
+ *    the statement prepared the first time (and, with server-side prepare, its server handle)
+ * 9) statements are timed by {@link SqlTrace} (Flight Recorder events, slow-query log)
+ */
+public class ConnectionPool {
+
+    private final String url;
+    private final String user;
+    private final String pass;
+    private final Config config;
+
+    // Most recently returned connections sit at the head, so hot connections get reused first
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final Semaphore permits;
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean shutdown = false;
+
+    // counters
+    private final AtomicLong acquireCount = new AtomicLong();
+    private final AtomicLong acquireWaitNanos = new AtomicLong();
+    private final AtomicLong maxAcquireWaitNanos = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+    private final AtomicLong stmtCacheHits = new AtomicLong();
+    private final AtomicLong stmtCacheMisses = new AtomicLong();
+    private final AtomicLong stmtCacheEvictions = new AtomicLong();
+
+    public ConnectionPool(String url, String user, String pass, Config config) throws SQLException {
+        this.url = url;
+        this.user = user;
+        this.pass = pass;
+        this.config = config;
+        this.permits = new Semaphore(config.maxSize, true);
+
+        // Pre-open the minimum number of connections
+        for (int i = 0; i < config.minSize; i++) {
+            idle.offerLast(newPhysical());
+        }
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "hospital-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, Math.min(config.idleTimeoutMillis, config.leakThresholdMillis) / 2);
+        housekeeper.scheduleAtFixedRate(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection, waiting at most the configured acquire timeout.
+     * The returned connection must be closed to give it back to the pool.
+     */
+    public Connection borrow() throws SQLException {
+        if (shutdown) {
+            throw new SQLException("Connection pool is shut down.");
+        }
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(config.acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection.", e);
+        }
+        if (!acquired) {
+            timeoutCount.incrementAndGet();
+            throw new SQLTimeoutException("Timed out after " + config.acquireTimeoutMillis
+                    + " ms waiting for a connection (max pool size " + config.maxSize + ").");
+        }
+
+        PooledConnection pc;
+        try {
+            pc = takeValidIdle();
+            if (pc == null) {
+                pc = newPhysical();
+            }
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+
+        long waited = System.nanoTime() - start;
+        acquireCount.incrementAndGet();
+        acquireWaitNanos.addAndGet(waited);
+        maxAcquireWaitNanos.accumulateAndGet(waited, Math::max);
+        DaoMetrics.connectionWaited(waited);
+        pc.borrowWaitNanos = waited;
+
+        pc.borrowedAt = System.currentTimeMillis();
+        pc.leakReported = false;
+        pc.borrowSite = config.leakThresholdMillis > 0 ? new Exception("Connection borrowed here") : null;
+        borrowed.add(pc);
+        return pc.newHandle();
+    }
+
+    /** Polls idle connections until a valid one is found, closing the broken ones. */
+    private PooledConnection takeValidIdle() {
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null) {
+            if (isUsable(pc)) {
+                return pc;
+            }
+            validationFailures.incrementAndGet();
+            closeQuietly(pc);
+        }
+        return null;
+    }
+
+    private boolean isUsable(PooledConnection pc) {
+        try {
+            return !pc.physical.isClosed() && pc.physical.isValid(config.validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledConnection newPhysical() throws SQLException {
+        Connection c = DriverManager.getConnection(url, user, pass);
+        createdCount.incrementAndGet();
+        return new PooledConnection(c);
+    }
+
+    /** Called when a borrower closes its handle. */
+    private void giveBack(PooledConnection pc) {
+        borrowed.remove(pc);
+        pc.lastUsed = System.currentTimeMillis();
+        pc.borrowSite = null;
+        try {
+            if (shutdown || pc.physical.isClosed()) {
+                closeQuietly(pc);
+            } else {
+                // Reset whatever the borrower may have changed
+                if (!pc.physical.getAutoCommit()) {
+                    pc.physical.rollback();
+                    pc.physical.setAutoCommit(true);
+                }
+                pc.physical.clearWarnings();
+                if (pc.statements != null) {
+                    pc.statements.dropLeased();
+                }
+                idle.offerFirst(pc);
+            }
+        } catch (SQLException e) {
+            closeQuietly(pc);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+
+        // 1) Evict idle connections above min size that have not been used for a while
+        if (config.idleTimeoutMillis > 0) {
+            Iterator<PooledConnection> it = idle.descendingIterator(); // oldest first
+            while (it.hasNext() && idle.size() > config.minSize) {
+                PooledConnection pc = it.next();
+                if (now - pc.lastUsed > config.idleTimeoutMillis && idle.remove(pc)) {
+                    evictedCount.incrementAndGet();
+                    closeQuietly(pc);
+                }
+            }
+        }
+
+        // 2) Report connections held for too long
+        if (config.leakThresholdMillis > 0) {
+            for (PooledConnection pc : borrowed) {
+                if (!pc.leakReported && now - pc.borrowedAt > config.leakThresholdMillis) {
+                    pc.leakReported = true;
+                    leakCount.incrementAndGet();
+                    System.err.println("Possible connection leak: connection held for "
+                            + (now - pc.borrowedAt) + " ms");
+                    Exception site = pc.borrowSite;
+                    if (site != null) {
+                        site.printStackTrace();
+                    }
+                }
+            }
+        }
+    }
+
+    /** Closes all idle connections and stops the housekeeper. Borrowed ones are closed when returned. */
+    public void shutdown() {
+        shutdown = true;
+        housekeeper.shutdownNow();
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null) {
+            closeQuietly(pc);
+        }
+    }
+
+    private static void closeQuietly(PooledConnection pc) {
+        try {
+            pc.physical.close();
+        } catch (SQLException ignored) {
+            // nothing useful to do here
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(idle.size(), borrowed.size(), acquireCount.get(), acquireWaitNanos.get(),
+                maxAcquireWaitNanos.get(), timeoutCount.get(), createdCount.get(), evictedCount.get(),
+                validationFailures.get(), leakCount.get(),
+                stmtCacheHits.get(), stmtCacheMisses.get(), stmtCacheEvictions.get());
+    }
+
+    public Config getConfig() {
+        return config;
+    }
+
+    // -----------------------------------------------------------------------
+    // Pooled connection + the proxy handle given out to callers
+    // -----------------------------------------------------------------------
+    private final class PooledConnection {
+        final Connection physical;
+        volatile long lastUsed = System.currentTimeMillis();
+        volatile long borrowedAt;
+        volatile boolean leakReported;
+        volatile Exception borrowSite;
+        volatile long borrowWaitNanos;
+        final StatementCache statements; // null when disabled
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statements = config.statementCacheSize > 0
+                    ? new StatementCache(physical, config.statementCacheSize,
+                    stmtCacheHits, stmtCacheMisses, stmtCacheEvictions)
+                    : null;
+        }
+
+        Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Handle(this));
+        }
+    }
+
+    private final class Handle implements InvocationHandler {
+        private final PooledConnection pc;
+        private volatile boolean closed = false;
+
+        Handle(PooledConnection pc) {
+            this.pc = pc;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        giveBack(pc);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || pc.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pc.physical + "]";
+                case "prepareStatement":
+                    if (!closed && pc.statements != null && args.length == 1) {
+                        String sql = (String) args[0];
+                        Statement cached = SqlTrace.wrap(pc.statements.prepare(sql, (Connection) proxy),
+                                PreparedStatement.class, sql, pc.borrowWaitNanos);
+                        QueryCancellation.register(cached);
+                        return cached;
+                    }
+                    return invokePhysical(method, args);
+                default:
+                    return invokePhysical(method, args);
+            }
+        }
+
+        private Object invokePhysical(Method method, Object[] args) throws Throwable {
+            if (closed) {
+                throw new SQLException("Connection already returned to the pool.");
+            }
+            Object result;
+            try {
+                result = method.invoke(pc.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof Statement) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                result = SqlTrace.wrap((Statement) result, method.getReturnType(), sql, pc.borrowWaitNanos);
+                QueryCancellation.register((Statement) result); // lets the GUI cancel it
+            }
+            return result;
+        }
+    }
+
+    // -----------------------------------------------------------------------
+    // Configuration + statistics
+    // -----------------------------------------------------------------------
+
+    /**
+     * Pool settings. {@link #fromSystemProperties()} reads "hospital.pool.*" properties,
+     * e.g. -Dhospital.pool.maxSize=20, falling back to the defaults below.
+     */
+    public static class Config {
+        public final int minSize;
+        public final int maxSize;
+        public final long acquireTimeoutMillis;
+        public final long idleTimeoutMillis;
+        public final int validationTimeoutSeconds;
+        public final long leakThresholdMillis; // 0 disables leak detection
+        public final int statementCacheSize;   // per connection, 0 disables the cache
+
+        public Config(int minSize, int maxSize, long acquireTimeoutMillis, long idleTimeoutMillis,
+                      int validationTimeoutSeconds, long leakThresholdMillis, int statementCacheSize) {
+            if (maxSize < 1 || minSize < 0 || minSize > maxSize) {
+                throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+            }
+            this.minSize = minSize;
+            this.maxSize = maxSize;
+            this.acquireTimeoutMillis = acquireTimeoutMillis;
+            this.idleTimeoutMillis = idleTimeoutMillis;
+            this.validationTimeoutSeconds = validationTimeoutSeconds;
+            this.leakThresholdMillis = leakThresholdMillis;
+            this.statementCacheSize = statementCacheSize;
+        }
+
+        public static Config fromSystemProperties() {
+            return new Config(
+                    Integer.getInteger("hospital.pool.minSize", 2),
+                    Integer.getInteger("hospital.pool.maxSize", 10),
+                    Long.getLong("hospital.pool.acquireTimeoutMillis", 30_000L),
+                    Long.getLong("hospital.pool.idleTimeoutMillis", 600_000L),
+                    Integer.getInteger("hospital.pool.validationTimeoutSeconds", 2),
+                    Long.getLong("hospital.pool.leakThresholdMillis", 60_000L),
+                    Integer.getInteger("hospital.pool.statementCacheSize", 50)
+            );
+        }
+    }
+
+    /** Point-in-time snapshot of the pool counters. */
+    public static class Stats {
+        public final int idle;
+        public final int borrowed;
+        public final long acquireCount;
+        public final long totalAcquireWaitNanos;
+        public final long maxAcquireWaitNanos;
+        public final long timeouts;
+        public final long created;
+        public final long evicted;
+        public final long validationFailures;
+        public final long leaks;
+        public final long statementCacheHits;
+        public final long statementCacheMisses;
+        public final long statementCacheEvictions;
+
+        Stats(int idle, int borrowed, long acquireCount, long totalAcquireWaitNanos, long maxAcquireWaitNanos,
+              long timeouts, long created, long evicted, long validationFailures, long leaks,
+              long statementCacheHits, long statementCacheMisses, long statementCacheEvictions) {
+            this.idle = idle;
+            this.borrowed = borrowed;
+            this.acquireCount = acquireCount;
+            this.totalAcquireWaitNanos = totalAcquireWaitNanos;
+            this.maxAcquireWaitNanos = maxAcquireWaitNanos;
+            this.timeouts = timeouts;
+            this.created = created;
+            this.evicted = evicted;
+            this.validationFailures = validationFailures;
+            this.leaks = leaks;
+            this.statementCacheHits = statementCacheHits;
+            this.statementCacheMisses = statementCacheMisses;
+            this.statementCacheEvictions = statementCacheEvictions;
+        }
+
+        public double averageAcquireWaitMillis() {
+            return acquireCount == 0 ? 0.0 : totalAcquireWaitNanos / 1_000_000.0 / acquireCount;
+        }
+
+        public double statementCacheHitRate() {
+            long lookups = statementCacheHits + statementCacheMisses;
+            return lookups == 0 ? 0.0 : (double) statementCacheHits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return "idle=" + idle + ", borrowed=" + borrowed + ", acquires=" + acquireCount
+                    + ", avgWaitMs=" + String.format("%.3f", averageAcquireWaitMillis())
+                    + ", maxWaitMs=" + String.format("%.3f", maxAcquireWaitNanos / 1_000_000.0)
+                    + ", timeouts=" + timeouts + ", created=" + created + ", evicted=" + evicted
+                    + ", validationFailures=" + validationFailures + ", leaks=" + leaks
+                    + ", stmtCacheHits=" + statementCacheHits + ", stmtCacheMisses=" + statementCacheMisses
+                    + String.format(" (%.1f%% hit)", statementCacheHitRate() * 100)
+                    + ", stmtCacheEvictions=" + statementCacheEvictions;
+        }
+    }
+}
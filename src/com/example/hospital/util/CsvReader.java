@@ -0,0 +1,296 @@
+package com.example.hospital.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+
+/**
+ * A streaming, quote-aware (RFC 4180) CSV reader.
+ *
+ * Usage:
+ * <pre>
+ *   try (CsvReader csv = new CsvReader(in, StandardCharsets.UTF_8)) {
+ *       csv.next(); // header
+ *       while (csv.next()) {
+ *           int id = csv.getInt(0, 0);
+ *           String name = csv.getString(1);
+ *       }
+ *   }
+ * </pre>
+ *
+ * - Fields may be quoted; quoted fields can contain commas, newlines and doubled quotes ("").
+ * - Input is read through one reusable char buffer and each record is unescaped into a second
+ *   reusable buffer, so reading a record allocates nothing.
+ * - {@link #field(int)} returns a CharSequence view into that buffer which is only valid until
+ *   the next call to {@link #next()}. Use {@link #getString(int)} to keep a value.
+ * - Both LF and CRLF line endings are accepted.
+ */
+public class CsvReader implements Closeable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final Reader in;
+    private final char[] buf;
+    private int pos = 0;
+    private int limit = 0;
+    private boolean eof = false;
+
+    // current record: unescaped chars + field boundaries
+    private char[] rec = new char[256];
+    private int recLen = 0;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private int fieldCount = 0;
+    private FieldView[] viewCache = new FieldView[0];
+    private long recordNumber = 0;
+
+    public CsvReader(Reader in) {
+        this(in, DEFAULT_BUFFER_SIZE);
+    }
+
+    public CsvReader(Reader in, int bufferSize) {
+        this.in = in;
+        this.buf = new char[bufferSize];
+    }
+
+    public CsvReader(InputStream in, Charset charset) {
+        this(new InputStreamReader(in, charset));
+    }
+
+    /**
+     * Advances to the next record.
+     *
+     * @return false at end of input
+     */
+    public boolean next() throws IOException {
+        recLen = 0;
+        fieldCount = 0;
+        if (!fill()) {
+            return false;
+        }
+
+        int fieldStart = 0;
+        boolean inQuotes = false;
+        boolean quotedField = false;
+        while (true) {
+            if (pos >= limit && !fill()) {
+                // EOF ends the last record (even inside an unterminated quote)
+                endField(fieldStart, quotedField);
+                break;
+            }
+            char c = buf[pos++];
+            if (inQuotes) {
+                if (c == '"') {
+                    if (pos >= limit && !fill()) {
+                        inQuotes = false;
+                        continue;
+                    }
+                    if (buf[pos] == '"') {
+                        append('"'); // escaped quote
+                        pos++;
+                    } else {
+                        inQuotes = false;
+                    }
+                } else {
+                    append(c);
+                }
+            } else if (c == ',') {
+                endField(fieldStart, quotedField);
+                fieldStart = recLen;
+                quotedField = false;
+            } else if (c == '\n') {
+                endField(fieldStart, quotedField);
+                break;
+            } else if (c == '\r') {
+                // CRLF (or a lone CR) ends the record
+                if ((pos < limit || fill()) && buf[pos] == '\n') {
+                    pos++;
+                }
+                endField(fieldStart, quotedField);
+                break;
+            } else if (c == '"' && isBlank(fieldStart, recLen)) {
+                // opening quote (leading whitespace before it is dropped)
+                recLen = fieldStart;
+                inQuotes = true;
+                quotedField = true;
+            } else {
+                append(c);
+            }
+        }
+        recordNumber++;
+        return true;
+    }
+
+    private boolean fill() throws IOException {
+        if (pos < limit) {
+            return true;
+        }
+        if (eof) {
+            return false;
+        }
+        int n;
+        do {
+            n = in.read(buf, 0, buf.length);
+        } while (n == 0);
+        if (n < 0) {
+            eof = true;
+            return false;
+        }
+        pos = 0;
+        limit = n;
+        return true;
+    }
+
+    private void append(char c) {
+        if (recLen == rec.length) {
+            char[] bigger = new char[rec.length * 2];
+            System.arraycopy(rec, 0, bigger, 0, recLen);
+            rec = bigger;
+        }
+        rec[recLen++] = c;
+    }
+
+    private void endField(int start, boolean quoted) {
+        if (fieldCount == starts.length) {
+            int[] s = new int[starts.length * 2];
+            int[] e = new int[ends.length * 2];
+            System.arraycopy(starts, 0, s, 0, fieldCount);
+            System.arraycopy(ends, 0, e, 0, fieldCount);
+            starts = s;
+            ends = e;
+        }
+        int end = recLen;
+        if (!quoted) {
+            // unquoted fields are trimmed, like the old String.trim() calls
+            while (start < end && rec[start] <= ' ') start++;
+            while (end > start && rec[end - 1] <= ' ') end--;
+        }
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        fieldCount++;
+    }
+
+    private boolean isBlank(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (rec[i] > ' ') return false;
+        }
+        return true;
+    }
+
+    /** Number of fields in the current record. A blank line has one empty field. */
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    /** True if the current record is an empty or whitespace-only line. */
+    public boolean isBlankRecord() {
+        return fieldCount == 1 && starts[0] == ends[0];
+    }
+
+    /** 1-based number of the current record (the header is record 1). */
+    public long recordNumber() {
+        return recordNumber;
+    }
+
+    /** A view of field i, valid until the next call to {@link #next()}. */
+    public CharSequence field(int i) {
+        checkIndex(i);
+        if (viewCache.length < fieldCount) {
+            FieldView[] bigger = new FieldView[Math.max(fieldCount, viewCache.length * 2)];
+            System.arraycopy(viewCache, 0, bigger, 0, viewCache.length);
+            for (int k = viewCache.length; k < bigger.length; k++) {
+                bigger[k] = new FieldView();
+            }
+            viewCache = bigger;
+        }
+        FieldView v = viewCache[i];
+        v.start = starts[i];
+        v.end = ends[i];
+        return v;
+    }
+
+    public String getString(int i) {
+        checkIndex(i);
+        return new String(rec, starts[i], ends[i] - starts[i]);
+    }
+
+    /**
+     * Parses field i as a decimal int without allocating.
+     * Returns defaultValue if the field is empty, not a number or out of int range.
+     */
+    public int getInt(int i, int defaultValue) {
+        checkIndex(i);
+        int p = starts[i];
+        int end = ends[i];
+        if (p == end) return defaultValue;
+        boolean negative = false;
+        if (rec[p] == '-' || rec[p] == '+') {
+            negative = rec[p] == '-';
+            p++;
+            if (p == end) return defaultValue;
+        }
+        long value = 0;
+        for (; p < end; p++) {
+            char c = rec[p];
+            if (c < '0' || c > '9') return defaultValue;
+            value = value * 10 + (c - '0');
+            if (value > (long) Integer.MAX_VALUE + 1) return defaultValue;
+        }
+        value = negative ? -value : value;
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) return defaultValue;
+        return (int) value;
+    }
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= fieldCount) {
+            throw new IndexOutOfBoundsException("Field " + i + " of " + fieldCount);
+        }
+    }
+
+    /** The current record re-joined with commas, for error messages. */
+    public String recordToString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < fieldCount; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(rec, starts[i], ends[i] - starts[i]);
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /** Reusable CharSequence over a slice of the record buffer. */
+    private final class FieldView implements CharSequence {
+        int start;
+        int end;
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= end - start) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return rec[start + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return new String(rec, start + from, to - from);
+        }
+
+        @Override
+        public String toString() {
+            return new String(rec, start, end - start);
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package com.example.hospital.util;
 
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.sql.*;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
-import java.util.Scanner;
 
 /**
  * A single class that:
@@ -14,7 +17,10 @@ import java.util.Scanner;
  * 4) Loads each CSV from the classpath.
  * 5) Then extracts data from doctors/patients to fill specialists/insured_patients
  *    if certain columns (e.g. specialization, insurance_id) match.
- * 6) Skips re-init on repeated calls in the same JVM (via static boolean).
+ * 6) Steps 3-5 run once per JVM through {@link SchemaBootstrap}, which skips them entirely
+ *    when the schema version and CSV checksum recorded in the database are unchanged.
+ * 7) Hands out connections from a bounded {@link ConnectionPool}, configured through
+ *    "hospital.pool.*" system properties, so DAOs reuse warm connections.
  */
 public class DBConnection {
 
@@ -24,161 +30,218 @@ public class DBConnection {
     private static final String DB_USER = "edvin";
     private static final String DB_PASS = "last";
 
-    private static boolean initialized = false;
+    // CSV import tuning: rows per JDBC batch, rows per transaction
+    private static final int IMPORT_BATCH_SIZE = Integer.getInteger("hospital.import.batchSize", 1000);
+    private static final int IMPORT_COMMIT_EVERY = Integer.getInteger("hospital.import.commitEvery", 10_000);
+    // Tables imported concurrently, each on its own pooled connection
+    static final int IMPORT_THREADS = Integer.getInteger("hospital.import.threads", 3);
 
+    // "batch" (default) or "infile" for LOAD DATA LOCAL INFILE; flips to batch if the server refuses
+    private static volatile boolean useLocalInfile =
+            "infile".equalsIgnoreCase(System.getProperty("hospital.import.mode", "batch"));
+
+    private static final int ER_BAD_DB_ERROR = 1049; // "Unknown database"
+
+    /** The bundled CSV resources, in load order. Also used for the bootstrap checksum. */
+    static final String[] CSV_RESOURCES = {
+            "/com/example/hospital/csv/Doctor.csv",
+            "/com/example/hospital/csv/Insurance.csv",
+            "/com/example/hospital/csv/Patient.csv",
+            "/com/example/hospital/csv/Drug.csv",
+            "/com/example/hospital/csv/Visit.csv",
+            "/com/example/hospital/csv/Prescription.csv"
+    };
+
+    private static volatile ConnectionPool pool;
+
+    /**
+     * Borrows a connection from the shared pool. Closing it hands it back to the pool.
+     * The first call creates the database, opens the pool and runs the schema bootstrap.
+     *
+     * Inside a {@link Transactions} scope this returns the scope's connection instead.
+     */
     public static Connection getConnection() throws SQLException {
+        Connection bound = Transactions.boundConnection();
+        if (bound != null) {
+            return bound;
+        }
+        ConnectionPool p = pool;
+        if (p == null) {
+            p = initPool();
+        }
+        return p.borrow();
+    }
+
+    private static synchronized ConnectionPool initPool() throws SQLException {
+        if (pool != null) {
+            return pool;
+        }
         try {
             Class.forName("org.mariadb.jdbc.Driver");
         } catch (ClassNotFoundException e) {
             throw new SQLException("MariaDB JDBC driver not found.", e);
         }
 
-        // 1) Possibly create the DB
+        // 1) Pool connections to the DB; only if it does not exist yet, create it and retry
+        ConnectionPool p;
+        try {
+            p = openPoolAndBootstrap();
+        } catch (SQLException e) {
+            if (e.getErrorCode() != ER_BAD_DB_ERROR) {
+                throw e;
+            }
+            createDatabase();
+            p = openPoolAndBootstrap();
+        }
+
+        pool = p;
+        return pool;
+    }
+
+    private static ConnectionPool openPoolAndBootstrap() throws SQLException {
+        // useBulkStmts lets the driver send a whole JDBC batch in one bulk command
+        // (Connector/J 3.x replacement for rewriteBatchedStatements)
+        String finalUrl = String.format("jdbc:mariadb://%s:%s/%s?useBulkStmts=true", DB_HOST, DB_PORT, DB_NAME);
+        if (useLocalInfile) {
+            finalUrl += "&allowLocalInfile=true";
+        }
+        // Server-side prepare: the server parses each statement once per connection, and the
+        // pool's statement cache keeps the prepared handles around between DAO calls
+        if (Boolean.parseBoolean(System.getProperty("hospital.db.serverPrepare", "true"))) {
+            finalUrl += "&useServerPrepStmts=true";
+        }
+        ConnectionPool p = new ConnectionPool(finalUrl, DB_USER, DB_PASS, ConnectionPool.Config.fromSystemProperties());
+
+        // 2) Only once per JVM, before anyone else sees the pool: tables, CSV data, subclass rows
+        try {
+            SchemaBootstrap.run(p);
+        } catch (SQLException e) {
+            p.shutdown();
+            throw e;
+        }
+        return p;
+    }
+
+    private static void createDatabase() throws SQLException {
         String initUrl = String.format("jdbc:mariadb://%s:%s/", DB_HOST, DB_PORT);
         try (Connection conn = DriverManager.getConnection(initUrl, DB_USER, DB_PASS);
              Statement stmt = conn.createStatement()) {
             stmt.executeUpdate("CREATE DATABASE IF NOT EXISTS " + DB_NAME);
         }
+    }
 
-        // 2) Connect to that DB
-        String finalUrl = String.format("jdbc:mariadb://%s:%s/%s", DB_HOST, DB_PORT, DB_NAME);
-        Connection finalConn = DriverManager.getConnection(finalUrl, DB_USER, DB_PASS);
-
-        // 3) Only once: create tables, load CSV, extract subclass data
-        if (!initialized) {
-            initialized = true;
-            createTables(finalConn);
-            loadCsvData(finalConn);
-            extractSubclassData(finalConn);
+    /**
+     * Imports a (possibly multi-GB) CSV extract from the filesystem into one of the base tables
+     * ("doctors", "insurance", "patients", "drugs", "visits", "prescriptions"). The file is
+     * memory-mapped, split into record-aligned chunks and loaded in parallel with the same
+     * column mapping as the bundled CSVs. Chunk size and thread count come from
+     * hospital.import.chunkBytes and hospital.import.fileThreads.
+     */
+    public static ImportStats importCsvFile(String table, Path file) throws SQLException {
+        ConnectionPool p = pool;
+        if (p == null) {
+            p = initPool();
         }
+        MappedCsvImporter importer = new MappedCsvImporter(p,
+                Long.getLong("hospital.import.chunkBytes", 32L * 1024 * 1024),
+                Integer.getInteger("hospital.import.fileThreads", Runtime.getRuntime().availableProcessors()));
+        ImportStats stats = importer.importFile(table, file);
+        System.out.println("CSV import: " + stats);
+        return stats;
+    }
 
-        return finalConn;
+    /** Pool counters (acquire wait time, timeouts, leaks...), or null before the first connection. */
+    public static ConnectionPool.Stats getPoolStats() {
+        ConnectionPool p = pool;
+        return p == null ? null : p.getStats();
+    }
+
+    /** Closes the pooled connections, e.g. on application exit. */
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
     }
 
     /**
-     * Creates the 6 base tables + "specialists" + "insured_patients".
+     * Loads the 6 base CSV files for doctors, patients, etc. No direct CSV for specialists or insured_patients.
+     *
+     * Tables are scheduled along their foreign keys: doctors, insurance and drugs start at once,
+     * patients wait for insurance, visits and prescriptions wait for their parents. With
+     * parallelism > 1 each table gets its own connection from {@code pool}; otherwise everything
+     * runs one after another on {@code conn}.
      */
-    private static void createTables(Connection conn) throws SQLException {
-        try (Statement stmt = conn.createStatement()) {
-
-            // doctors
-            stmt.executeUpdate(
-                    "CREATE TABLE IF NOT EXISTS doctors ("
-                            + "  doctor_id INT PRIMARY KEY,"
-                            + "  firstname VARCHAR(50),"
-                            + "  surname VARCHAR(50),"
-                            + "  address VARCHAR(100),"
-                            + "  email VARCHAR(100),"
-                            + "  specialization VARCHAR(100)"
-                            + ") ENGINE=InnoDB"
-            );
-
-            // specialists referencing doctors
-            stmt.executeUpdate(
-                    "CREATE TABLE IF NOT EXISTS specialists ("
-                            + "  specialist_id INT PRIMARY KEY,"
-                            + "  experience INT,"
-                            + "  FOREIGN KEY (specialist_id) REFERENCES doctors(doctor_id)"
-                            + "    ON DELETE CASCADE ON UPDATE CASCADE"
-                            + ") ENGINE=InnoDB"
-            );
-
-            // insurance
-            stmt.executeUpdate(
-                    "CREATE TABLE IF NOT EXISTS insurance ("
-                            + "  insurance_id INT PRIMARY KEY,"
-                            + "  company VARCHAR(100),"
-                            + "  address VARCHAR(100),"
-                            + "  phone VARCHAR(50)"
-                            + ") ENGINE=InnoDB"
-            );
-
-            // patients
-            stmt.executeUpdate(
-                    "CREATE TABLE IF NOT EXISTS patients ("
-                            + "  patient_id INT PRIMARY KEY,"
-                            + "  firstname VARCHAR(50),"
-                            + "  surname VARCHAR(50),"
-                            + "  postcode VARCHAR(50),"
-                            + "  address VARCHAR(100),"
-                            + "  phone VARCHAR(50),"
-                            + "  email VARCHAR(100),"
-                            + "  insurance_id INT,"
-                            + "  FOREIGN KEY (insurance_id) REFERENCES insurance(insurance_id)"
-                            + ") ENGINE=InnoDB"
-            );
-
-            // insured_patients referencing patients
-            stmt.executeUpdate(
-                    "CREATE TABLE IF NOT EXISTS insured_patients ("
-                            + "  patient_id INT PRIMARY KEY,"
-                            + "  insurance_type VARCHAR(50),"
-                            + "  insurance_company_name VARCHAR(100),"
-                            + "  duration_of_insurance INT,"
-                            + "  FOREIGN KEY (patient_id) REFERENCES patients(patient_id)"
-                            + "    ON DELETE CASCADE ON UPDATE CASCADE"
-                            + ") ENGINE=InnoDB"
-            );
-
-            // drugs
-            stmt.executeUpdate(
-                    "CREATE TABLE IF NOT EXISTS drugs ("
-                            + "  drug_id INT PRIMARY KEY,"
-                            + "  name VARCHAR(100),"
-                            + "  sideeffects VARCHAR(200),"
-                            + "  benefits VARCHAR(300)"
-                            + ") ENGINE=InnoDB"
-            );
-
-            // visits
-            stmt.executeUpdate(
-                    "CREATE TABLE IF NOT EXISTS visits ("
-                            + "  visit_id INT AUTO_INCREMENT PRIMARY KEY,"
-                            + "  patientID INT NOT NULL,"
-                            + "  doctorID INT NOT NULL,"
-                            + "  dateofvisit DATE,"
-                            + "  symptoms VARCHAR(200),"
-                            + "  diagnosis VARCHAR(200),"
-                            + "  FOREIGN KEY (patientID) REFERENCES patients(patient_id),"
-                            + "  FOREIGN KEY (doctorID) REFERENCES doctors(doctor_id)"
-                            + ") ENGINE=InnoDB"
-            );
-
-            // prescriptions
-            stmt.executeUpdate(
-                    "CREATE TABLE IF NOT EXISTS prescriptions ("
-                            + "  prescriptionID INT PRIMARY KEY,"
-                            + "  dateprescribed DATE,"
-                            + "  dosage VARCHAR(100),"
-                            + "  duration VARCHAR(100),"
-                            + "  comment VARCHAR(200),"
-                            + "  drugID INT,"
-                            + "  doctorID INT,"
-                            + "  patientID INT,"
-                            + "  FOREIGN KEY (drugID) REFERENCES drugs(drug_id),"
-                            + "  FOREIGN KEY (doctorID) REFERENCES doctors(doctor_id),"
-                            + "  FOREIGN KEY (patientID) REFERENCES patients(patient_id)"
-                            + ") ENGINE=InnoDB"
-            );
-
+    static List<ImportStats> loadCsvData(Connection conn, ConnectionPool pool, int parallelism) throws SQLException {
+        List<ImportStats> summary;
+        if (parallelism <= 1) {
+            summary = new ArrayList<>();
+            summary.add(importTable(conn, "doctors", CSV_RESOURCES[0], DBConnection::loadDoctorsCSV));
+            summary.add(importTable(conn, "insurance", CSV_RESOURCES[1], DBConnection::loadInsuranceCSV));
+            summary.add(importTable(conn, "patients", CSV_RESOURCES[2], DBConnection::loadPatientsCSV));
+            summary.add(importTable(conn, "drugs", CSV_RESOURCES[3], DBConnection::loadDrugCSV));
+            summary.add(importTable(conn, "visits", CSV_RESOURCES[4], DBConnection::loadVisitCSV));
+            summary.add(importTable(conn, "prescriptions", CSV_RESOURCES[5], DBConnection::loadPrescriptionCSV));
+        } else {
+            summary = new ImportGraph()
+                    .add("doctors", pooled(pool, "doctors", CSV_RESOURCES[0], DBConnection::loadDoctorsCSV))
+                    .add("insurance", pooled(pool, "insurance", CSV_RESOURCES[1], DBConnection::loadInsuranceCSV))
+                    .add("drugs", pooled(pool, "drugs", CSV_RESOURCES[3], DBConnection::loadDrugCSV))
+                    .add("patients", pooled(pool, "patients", CSV_RESOURCES[2], DBConnection::loadPatientsCSV),
+                            "insurance")
+                    .add("visits", pooled(pool, "visits", CSV_RESOURCES[4], DBConnection::loadVisitCSV),
+                            "patients", "doctors")
+                    .add("prescriptions", pooled(pool, "prescriptions", CSV_RESOURCES[5], DBConnection::loadPrescriptionCSV),
+                            "patients", "doctors", "drugs")
+                    .run(parallelism);
+        }
+        for (ImportStats stats : summary) {
+            System.out.println("CSV import: " + stats);
         }
+        return summary;
     }
 
-    /** Loads the 6 base CSV files for doctors, patients, etc. No direct CSV for specialists or insured_patients. */
-    private static void loadCsvData(Connection conn) throws SQLException {
-        loadDoctorsCSV(conn, "/com/example/hospital/csv/Doctor.csv");
-        loadInsuranceCSV(conn, "/com/example/hospital/csv/Insurance.csv");
-        loadPatientsCSV(conn, "/com/example/hospital/csv/Patient.csv");
-        loadDrugCSV(conn, "/com/example/hospital/csv/Drug.csv");
-        loadVisitCSV(conn, "/com/example/hospital/csv/Visit.csv");
-        loadPrescriptionCSV(conn, "/com/example/hospital/csv/Prescription.csv");
+    private static ImportGraph.TableTask pooled(ConnectionPool pool, String table, String resourcePath,
+                                                TableLoader loader) {
+        return () -> {
+            try (Connection c = pool.borrow()) {
+                return importTable(c, table, resourcePath, loader);
+            }
+        };
+    }
+
+    /** One of the load*CSV methods, i.e. the JDBC batch path for a table. */
+    @FunctionalInterface
+    interface TableLoader {
+        ImportStats load(Connection conn, String resourcePath) throws SQLException;
+    }
+
+    /**
+     * Loads one table with LOAD DATA LOCAL INFILE when hospital.import.mode=infile,
+     * otherwise (or when local infile turns out to be disabled) with the batch loader.
+     */
+    static ImportStats importTable(Connection conn, String table, String resourcePath,
+                                   TableLoader batchLoader) throws SQLException {
+        if (useLocalInfile && LocalInfileImporter.supports(table)) {
+            try {
+                return LocalInfileImporter.load(conn, table, resourcePath);
+            } catch (SQLException e) {
+                if (!LocalInfileImporter.isDisabledError(e)) {
+                    throw e;
+                }
+                System.err.println("LOAD DATA LOCAL INFILE is disabled, falling back to batch import: "
+                        + e.getMessage());
+                useLocalInfile = false;
+            }
+        }
+        return batchLoader.load(conn, resourcePath);
     }
 
     /**
      * Extract data for specialists and insured_patients from the existing doctors/patients
      * by reading the 'specialization' column or a non-zero 'insurance_id'.
      */
-    private static void extractSubclassData(Connection conn) throws SQLException {
+    static void extractSubclassData(Connection conn) throws SQLException {
         // 1) If a doctor row has a non-empty 'specialization', also insert into specialists with random 'experience'.
         String sqlDocs = "SELECT doctor_id, specialization FROM doctors";
         try (Statement st = conn.createStatement();
@@ -239,206 +302,266 @@ public class DBConnection {
     // -----------------------------------------------------------------------
     // CSV loaders for each base table
     // -----------------------------------------------------------------------
-    private static void loadDoctorsCSV(Connection conn, String resourcePath) throws SQLException {
-        String insertSQL = "INSERT IGNORE INTO doctors (doctor_id, firstname, surname, address, email, specialization)"
-                + " VALUES (?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement ps = conn.prepareStatement(insertSQL);
-             InputStream is = DBConnection.class.getResourceAsStream(resourcePath)) {
+    static ImportStats loadDoctorsCSV(Connection conn, String resourcePath) throws SQLException {
+        return loadCsvBatched(conn, resourcePath, DOCTORS_TABLE);
+    }
 
-            if (is == null) {
-                System.err.println("Doctor CSV not found: " + resourcePath);
-                return;
-            }
-            Scanner sc = new Scanner(is, "UTF-8");
-            if (sc.hasNextLine()) sc.nextLine(); // skip header
-
-            while (sc.hasNextLine()) {
-                String line = sc.nextLine().trim();
-                if (line.isEmpty()) continue;
-                String[] cols = line.split(",", -1);
-                if (cols.length < 6) {
-                    System.err.println("Malformed doctor line: " + line);
-                    continue;
-                }
-                ps.setInt(1, parseIntOrZero(cols[0]));
-                ps.setString(2, cols[1].trim());
-                ps.setString(3, cols[2].trim());
-                ps.setString(4, cols[3].trim());
-                ps.setString(5, cols[4].trim());
-                ps.setString(6, cols[5].trim());
-                ps.executeUpdate();
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
+    static ImportStats loadInsuranceCSV(Connection conn, String resourcePath) throws SQLException {
+        return loadCsvBatched(conn, resourcePath, INSURANCE_TABLE);
+    }
+
+    static ImportStats loadPatientsCSV(Connection conn, String resourcePath) throws SQLException {
+        return loadCsvBatched(conn, resourcePath, PATIENTS_TABLE);
+    }
+
+    static ImportStats loadDrugCSV(Connection conn, String resourcePath) throws SQLException {
+        return loadCsvBatched(conn, resourcePath, DRUGS_TABLE);
+    }
+
+    static ImportStats loadVisitCSV(Connection conn, String resourcePath) throws SQLException {
+        return loadCsvBatched(conn, resourcePath, VISITS_TABLE);
+    }
+
+    static ImportStats loadPrescriptionCSV(Connection conn, String resourcePath) throws SQLException {
+        return loadCsvBatched(conn, resourcePath, PRESCRIPTIONS_TABLE);
+    }
+
+    static final TableSpec DOCTORS_TABLE = new TableSpec("doctors",
+            "INSERT IGNORE INTO doctors (doctor_id, firstname, surname, address, email, specialization)"
+                    + " VALUES (?, ?, ?, ?, ?, ?)",
+            6, (ps, row) -> {
+                ps.setInt(1, row.getInt(0, 0));
+                ps.setString(2, row.getString(1));
+                ps.setString(3, row.getString(2));
+                ps.setString(4, row.getString(3));
+                ps.setString(5, row.getString(4));
+                ps.setString(6, row.getString(5));
+            });
+
+    static final TableSpec INSURANCE_TABLE = new TableSpec("insurance",
+            "INSERT IGNORE INTO insurance (insurance_id, company, address, phone)"
+                    + " VALUES (?, ?, ?, ?)",
+            4, (ps, row) -> {
+                ps.setInt(1, row.getInt(0, 0));
+                ps.setString(2, row.getString(1));
+                ps.setString(3, row.getString(2));
+                ps.setString(4, row.getString(3));
+            });
+
+    static final TableSpec PATIENTS_TABLE = new TableSpec("patients",
+            "INSERT IGNORE INTO patients (patient_id, firstname, surname, postcode, address, phone, email, insurance_id)"
+                    + " VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+            8, (ps, row) -> {
+                ps.setInt(1, row.getInt(0, 0));
+                ps.setString(2, row.getString(1));
+                ps.setString(3, row.getString(2));
+                ps.setString(4, row.getString(3));
+                ps.setString(5, row.getString(4));
+                ps.setString(6, row.getString(5));
+                ps.setString(7, row.getString(6));
+                ps.setInt(8, row.getInt(7, 0));
+            });
+
+    static final TableSpec DRUGS_TABLE = new TableSpec("drugs",
+            "INSERT IGNORE INTO drugs (drug_id, name, sideeffects, benefits) VALUES (?, ?, ?, ?)",
+            4, (ps, row) -> {
+                ps.setInt(1, row.getInt(0, 0));
+                ps.setString(2, row.getString(1));
+                ps.setString(3, row.getString(2));
+                ps.setString(4, row.getString(3));
+            });
+
+    // INSERT IGNORE skips visits already loaded, by SchemaBootstrap.VISITS_IMPORT_KEY
+    static final TableSpec VISITS_TABLE = new TableSpec("visits",
+            "INSERT IGNORE INTO visits (patientID, doctorID, dateofvisit, symptoms, diagnosis, import_key) "
+                    + "VALUES (?, ?, ?, ?, ?, ?)",
+            5, (ps, row) -> {
+                ps.setInt(1, row.getInt(0, 0));
+                ps.setInt(2, row.getInt(1, 0));
+                ps.setDate(3, parseSqlDate(row.getString(2)));
+                ps.setString(4, row.getString(3));
+                ps.setString(5, row.getString(4));
+                ps.setString(6, importKey(row, 5));
+            });
+
+    /**
+     * Hex SHA-256 of the first columns fields of a source row, space-trimmed and joined with
+     * a unit separator (0x1F). Hashes the raw text, so a date that parseSqlDate replaces with
+     * today still gives the same key on every re-import. LocalInfileImporter computes the same
+     * value in SQL; identical source rows get the same key and are loaded once.
+     */
+    static String importKey(CsvReader row, int columns) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < columns; i++) {
+            if (i > 0) sb.append('\u001F');
+            sb.append(trimSpaces(row.getString(i)));
+        }
+        try {
+            byte[] hash = java.security.MessageDigest.getInstance("SHA-256")
+                    .digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+            return java.util.HexFormat.of().formatHex(hash);
+        } catch (java.security.NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // every JRE has SHA-256
         }
     }
 
-    private static void loadInsuranceCSV(Connection conn, String resourcePath) throws SQLException {
-        String insertSQL = "INSERT IGNORE INTO insurance (insurance_id, company, address, phone)"
-                + " VALUES (?, ?, ?, ?)";
-        try (PreparedStatement ps = conn.prepareStatement(insertSQL);
-             InputStream is = DBConnection.class.getResourceAsStream(resourcePath)) {
-            if (is == null) {
-                System.err.println("Insurance CSV not found: " + resourcePath);
-                return;
-            }
-            Scanner sc = new Scanner(is, "UTF-8");
-            if (sc.hasNextLine()) sc.nextLine(); // skip header
-
-            while (sc.hasNextLine()) {
-                String line = sc.nextLine().trim();
-                if (line.isEmpty()) continue;
-                String[] cols = line.split(",", -1);
-                if (cols.length < 4) {
-                    System.err.println("Malformed insurance line: " + line);
-                    continue;
-                }
-                ps.setInt(1, parseIntOrZero(cols[0]));
-                ps.setString(2, cols[1].trim());
-                ps.setString(3, cols[2].trim());
-                ps.setString(4, cols[3].trim());
-                ps.executeUpdate();
+    // SQL's TRIM(): spaces only
+    private static String trimSpaces(String s) {
+        int from = 0;
+        int to = s.length();
+        while (from < to && s.charAt(from) == ' ') from++;
+        while (to > from && s.charAt(to - 1) == ' ') to--;
+        return s.substring(from, to);
+    }
+
+    static final TableSpec PRESCRIPTIONS_TABLE = new TableSpec("prescriptions",
+            "INSERT IGNORE INTO prescriptions ("
+                    + " prescriptionID, dateprescribed, dosage, duration, comment, drugID, doctorID, patientID"
+                    + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+            8, (ps, row) -> {
+                ps.setInt(1, row.getInt(0, 0));
+                ps.setDate(2, parseSqlDate(row.getString(1)));
+                ps.setString(3, row.getString(2));
+                ps.setString(4, row.getString(3));
+                ps.setString(5, row.getString(4));
+                ps.setInt(6, row.getInt(5, 0));
+                ps.setInt(7, row.getInt(6, 0));
+                ps.setInt(8, row.getInt(7, 0));
+            });
+
+    /** Looks up the import spec of a base table by name, or null. */
+    static TableSpec tableSpec(String table) {
+        for (TableSpec spec : new TableSpec[]{DOCTORS_TABLE, INSURANCE_TABLE, PATIENTS_TABLE,
+                DRUGS_TABLE, VISITS_TABLE, PRESCRIPTIONS_TABLE}) {
+            if (spec.table.equals(table)) {
+                return spec;
             }
-        } catch (Exception e) {
-            e.printStackTrace();
         }
+        return null;
     }
 
-    private static void loadPatientsCSV(Connection conn, String resourcePath) throws SQLException {
-        String insertSQL = "INSERT IGNORE INTO patients (patient_id, firstname, surname, postcode, address, phone, email, insurance_id)"
-                + " VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement ps = conn.prepareStatement(insertSQL);
-             InputStream is = DBConnection.class.getResourceAsStream(resourcePath)) {
-            if (is == null) {
-                System.err.println("Patient CSV not found: " + resourcePath);
-                return;
-            }
-            Scanner sc = new Scanner(is, "UTF-8");
-            if (sc.hasNextLine()) sc.nextLine(); // skip header
-
-            while (sc.hasNextLine()) {
-                String line = sc.nextLine().trim();
-                if (line.isEmpty()) continue;
-                String[] cols = line.split(",", -1);
-                if (cols.length < 8) {
-                    System.err.println("Malformed patient line: " + line);
-                    continue;
-                }
-                ps.setInt(1, parseIntOrZero(cols[0]));
-                ps.setString(2, cols[1].trim());
-                ps.setString(3, cols[2].trim());
-                ps.setString(4, cols[3].trim());
-                ps.setString(5, cols[4].trim());
-                ps.setString(6, cols[5].trim());
-                ps.setString(7, cols[6].trim());
-                ps.setInt(8, parseIntOrZero(cols[7]));
-                ps.executeUpdate();
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
+    /** Binds the current CSV record to the insert statement of a table. */
+    @FunctionalInterface
+    interface RowBinder {
+        void bind(PreparedStatement ps, CsvReader row) throws SQLException;
+    }
+
+    /** How CSV records of one base table are inserted: statement, minimum column count and binder. */
+    static final class TableSpec {
+        final String table;
+        final String insertSQL;
+        final int minCols;
+        final RowBinder binder;
+
+        TableSpec(String table, String insertSQL, int minCols, RowBinder binder) {
+            this.table = table;
+            this.insertSQL = insertSQL;
+            this.minCols = minCols;
+            this.binder = binder;
         }
     }
 
-    private static void loadDrugCSV(Connection conn, String resourcePath) throws SQLException {
-        String insertSQL = "INSERT IGNORE INTO drugs (drug_id, name, sideeffects, benefits) VALUES (?, ?, ?, ?)";
-        try (PreparedStatement ps = conn.prepareStatement(insertSQL);
-             InputStream is = DBConnection.class.getResourceAsStream(resourcePath)) {
+    /** Imports a classpath CSV resource (with header line) through {@link #loadRows}. */
+    private static ImportStats loadCsvBatched(Connection conn, String resourcePath, TableSpec spec) throws SQLException {
+        ImportStats stats = new ImportStats(spec.table, "batch");
+        long start = System.nanoTime();
+        try (InputStream is = DBConnection.class.getResourceAsStream(resourcePath)) {
             if (is == null) {
-                System.err.println("Drug CSV not found: " + resourcePath);
-                return;
+                System.err.println(spec.table + " CSV not found: " + resourcePath);
+                return stats;
             }
-            Scanner sc = new Scanner(is, "UTF-8");
-            if (sc.hasNextLine()) sc.nextLine(); // skip header
-
-            while (sc.hasNextLine()) {
-                String line = sc.nextLine().trim();
-                if (line.isEmpty()) continue;
-                String[] cols = line.split(",", -1);
-                if (cols.length < 4) {
-                    System.err.println("Malformed drug line: " + line);
-                    continue;
-                }
-                ps.setInt(1, parseIntOrZero(cols[0]));
-                ps.setString(2, cols[1].trim());
-                ps.setString(3, cols[2].trim());
-                ps.setString(4, cols[3].trim());
-                ps.executeUpdate();
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
+            CsvReader row = new CsvReader(is, StandardCharsets.UTF_8);
+            row.next(); // skip header
+            loadRows(conn, row, spec, stats);
+        } catch (java.io.IOException e) {
+            throw new SQLException("Could not read " + resourcePath, e);
+        } finally {
+            stats.setElapsedNanos(System.nanoTime() - start);
         }
+        return stats;
     }
 
-    private static void loadVisitCSV(Connection conn, String resourcePath) throws SQLException {
-        String insertSQL = "INSERT INTO visits (patientID, doctorID, dateofvisit, symptoms, diagnosis) "
-                + "VALUES (?, ?, ?, ?, ?)";
-        try (PreparedStatement ps = conn.prepareStatement(insertSQL);
-             InputStream is = DBConnection.class.getResourceAsStream(resourcePath)) {
-            if (is == null) {
-                System.err.println("Visit CSV not found: " + resourcePath);
-                return;
-            }
-            Scanner sc = new Scanner(is, "UTF-8");
-            if (sc.hasNextLine()) sc.nextLine(); // skip header
-
-            while (sc.hasNextLine()) {
-                String line = sc.nextLine().trim();
-                if (line.isEmpty()) continue;
-                String[] cols = line.split(",", -1);
-                if (cols.length < 5) {
-                    System.err.println("Malformed visit line: " + line);
+    /**
+     * Shared import path for all base tables: rows are added to a JDBC batch that is sent
+     * every IMPORT_BATCH_SIZE rows, and the transaction is committed every IMPORT_COMMIT_EVERY
+     * rows instead of once per row. The connection's auto-commit mode is restored afterwards.
+     * Reads {@code row} until its end; counts go into {@code stats}.
+     */
+    static void loadRows(Connection conn, CsvReader row, TableSpec spec, ImportStats stats) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (PreparedStatement ps = conn.prepareStatement(spec.insertSQL)) {
+            int pending = 0;
+            int uncommitted = 0;
+            while (row.next()) {
+                if (row.isBlankRecord()) {
+                    stats.addSkipped(1);
+                    continue;
+                }
+                if (row.fieldCount() < spec.minCols) {
+                    System.err.println("Malformed " + spec.table + " line " + row.recordNumber() + ": "
+                            + row.recordToString());
+                    stats.addRejected(1);
                     continue;
                 }
-                ps.setInt(1, parseIntOrZero(cols[0]));
-                ps.setInt(2, parseIntOrZero(cols[1]));
-                ps.setDate(3, parseSqlDate(cols[2]));
-                ps.setString(4, cols[3].trim());
-                ps.setString(5, cols[4].trim());
-                ps.executeUpdate();
+                spec.binder.bind(ps, row);
+                ps.addBatch();
+                pending++;
+                uncommitted++;
+
+                if (pending >= IMPORT_BATCH_SIZE) {
+                    flushBatch(ps, stats, pending);
+                    pending = 0;
+                }
+                if (uncommitted >= IMPORT_COMMIT_EVERY) {
+                    if (pending > 0) {
+                        flushBatch(ps, stats, pending);
+                        pending = 0;
+                    }
+                    conn.commit();
+                    uncommitted = 0;
+                }
             }
-        } catch (Exception e) {
-            e.printStackTrace();
+            if (pending > 0) {
+                flushBatch(ps, stats, pending);
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } catch (java.io.IOException e) {
+            conn.rollback();
+            throw new SQLException("Could not read " + spec.table + " CSV", e);
+        } finally {
+            conn.setAutoCommit(autoCommit);
         }
     }
 
-    private static void loadPrescriptionCSV(Connection conn, String resourcePath) throws SQLException {
-        String insertSQL =
-                "INSERT IGNORE INTO prescriptions ("
-                        + " prescriptionID, dateprescribed, dosage, duration, comment, drugID, doctorID, patientID"
-                        + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement ps = conn.prepareStatement(insertSQL);
-             InputStream is = DBConnection.class.getResourceAsStream(resourcePath)) {
-            if (is == null) {
-                System.err.println("Prescription CSV not found: " + resourcePath);
-                return;
+    private static void flushBatch(PreparedStatement ps, ImportStats stats, int batchRows) throws SQLException {
+        int[] counts;
+        try {
+            counts = ps.executeBatch();
+        } catch (BatchUpdateException e) {
+            // e.g. a foreign key violation: count what the driver reports, reject the rest
+            System.err.println("Batch failed for " + stats.getTable() + ": " + e.getMessage());
+            counts = e.getUpdateCounts() == null ? new int[0] : e.getUpdateCounts();
+            if (counts.length < batchRows) {
+                stats.addRejected(batchRows - counts.length);
             }
-            Scanner sc = new Scanner(is, "UTF-8");
-            if (sc.hasNextLine()) sc.nextLine(); // skip header
-
-            while (sc.hasNextLine()) {
-                String line = sc.nextLine().trim();
-                if (line.isEmpty()) continue;
-                String[] cols = line.split(",", -1);
-                if (cols.length < 8) {
-                    System.err.println("Malformed prescription line: " + line);
-                    continue;
-                }
-                ps.setInt(1, parseIntOrZero(cols[0]));
-                ps.setDate(2, parseSqlDate(cols[1]));
-                ps.setString(3, cols[2].trim());
-                ps.setString(4, cols[3].trim());
-                ps.setString(5, cols[4].trim());
-                ps.setInt(6, parseIntOrZero(cols[5]));
-                ps.setInt(7, parseIntOrZero(cols[6]));
-                ps.setInt(8, parseIntOrZero(cols[7]));
-                ps.executeUpdate();
+        }
+        for (int count : counts) {
+            if (count == 0) {
+                stats.addSkipped(1); // ignored by INSERT IGNORE
+            } else if (count > 0) {
+                stats.addInserted(1);
+            } else if (count == Statement.SUCCESS_NO_INFO) {
+                stats.addUnknown(1); // bulk batch: written or ignored, the driver doesn't say
+            } else {
+                stats.addRejected(1);
             }
-        } catch (Exception e) {
-            e.printStackTrace();
         }
     }
 
-
     private static void fillSpecialistsFromDoctors(Connection conn) throws SQLException {
         String queryDocs = "SELECT doctor_id, specialization FROM doctors";
         try (Statement st = conn.createStatement();
@@ -497,14 +620,6 @@ public class DBConnection {
     }
 
     // parse helper
-    private static int parseIntOrZero(String s) {
-        try {
-            return Integer.parseInt(s.trim());
-        } catch (NumberFormatException e) {
-            return 0;
-        }
-    }
-
     private static java.sql.Date parseSqlDate(String s) {
         try {
             return java.sql.Date.valueOf(s.trim());
@@ -0,0 +1,243 @@
+package com.example.hospital.util;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Latency, row and error counts per DAO operation, published over JMX.
+ *
+ * Every DAO keeps one {@link Operation} per public method and wraps the method body:
+ *
+ *   long start = GET_ALL_VISITS.start();
+ *   try { ... GET_ALL_VISITS.rows(n) ... GET_ALL_VISITS.error() ... }
+ *   finally { GET_ALL_VISITS.stop(start); }
+ *
+ * 1) Each operation is an MXBean named com.example.hospital:type=DaoMetrics,dao=VisitDAO,operation=getAllVisits,
+ *    with calls, errors, rows, mean/max and p50/p99/p99.9 latency in JConsole or Mission Control.
+ * 2) Time spent waiting for a pooled connection is reported by {@link ConnectionPool} and
+ *    added to every operation running on that thread (nested ones included, like latency).
+ * 3) Recording doesn't allocate: counters are atomics, the histogram is a fixed array and
+ *    each running call borrows one of a fixed set of wait slots (there is no per-thread
+ *    state, which with a virtual thread per task would be created on every call). If all
+ *    slots are taken, that call's connection wait just isn't counted.
+ * 4) start() and stop() may run on different threads, e.g. for a stream that is opened on
+ *    one thread and closed on another.
+ *
+ * -Dhospital.metrics.jmx=false keeps the numbers but skips the MBean registration.
+ */
+public final class DaoMetrics {
+
+    private static final boolean JMX = !"false".equalsIgnoreCase(System.getProperty("hospital.metrics.jmx", "true"));
+    private static final Map<String, Operation> OPERATIONS = new ConcurrentHashMap<>();
+
+    // Wait slots: a running call owns one until it stops; the slot index rides in the low
+    // bits of the value start() returns (costing at most SLOTS - 1 ns of timer resolution)
+    private static final int SLOTS = 256;
+    private static final int NO_SLOT = SLOTS - 1;
+    private static final AtomicReferenceArray<Thread> SLOT_OWNER = new AtomicReferenceArray<>(SLOTS);
+    private static final long[] SLOT_WAIT = new long[SLOTS]; // only written by the slot's owner
+
+    private DaoMetrics() {
+    }
+
+    /** Returns the operation for dao.method, registering it (and its MBean) on first use. */
+    public static Operation operation(String dao, String method) {
+        return OPERATIONS.computeIfAbsent(dao + "." + method, key -> {
+            Operation op = new Operation(dao, method);
+            if (JMX) {
+                register(op);
+            }
+            return op;
+        });
+    }
+
+    public static Collection<Operation> operations() {
+        return new ArrayList<>(OPERATIONS.values());
+    }
+
+    /** Called by the pool after a borrow had to wait; charged to the calling thread. */
+    static void connectionWaited(long nanos) {
+        if (nanos <= 0) return;
+        Thread me = Thread.currentThread();
+        for (int slot = 0; slot < NO_SLOT; slot++) {
+            if (SLOT_OWNER.get(slot) == me) {
+                SLOT_WAIT[slot] += nanos;
+            }
+        }
+    }
+
+    /** Takes a free wait slot for the calling thread, or NO_SLOT if all are in use. */
+    private static int claimSlot() {
+        Thread me = Thread.currentThread();
+        int first = (int) (me.threadId() % NO_SLOT);
+        for (int i = 0; i < NO_SLOT; i++) {
+            int slot = (first + i) % NO_SLOT;
+            if (SLOT_OWNER.get(slot) == null && SLOT_OWNER.compareAndSet(slot, null, me)) {
+                SLOT_WAIT[slot] = 0;
+                return slot;
+            }
+        }
+        return NO_SLOT;
+    }
+
+    /** Frees the slot and returns the connection wait charged to it. */
+    private static long releaseSlot(int slot) {
+        if (slot == NO_SLOT) return 0;
+        long waited = SLOT_WAIT[slot];
+        SLOT_OWNER.set(slot, null);
+        return waited;
+    }
+
+    private static void register(Operation op) {
+        try {
+            ObjectName name = new ObjectName("com.example.hospital:type=DaoMetrics,dao=" + op.dao
+                    + ",operation=" + op.method);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(op, name);
+        } catch (Exception e) {
+            e.printStackTrace(); // metrics still work, they just aren't visible over JMX
+        }
+    }
+
+    /** What JMX shows for one DAO operation. */
+    public interface OperationMXBean {
+        long getCalls();
+
+        long getErrors();
+
+        long getRows();
+
+        double getMeanMillis();
+
+        double getMaxMillis();
+
+        double getP50Millis();
+
+        double getP99Millis();
+
+        double getP999Millis();
+
+        double getConnectionWaitMillis();
+
+        void reset();
+    }
+
+    public static final class Operation implements OperationMXBean {
+        private final String dao;
+        private final String method;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong rows = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLong waitNanos = new AtomicLong();
+
+        private Operation(String dao, String method) {
+            this.dao = dao;
+            this.method = method;
+        }
+
+        /** Marks the start of a call; pass the result to {@link #stop(long)} in a finally block. */
+        public long start() {
+            int slot = claimSlot();
+            return (System.nanoTime() & ~(long) NO_SLOT) | slot;
+        }
+
+        public void stop(long start) {
+            long elapsed = System.nanoTime() - (start & ~(long) NO_SLOT);
+            waitNanos.addAndGet(releaseSlot((int) (start & NO_SLOT)));
+
+            calls.incrementAndGet();
+            totalNanos.addAndGet(elapsed);
+            latency.record(elapsed);
+            long max = maxNanos.get();
+            while (elapsed > max && !maxNanos.compareAndSet(max, elapsed)) {
+                max = maxNanos.get();
+            }
+        }
+
+        public void rows(long n) {
+            rows.addAndGet(n);
+        }
+
+        public void error() {
+            errors.incrementAndGet();
+        }
+
+        public String getName() {
+            return dao + "." + method;
+        }
+
+        @Override
+        public long getCalls() {
+            return calls.get();
+        }
+
+        @Override
+        public long getErrors() {
+            return errors.get();
+        }
+
+        @Override
+        public long getRows() {
+            return rows.get();
+        }
+
+        @Override
+        public double getMeanMillis() {
+            long n = calls.get();
+            return n == 0 ? 0 : totalNanos.get() / 1e6 / n;
+        }
+
+        @Override
+        public double getMaxMillis() {
+            return maxNanos.get() / 1e6;
+        }
+
+        @Override
+        public double getP50Millis() {
+            return latency.percentile(0.50) / 1e6;
+        }
+
+        @Override
+        public double getP99Millis() {
+            return latency.percentile(0.99) / 1e6;
+        }
+
+        @Override
+        public double getP999Millis() {
+            return latency.percentile(0.999) / 1e6;
+        }
+
+        @Override
+        public double getConnectionWaitMillis() {
+            return waitNanos.get() / 1e6;
+        }
+
+        @Override
+        public void reset() {
+            calls.set(0);
+            errors.set(0);
+            rows.set(0);
+            totalNanos.set(0);
+            maxNanos.set(0);
+            waitNanos.set(0);
+            latency.reset();
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "%s: calls=%d errors=%d rows=%d mean=%.3fms p50=%.3fms p99=%.3fms p99.9=%.3fms max=%.3fms wait=%.3fms",
+                    getName(), getCalls(), getErrors(), getRows(), getMeanMillis(), getP50Millis(),
+                    getP99Millis(), getP999Millis(), getMaxMillis(), getConnectionWaitMillis());
+        }
+    }
+}
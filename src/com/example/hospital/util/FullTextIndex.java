@@ -0,0 +1,376 @@
+package com.example.hospital.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+
+/**
+ * In-memory inverted index with BM25-ranked queries, used for searching free-text columns
+ * without LIKE '%term%' scans.
+ *
+ * 1) A document is a caller-chosen long key plus some text. The text is lowercased and split
+ *    on anything that isn't a letter or digit; common English words are dropped.
+ * 2) Every term maps to a {@link PostingList} of (doc, frequency) pairs, varint-compressed.
+ * 3) Documents get increasing internal numbers. Replacing or removing a document only marks
+ *    the old number dead; once dead ones outnumber live ones, the lists are rewritten
+ *    without them (see {@link #compact()}).
+ * 4) A query matches documents containing any of its terms, ranked by BM25, so documents
+ *    with more (and rarer) query terms come first.
+ * 5) {@link #save} / {@link #load} write the index to a file and read it back, so a restart
+ *    doesn't have to re-read every row. The file header carries a caller-chosen stamp
+ *    (see {@link #readStamp}) saying what data the index was built from.
+ *
+ * Safe for concurrent use: queries share a read lock, updates take the write lock.
+ */
+public final class FullTextIndex {
+
+    private static final int FORMAT = 0x48465432; // "HFT2", adds the stamp
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int MAX_TERM_LENGTH = 40;
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "has", "in", "is", "it",
+            "of", "on", "or", "the", "to", "was", "were", "with");
+
+    /** A matching document and its score; higher is better. */
+    public static final class Hit {
+        private final long key;
+        private final double score;
+
+        Hit(long key, double score) {
+            this.key = key;
+            this.score = score;
+        }
+
+        public long getKey() {
+            return key;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        @Override
+        public String toString() {
+            return key + String.format(Locale.ROOT, " (%.3f)", score);
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final Map<Long, Integer> docByKey = new HashMap<>(); // live documents only
+    private long[] keys = new long[64];
+    private int[] lengths = new int[64];
+    private final BitSet live = new BitSet();
+    private int docCount = 0;   // internal numbers handed out, live or dead
+    private long totalLength = 0; // terms in live documents
+
+    /** Splits text into index terms, the same way for documents and queries. */
+    public static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) return terms;
+        int i = 0;
+        int n = text.length();
+        while (i < n) {
+            while (i < n && !Character.isLetterOrDigit(text.charAt(i))) i++;
+            int start = i;
+            while (i < n && Character.isLetterOrDigit(text.charAt(i))) i++;
+            if (i > start) {
+                String term = text.substring(start, Math.min(i, start + MAX_TERM_LENGTH)).toLowerCase(Locale.ROOT);
+                if (!STOP_WORDS.contains(term)) {
+                    terms.add(term);
+                }
+            }
+        }
+        return terms;
+    }
+
+    /** Indexes the texts under key, replacing whatever was indexed under it before. */
+    public void put(long key, String... texts) {
+        Map<String, Integer> frequencies = new LinkedHashMap<>();
+        int length = 0;
+        for (String text : texts) {
+            for (String term : terms(text)) {
+                frequencies.merge(term, 1, Integer::sum);
+                length++;
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(key);
+            int doc = docCount++;
+            if (doc == keys.length) {
+                keys = Arrays.copyOf(keys, doc * 2);
+                lengths = Arrays.copyOf(lengths, doc * 2);
+            }
+            keys[doc] = key;
+            lengths[doc] = length;
+            live.set(doc);
+            docByKey.put(key, doc);
+            totalLength += length;
+            for (Map.Entry<String, Integer> e : frequencies.entrySet()) {
+                postings.computeIfAbsent(e.getKey(), t -> new PostingList()).add(doc, e.getValue());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Drops the document indexed under key; false if there was none. */
+    public boolean remove(long key) {
+        lock.writeLock().lock();
+        try {
+            return removeLocked(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean removeLocked(long key) {
+        Integer doc = docByKey.remove(key);
+        if (doc == null) return false;
+        live.clear(doc);
+        totalLength -= lengths[doc];
+        if (docCount - docByKey.size() > Math.max(1024, docByKey.size())) {
+            compactLocked();
+        }
+        return true;
+    }
+
+    /** Number of documents in the index. */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docByKey.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Calls action with the key of every document in the index. */
+    public void forEachKey(LongConsumer action) {
+        lock.readLock().lock();
+        try {
+            for (int doc = live.nextSetBit(0); doc >= 0; doc = live.nextSetBit(doc + 1)) {
+                action.accept(keys[doc]);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The best limit documents for the query whose key passes filter (null for all),
+     * best first. A query with no usable terms matches nothing.
+     */
+    public List<Hit> search(String query, int limit, LongPredicate filter) {
+        List<String> queryTerms = new ArrayList<>(new LinkedHashSet<>(terms(query)));
+        if (queryTerms.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            int liveCount = docByKey.size();
+            if (liveCount == 0) return Collections.emptyList();
+            double avgLength = Math.max(1.0, (double) totalLength / liveCount);
+            float[] scores = new float[docCount];
+            int[] touched = new int[16];
+            int touchedCount = 0;
+
+            for (String term : queryTerms) {
+                PostingList list = postings.get(term);
+                if (list == null) continue;
+
+                int[] docs = new int[list.size()];
+                int[] freqs = new int[list.size()];
+                int[] n = {0};
+                list.forEach((doc, frequency) -> {
+                    if (live.get(doc)) {
+                        docs[n[0]] = doc;
+                        freqs[n[0]] = frequency;
+                        n[0]++;
+                    }
+                });
+                int df = n[0];
+                if (df == 0) continue;
+                double idf = Math.log(1 + (liveCount - df + 0.5) / (df + 0.5));
+
+                for (int i = 0; i < df; i++) {
+                    int doc = docs[i];
+                    if (filter != null && !filter.test(keys[doc])) continue;
+                    double tf = freqs[i];
+                    double norm = K1 * (1 - B + B * lengths[doc] / avgLength);
+                    if (scores[doc] == 0) {
+                        if (touchedCount == touched.length) {
+                            touched = Arrays.copyOf(touched, touchedCount * 2);
+                        }
+                        touched[touchedCount++] = doc;
+                    }
+                    scores[doc] += (float) (idf * tf * (K1 + 1) / (tf + norm));
+                }
+            }
+
+            // keep the best ones in a min-heap of size limit
+            // (worst first: lower score, then the later document)
+            PriorityQueue<Integer> best = new PriorityQueue<>((a, b) -> scores[a] != scores[b]
+                    ? Float.compare(scores[a], scores[b]) : Integer.compare(b, a));
+            for (int i = 0; i < touchedCount; i++) {
+                best.add(touched[i]);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            Hit[] hits = new Hit[best.size()];
+            for (int i = hits.length - 1; i >= 0; i--) {
+                int doc = best.poll();
+                hits[i] = new Hit(keys[doc], scores[doc]);
+            }
+            return Arrays.asList(hits);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Rewrites the posting lists without removed documents and renumbers the rest. */
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            compactLocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void compactLocked() {
+        int[] renumbered = new int[docCount];
+        int next = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            if (live.get(doc)) {
+                keys[next] = keys[doc];
+                lengths[next] = lengths[doc];
+                docByKey.put(keys[next], next);
+                renumbered[doc] = next++;
+            } else {
+                renumbered[doc] = -1;
+            }
+        }
+        live.clear();
+        live.set(0, next);
+        docCount = next;
+
+        postings.replaceAll((term, list) -> {
+            PostingList kept = new PostingList();
+            list.forEach((doc, frequency) -> {
+                if (renumbered[doc] >= 0) kept.add(renumbered[doc], frequency);
+            });
+            return kept;
+        });
+        postings.values().removeIf(PostingList::isEmpty);
+    }
+
+    /** Approximate memory taken by the posting lists, in bytes (terms and documents not counted). */
+    public long postingBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (PostingList list : postings.values()) {
+                bytes += list.byteSize();
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the index to file (compacting it first), with stamp in the header. The file is
+     * written next to the target and moved into place, so a crash mid-write leaves the
+     * previous file intact.
+     */
+    public void save(Path file, String stamp) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        lock.writeLock().lock();
+        try {
+            compactLocked();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                out.writeInt(FORMAT);
+                out.writeUTF(stamp);
+                out.writeInt(docCount);
+                for (int doc = 0; doc < docCount; doc++) {
+                    out.writeLong(keys[doc]);
+                    out.writeInt(lengths[doc]);
+                }
+                out.writeInt(postings.size());
+                for (Map.Entry<String, PostingList> e : postings.entrySet()) {
+                    out.writeUTF(e.getKey());
+                    e.getValue().write(out);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** The stamp an index file was saved with, without reading the rest of it. */
+    public static String readStamp(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 512))) {
+            return readHeader(in, file);
+        }
+    }
+
+    /** Reads an index written by {@link #save}. */
+    public static FullTextIndex load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            readHeader(in, file);
+            FullTextIndex index = new FullTextIndex();
+            int docs = in.readInt();
+            index.keys = new long[Math.max(64, docs)];
+            index.lengths = new int[Math.max(64, docs)];
+            for (int doc = 0; doc < docs; doc++) {
+                index.keys[doc] = in.readLong();
+                index.lengths[doc] = in.readInt();
+                index.docByKey.put(index.keys[doc], doc);
+                index.totalLength += index.lengths[doc];
+            }
+            index.live.set(0, docs);
+            index.docCount = docs;
+
+            int termCount = in.readInt();
+            for (int i = 0; i < termCount; i++) {
+                String term = in.readUTF();
+                index.postings.put(term, PostingList.read(in));
+            }
+            return index;
+        }
+    }
+
+    private static String readHeader(DataInputStream in, Path file) throws IOException {
+        if (in.readInt() != FORMAT) {
+            throw new IOException("Not a search index file (or an older format): " + file);
+        }
+        return in.readUTF();
+    }
+}
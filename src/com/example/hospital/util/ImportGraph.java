@@ -0,0 +1,120 @@
+package com.example.hospital.util;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A small DAG scheduler for table imports.
+ *
+ * Each table is added together with the tables it references through foreign keys.
+ * A table starts as soon as all of its parents are loaded, and independent tables run
+ * concurrently, so a full reload takes as long as the longest dependency chain rather
+ * than the sum of all tables.
+ *
+ * Tables must be added after their parents. If a table fails, no further table is started
+ * (dependent or not), the ones already running are allowed to finish, and only then does
+ * {@link #run(int)} rethrow the first failure. The caller usually holds a lock around the
+ * import, so nothing may still be writing once run returns.
+ */
+class ImportGraph {
+
+    /** Loads one table, typically on its own pooled connection. */
+    @FunctionalInterface
+    interface TableTask {
+        ImportStats run() throws SQLException;
+    }
+
+    private static final class Node {
+        final TableTask task;
+        final String[] parents;
+
+        Node(TableTask task, String[] parents) {
+            this.task = task;
+            this.parents = parents;
+        }
+    }
+
+    private final Map<String, Node> nodes = new LinkedHashMap<>();
+
+    ImportGraph add(String table, TableTask task, String... dependsOn) {
+        for (String parent : dependsOn) {
+            if (!nodes.containsKey(parent)) {
+                throw new IllegalArgumentException(table + " depends on " + parent + ", which was not added before it");
+            }
+        }
+        nodes.put(table, new Node(task, dependsOn));
+        return this;
+    }
+
+    /**
+     * Runs every table on at most {@code parallelism} threads.
+     *
+     * @return stats per table, in the order the tables were added
+     */
+    List<ImportStats> run(int parallelism) throws SQLException {
+        AtomicInteger threadNo = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, parallelism), r -> {
+            Thread t = new Thread(r, "hospital-import-" + threadNo.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+        try {
+            Map<String, CompletableFuture<ImportStats>> futures = new LinkedHashMap<>();
+            for (Map.Entry<String, Node> e : nodes.entrySet()) {
+                Node node = e.getValue();
+                CompletableFuture<?>[] parents = new CompletableFuture<?>[node.parents.length];
+                for (int i = 0; i < parents.length; i++) {
+                    parents[i] = futures.get(node.parents[i]);
+                }
+                CompletableFuture<ImportStats> f = CompletableFuture.allOf(parents)
+                        .thenApplyAsync(ignored -> runTask(node.task, firstFailure), executor);
+                futures.put(e.getKey(), f);
+            }
+
+            // Wait for every table to settle, failed or not, before looking at the results
+            CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0]))
+                    .handle((ignored, error) -> null)
+                    .join();
+
+            Throwable cause = firstFailure.get();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            } else if (cause != null) {
+                throw new SQLException("Table import failed.", cause);
+            }
+            List<ImportStats> result = new ArrayList<>();
+            for (CompletableFuture<ImportStats> f : futures.values()) {
+                result.add(f.join());
+            }
+            return result;
+        } finally {
+            executor.shutdown(); // all tasks are done (or never started) by now
+        }
+    }
+
+    /**
+     * 1) Skips the table if another one has failed already.
+     * 2) Otherwise loads it and records the failure, if any, for {@link #run}.
+     */
+    private static ImportStats runTask(TableTask task, AtomicReference<Throwable> firstFailure) {
+        if (firstFailure.get() != null) {
+            throw new CompletionException(new SQLException("Skipped, another table failed."));
+        }
+        try {
+            return task.run();
+        } catch (SQLException | RuntimeException e) {
+            firstFailure.compareAndSet(null, e);
+            throw new CompletionException(e);
+        }
+    }
+}
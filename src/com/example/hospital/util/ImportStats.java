@@ -0,0 +1,111 @@
+package com.example.hospital.util;
+
+/**
+ * Per-table counters for one CSV import run.
+ *
+ * inserted = rows the server reports as written
+ * skipped  = blank lines and rows ignored by INSERT IGNORE (e.g. duplicate keys)
+ * unknown  = rows sent that the server didn't report on one by one: with useBulkStmts the
+ *            driver may answer SUCCESS_NO_INFO for a whole batch, so written and ignored
+ *            rows can't be told apart
+ * rejected = malformed lines (never sent) and rows of batches the server refused
+ *
+ * LOAD DATA only reports the rows it wrote, so an "infile" import leaves skipped uncounted
+ * and prints it as "?".
+ */
+public class ImportStats {
+
+    private final String table;
+    private final String method;
+    private long inserted;
+    private long skipped;
+    private long unknown;
+    private long rejected;
+    private long elapsedNanos;
+    private boolean skippedCounted = true;
+
+    public ImportStats(String table, String method) {
+        this.table = table;
+        this.method = method;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    /** How the rows were loaded, e.g. "batch" or "infile". */
+    public String getMethod() {
+        return method;
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    public long getSkipped() {
+        return skipped;
+    }
+
+    /** False if the load method can't tell how many rows were skipped (see {@link #getSkipped}). */
+    public boolean isSkippedCounted() {
+        return skippedCounted;
+    }
+
+    public long getUnknown() {
+        return unknown;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    void addInserted(long n) {
+        inserted += n;
+    }
+
+    void addSkipped(long n) {
+        skipped += n;
+    }
+
+    void skippedNotCounted() {
+        skippedCounted = false;
+    }
+
+    void addUnknown(long n) {
+        unknown += n;
+    }
+
+    void addRejected(long n) {
+        rejected += n;
+    }
+
+    /** Adds the row counts of a partial import (e.g. one chunk of a file) to this one. */
+    void merge(ImportStats other) {
+        inserted += other.inserted;
+        skipped += other.skipped;
+        unknown += other.unknown;
+        rejected += other.rejected;
+        skippedCounted &= other.skippedCounted;
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /** Rows read from the source per second, including skipped, unknown and rejected ones. */
+    public double rowsPerSecond() {
+        long total = inserted + skipped + unknown + rejected;
+        return elapsedNanos == 0 ? 0.0 : total * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-14s [%s] inserted=%d, skipped=%s, unknown=%d, rejected=%d, %.1f ms (%.0f rows/s)",
+                table, method, inserted, skippedCounted ? String.valueOf(skipped) : "?", unknown, rejected,
+                elapsedNanos / 1_000_000.0, rowsPerSecond());
+    }
+}
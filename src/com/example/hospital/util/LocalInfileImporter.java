@@ -0,0 +1,131 @@
+package com.example.hospital.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bulk-load path for the base tables using MariaDB's LOAD DATA LOCAL INFILE.
+ *
+ * The CSV resource is streamed straight from the classpath to the server through the
+ * driver's setLocalInfileInputStream, so no temp files are written. Each table's SET clause
+ * mirrors the column mapping of the matching load*CSV method in {@link DBConnection}:
+ * non-numeric IDs become 0, text is trimmed and dates that are not yyyy-MM-dd become today.
+ * Lines are split on '\n' only, so for CRLF files the '\r' ends up in each table's last
+ * column; {@link #lastField} strips it before the column is trimmed or parsed.
+ */
+class LocalInfileImporter {
+
+    // MariaDB answers with this when local infile is disabled on either side
+    private static final int ER_NOT_ALLOWED_COMMAND = 1148;
+    private static final int ER_LOAD_INFILE_CAPABILITY_DISABLED = 4166;
+
+    private static final Map<String, String> COLUMN_MAPPINGS = new HashMap<>();
+
+    static {
+        COLUMN_MAPPINGS.put("doctors",
+                "(@c1, @c2, @c3, @c4, @c5, @c6) SET"
+                        + " doctor_id = " + intOrZero("@c1") + ","
+                        + " firstname = TRIM(@c2), surname = TRIM(@c3), address = TRIM(@c4),"
+                        + " email = TRIM(@c5), specialization = TRIM(" + lastField("@c6") + ")");
+        COLUMN_MAPPINGS.put("insurance",
+                "(@c1, @c2, @c3, @c4) SET"
+                        + " insurance_id = " + intOrZero("@c1") + ","
+                        + " company = TRIM(@c2), address = TRIM(@c3), phone = TRIM(" + lastField("@c4") + ")");
+        COLUMN_MAPPINGS.put("patients",
+                "(@c1, @c2, @c3, @c4, @c5, @c6, @c7, @c8) SET"
+                        + " patient_id = " + intOrZero("@c1") + ","
+                        + " firstname = TRIM(@c2), surname = TRIM(@c3), postcode = TRIM(@c4),"
+                        + " address = TRIM(@c5), phone = TRIM(@c6), email = TRIM(@c7),"
+                        + " insurance_id = " + intOrZero(lastField("@c8")));
+        COLUMN_MAPPINGS.put("drugs",
+                "(@c1, @c2, @c3, @c4) SET"
+                        + " drug_id = " + intOrZero("@c1") + ","
+                        + " name = TRIM(@c2), sideeffects = TRIM(@c3), benefits = TRIM(" + lastField("@c4") + ")");
+        COLUMN_MAPPINGS.put("visits",
+                "(@c1, @c2, @c3, @c4, @c5) SET"
+                        + " patientID = " + intOrZero("@c1") + ","
+                        + " doctorID = " + intOrZero("@c2") + ","
+                        + " dateofvisit = " + dateOrToday("@c3") + ","
+                        + " symptoms = TRIM(@c4), diagnosis = TRIM(" + lastField("@c5") + "),"
+                        + " import_key = SHA2(CONCAT_WS(CHAR(31), TRIM(@c1), TRIM(@c2), TRIM(@c3),"
+                        + " TRIM(@c4), TRIM(" + lastField("@c5") + ")), 256)"); // = DBConnection.importKey
+        COLUMN_MAPPINGS.put("prescriptions",
+                "(@c1, @c2, @c3, @c4, @c5, @c6, @c7, @c8) SET"
+                        + " prescriptionID = " + intOrZero("@c1") + ","
+                        + " dateprescribed = " + dateOrToday("@c2") + ","
+                        + " dosage = TRIM(@c3), duration = TRIM(@c4), comment = TRIM(@c5),"
+                        + " drugID = " + intOrZero("@c6") + ","
+                        + " doctorID = " + intOrZero("@c7") + ","
+                        + " patientID = " + intOrZero(lastField("@c8")));
+    }
+
+    private LocalInfileImporter() {
+    }
+
+    /** The last column of a line, without the '\r' a CRLF line ending leaves behind (TRIM keeps it). */
+    private static String lastField(String var) {
+        return "TRIM(TRAILING '\\r' FROM " + var + ")";
+    }
+
+    /** Like CsvReader.getInt(i, 0): anything that is not an integer (of up to 9 digits) becomes 0. */
+    private static String intOrZero(String var) {
+        return "IF(TRIM(" + var + ") REGEXP '^-?[0-9]{1,9}$', TRIM(" + var + "), 0)";
+    }
+
+    /** Same as parseSqlDate: anything that is not yyyy-MM-dd becomes today. */
+    private static String dateOrToday(String var) {
+        return "IF(TRIM(" + var + ") REGEXP '^[0-9]{4}-[0-9]{2}-[0-9]{2}$', TRIM(" + var + "), CURDATE())";
+    }
+
+    static boolean supports(String table) {
+        return COLUMN_MAPPINGS.containsKey(table);
+    }
+
+    /** True if the exception means local infile is switched off, so the caller should fall back. */
+    static boolean isDisabledError(SQLException e) {
+        return e.getErrorCode() == ER_NOT_ALLOWED_COMMAND
+                || e.getErrorCode() == ER_LOAD_INFILE_CAPABILITY_DISABLED;
+    }
+
+    /**
+     * Streams one classpath CSV into its table. The server only reports the rows it wrote, and
+     * counting lines on the way through would be wrong as soon as a quoted field holds a
+     * newline, so the rows it ignored (duplicate keys, conversion problems) are left uncounted.
+     */
+    static ImportStats load(Connection conn, String table, String resourcePath) throws SQLException {
+        String mapping = COLUMN_MAPPINGS.get(table);
+        if (mapping == null) {
+            throw new SQLException("No LOAD DATA column mapping for table " + table);
+        }
+        String sql = "LOAD DATA LOCAL INFILE '" + table + ".csv' IGNORE INTO TABLE " + table
+                + " CHARACTER SET utf8mb4"
+                + " FIELDS TERMINATED BY ',' OPTIONALLY ENCLOSED BY '\"'"
+                + " LINES TERMINATED BY '\\n'"
+                + " IGNORE 1 LINES "
+                + mapping;
+
+        ImportStats stats = new ImportStats(table, "infile");
+        long start = System.nanoTime();
+        try (InputStream raw = DBConnection.class.getResourceAsStream(resourcePath)) {
+            if (raw == null) {
+                System.err.println(table + " CSV not found: " + resourcePath);
+                return stats;
+            }
+            try (Statement st = conn.createStatement()) {
+                st.unwrap(org.mariadb.jdbc.Statement.class).setLocalInfileInputStream(raw);
+                stats.addInserted(st.executeLargeUpdate(sql));
+                stats.skippedNotCounted();
+            }
+        } catch (IOException e) {
+            throw new SQLException("Could not read " + resourcePath, e);
+        } finally {
+            stats.setElapsedNanos(System.nanoTime() - start);
+        }
+        return stats;
+    }
+}
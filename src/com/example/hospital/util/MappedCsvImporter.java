@@ -0,0 +1,287 @@
+package com.example.hospital.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Imports large CSV extracts from the filesystem (e.g. multi-GB visit or prescription dumps).
+ *
+ * 1) One sequential pass over the memory-mapped file finds record-aligned chunk boundaries:
+ *    only newlines outside quoted fields qualify, so quoted newlines never split a record.
+ * 2) The chunks are mapped with FileChannel.map and parsed with {@link CsvReader} on a
+ *    ForkJoinPool. Decoding is streamed through a small buffer, so a chunk never exists as
+ *    a whole in the heap (a 32 MB chunk of ASCII would otherwise be 64 MB of chars).
+ * 3) Each chunk is fed into the same table loader {@link DBConnection} uses for the bundled
+ *    CSVs, on its own pooled connection. That loader commits as it goes, and chunks commit
+ *    independently, so a failed import leaves the rows of finished chunks (and part of the
+ *    failing ones) in the table.
+ * 4) Finished chunks are therefore recorded in "<file>.import-progress". Importing the same
+ *    file again (same size, modification time and chunk size) skips them and loads the
+ *    rest; the loaders use INSERT IGNORE, so the partly loaded chunks are just re-run.
+ *    The progress file is deleted once the whole file is in.
+ *
+ * Parallelism is capped by the pool size so chunk tasks never queue on connections.
+ * The file must be UTF-8 and start with a header line.
+ */
+class MappedCsvImporter {
+
+    private static final long DEFAULT_CHUNK_BYTES = 32L * 1024 * 1024;
+    // Window used for the boundary scan; FileChannel.map is limited to 2 GB per mapping
+    private static final long SCAN_WINDOW_BYTES = 512L * 1024 * 1024;
+
+    private final ConnectionPool pool;
+    private final long chunkBytes;
+    private final int parallelism;
+
+    MappedCsvImporter(ConnectionPool pool, long chunkBytes, int parallelism) {
+        this.pool = pool;
+        this.chunkBytes = chunkBytes > 0 ? chunkBytes : DEFAULT_CHUNK_BYTES;
+        this.parallelism = Math.max(1, Math.min(parallelism, pool.getConfig().maxSize));
+    }
+
+    ImportStats importFile(String table, Path file) throws SQLException {
+        DBConnection.TableSpec spec = DBConnection.tableSpec(table);
+        if (spec == null) {
+            throw new SQLException("Unknown table for CSV import: " + table);
+        }
+
+        ImportStats total = new ImportStats(table, "mmap");
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = findChunkBounds(channel, chunkBytes);
+            ChunkProgress progress = ChunkProgress.open(file, chunkBytes);
+            if (progress.doneCount() > 0) {
+                System.out.println("Resuming " + file + ": " + progress.doneCount() + " of "
+                        + (bounds.length - 1) + " chunk(s) already imported.");
+            }
+            ForkJoinPool fj = new ForkJoinPool(parallelism);
+            try {
+                List<ImportStats> parts = fj.invoke(new ChunkTask(channel, spec, bounds, 0, bounds.length - 1, progress));
+                for (ImportStats part : parts) {
+                    total.merge(part);
+                }
+            } finally {
+                fj.shutdown();
+            }
+            progress.delete();
+        } catch (IOException e) {
+            throw new SQLException("Could not read " + file, e);
+        } catch (ChunkFailure e) {
+            throw e.sqlCause;
+        } finally {
+            total.setElapsedNanos(System.nanoTime() - start);
+        }
+        return total;
+    }
+
+    /**
+     * Returns chunk start offsets plus the file size as the last element. Chunk 0 starts after
+     * the header line; every other chunk starts right after a newline that is not inside quotes.
+     * Doubled quotes ("") toggle the quote state twice, so tracking parity is enough.
+     */
+    static long[] findChunkBounds(FileChannel channel, long chunkBytes) throws IOException {
+        long size = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        boolean inQuotes = false;
+        boolean headerDone = false;
+        long nextTarget = 0;
+
+        for (long windowStart = 0; windowStart < size; windowStart += SCAN_WINDOW_BYTES) {
+            long len = Math.min(SCAN_WINDOW_BYTES, size - windowStart);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, len);
+            for (int i = 0; i < len; i++) {
+                byte b = window.get(i);
+                if (b == '"') {
+                    inQuotes = !inQuotes;
+                } else if (b == '\n' && !inQuotes) {
+                    long recordStart = windowStart + i + 1;
+                    if (!headerDone) {
+                        headerDone = true;
+                        bounds.add(recordStart);
+                        nextTarget = recordStart + chunkBytes;
+                    } else if (recordStart >= nextTarget && recordStart < size) {
+                        bounds.add(recordStart);
+                        nextTarget = recordStart + chunkBytes;
+                    }
+                }
+            }
+        }
+        if (bounds.isEmpty()) {
+            bounds.add(size); // header only (or empty file)
+        }
+        bounds.add(size);
+
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    /** Splits the chunk range in halves until one chunk is left, then loads it. */
+    private final class ChunkTask extends RecursiveTask<List<ImportStats>> {
+        private final FileChannel channel;
+        private final DBConnection.TableSpec spec;
+        private final long[] bounds;
+        private final int from; // first chunk index (inclusive)
+        private final int to;   // last chunk index (exclusive)
+        private final ChunkProgress progress;
+
+        ChunkTask(FileChannel channel, DBConnection.TableSpec spec, long[] bounds, int from, int to,
+                  ChunkProgress progress) {
+            this.channel = channel;
+            this.spec = spec;
+            this.bounds = bounds;
+            this.from = from;
+            this.to = to;
+            this.progress = progress;
+        }
+
+        @Override
+        protected List<ImportStats> compute() {
+            if (to - from <= 1) {
+                List<ImportStats> single = new ArrayList<>();
+                if (to > from) {
+                    single.add(loadChunk(bounds[from], bounds[to]));
+                }
+                return single;
+            }
+            int mid = (from + to) >>> 1;
+            ChunkTask left = new ChunkTask(channel, spec, bounds, from, mid, progress);
+            ChunkTask right = new ChunkTask(channel, spec, bounds, mid, to, progress);
+            left.fork();
+            List<ImportStats> result = new ArrayList<>(right.compute());
+            result.addAll(left.join());
+            return result;
+        }
+
+        private ImportStats loadChunk(long start, long end) {
+            ImportStats stats = new ImportStats(spec.table, "mmap");
+            if (end <= start || progress.isDone(start)) {
+                return stats;
+            }
+            try {
+                MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                // Decoded as it is parsed; the decoder reports (rather than replaces) invalid UTF-8,
+                // and chunks end on a record boundary, so no UTF-8 sequence is cut in half
+                CsvReader row = new CsvReader(new InputStreamReader(new ByteBufferInputStream(bytes),
+                        StandardCharsets.UTF_8.newDecoder()));
+                try (Connection conn = pool.borrow()) {
+                    DBConnection.loadRows(conn, row, spec, stats);
+                }
+                progress.markDone(start);
+            } catch (IOException e) {
+                throw new ChunkFailure(new SQLException("Could not read " + spec.table + " CSV chunk at byte " + start
+                        + " (or record it as done)", e));
+            } catch (SQLException e) {
+                throw new ChunkFailure(new SQLException("Import of " + spec.table + " CSV chunk at byte " + start
+                        + " failed: " + e.getMessage(), e.getSQLState(), e.getErrorCode(), e));
+            }
+            return stats;
+        }
+    }
+
+    /** Reads a (mapped) buffer as a stream, so an InputStreamReader can decode it piece by piece. */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buf;
+
+        ByteBufferInputStream(ByteBuffer buf) {
+            this.buf = buf;
+        }
+
+        @Override
+        public int read() {
+            return buf.hasRemaining() ? buf.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) return 0;
+            if (!buf.hasRemaining()) return -1;
+            int n = Math.min(len, buf.remaining());
+            buf.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buf.remaining();
+        }
+    }
+
+    /**
+     * The chunks of one file that are committed, by start offset, kept in "<file>.import-progress":
+     * a header line identifying the file and chunk size, then one offset per finished chunk.
+     */
+    static final class ChunkProgress {
+        private final Path path;
+        private final Set<Long> done = ConcurrentHashMap.newKeySet();
+
+        private ChunkProgress(Path path) {
+            this.path = path;
+        }
+
+        /** Reads the progress of an earlier run of the same import, or starts a new record. */
+        static ChunkProgress open(Path file, long chunkBytes) throws IOException {
+            ChunkProgress progress = new ChunkProgress(file.resolveSibling(file.getFileName() + ".import-progress"));
+            String header = "size=" + Files.size(file) + " modified=" + Files.getLastModifiedTime(file).toMillis()
+                    + " chunkBytes=" + chunkBytes;
+            if (Files.isRegularFile(progress.path)) {
+                String text = Files.readString(progress.path, StandardCharsets.UTF_8);
+                // only whole lines count: one cut short by a crash could be a prefix of another offset
+                String[] lines = text.substring(0, text.lastIndexOf('\n') + 1).split("\n");
+                if (lines[0].equals(header)) {
+                    for (int i = 1; i < lines.length; i++) {
+                        progress.done.add(Long.parseLong(lines[i]));
+                    }
+                    return progress;
+                }
+            }
+            Files.writeString(progress.path, header + "\n", StandardCharsets.UTF_8);
+            return progress;
+        }
+
+        int doneCount() {
+            return done.size();
+        }
+
+        boolean isDone(long chunkStart) {
+            return done.contains(chunkStart);
+        }
+
+        synchronized void markDone(long chunkStart) throws IOException {
+            Files.writeString(path, chunkStart + "\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+            done.add(chunkStart);
+        }
+
+        void delete() throws IOException {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    /** Carries a checked SQLException out of a fork-join task. */
+    private static final class ChunkFailure extends RuntimeException {
+        final SQLException sqlCause;
+
+        ChunkFailure(SQLException cause) {
+            super(cause);
+            this.sqlCause = cause;
+        }
+    }
+}
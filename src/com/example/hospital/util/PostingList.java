@@ -0,0 +1,101 @@
+package com.example.hospital.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The documents containing one term, for {@link FullTextIndex}, as a compressed byte array.
+ *
+ * Entries are (doc, term frequency) pairs in increasing doc order. Each is stored as two
+ * varints: the gap to the previous doc and the frequency. Doc ids only grow, so new
+ * documents are appended and nothing is ever decoded just to add one. A typical entry
+ * takes two bytes instead of the eight of two ints.
+ */
+final class PostingList {
+
+    /** Receives the entries of a list, in doc order. */
+    interface Visitor {
+        void posting(int doc, int frequency);
+    }
+
+    private byte[] data = new byte[8];
+    private int length = 0;
+    private int count = 0;
+    private int lastDoc = -1;
+
+    /** Appends an entry; doc must be greater than every doc already in the list. */
+    void add(int doc, int frequency) {
+        if (doc <= lastDoc) {
+            throw new IllegalArgumentException("doc " + doc + " after " + lastDoc);
+        }
+        if (length + 10 > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, length + 10));
+        }
+        writeVarint(doc - lastDoc);
+        writeVarint(frequency);
+        lastDoc = doc;
+        count++;
+    }
+
+    /** Number of entries, including ones for documents removed since the last compaction. */
+    int size() {
+        return count;
+    }
+
+    boolean isEmpty() {
+        return count == 0;
+    }
+
+    void forEach(Visitor visitor) {
+        int pos = 0;
+        int doc = -1;
+        while (pos < length) {
+            int gap = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = data[pos++];
+                gap |= (b & 0x7F) << shift;
+                if (b >= 0) break;
+            }
+            int frequency = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = data[pos++];
+                frequency |= (b & 0x7F) << shift;
+                if (b >= 0) break;
+            }
+            doc += gap;
+            visitor.posting(doc, frequency);
+        }
+    }
+
+    /** Bytes used by the entries. */
+    int byteSize() {
+        return length;
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeInt(count);
+        out.writeInt(lastDoc);
+        out.writeInt(length);
+        out.write(data, 0, length);
+    }
+
+    static PostingList read(DataInput in) throws IOException {
+        PostingList list = new PostingList();
+        list.count = in.readInt();
+        list.lastDoc = in.readInt();
+        list.length = in.readInt();
+        list.data = new byte[Math.max(8, list.length)];
+        in.readFully(list.data, 0, list.length);
+        return list;
+    }
+
+    private void writeVarint(int value) {
+        while ((value & ~0x7F) != 0) {
+            data[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[length++] = (byte) value;
+    }
+}
@@ -0,0 +1,415 @@
+package com.example.hospital.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory typeahead index: finds rows by the start of any word of their name.
+ *
+ * 1) Each row is an int id plus a display label, e.g. "Smith, John". Every word of the
+ *    label (lowercased, split on anything but letters and digits) becomes an entry.
+ * 2) The bulk of the entries sit in one sorted array: the words packed into a single char[]
+ *    with offsets, next to an int[] of ids. A prefix is a binary search plus a short scan,
+ *    and a row costs a few dozen bytes rather than several objects.
+ * 3) Changes go to a small sorted delta; ids changed since the last merge are ignored in the
+ *    array. The delta is merged into a new array once it reaches 1/16 of the array's size.
+ * 4) A query of several words matches rows where every word is the start of some word of the
+ *    label ("jo smi" finds "Smith, John"). If that finds fewer rows than asked for, the
+ *    longest word is retried with one typo allowed (a letter missing, extra, wrong or swapped).
+ *
+ * Results come in alphabetical order of the matched word. Safe for concurrent use.
+ */
+public final class PrefixIndex {
+
+    private static final int MIN_MERGE = 4096;
+    private static final int MAX_SCAN = 5_000; // candidates checked per query, typo retries included
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz";
+
+    /** One row found by {@link #find}. */
+    public static final class Match {
+        private final int id;
+        private final String label;
+        private final boolean fuzzy;
+
+        Match(int id, String label, boolean fuzzy) {
+            this.id = id;
+            this.label = label;
+            this.fuzzy = fuzzy;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        /** True if it only matched with a typo allowed. */
+        public boolean isFuzzy() {
+            return fuzzy;
+        }
+
+        @Override
+        public String toString() {
+            return label + " (#" + id + ")";
+        }
+    }
+
+    /** Collects rows for a new index; not thread-safe. */
+    public static final class Builder {
+        private final List<String> labels = new ArrayList<>();
+        private int[] ids = new int[64];
+
+        public Builder add(int id, String label) {
+            if (labels.size() == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length * 2);
+            }
+            ids[labels.size()] = id;
+            labels.add(label == null ? "" : label);
+            return this;
+        }
+
+        public PrefixIndex build() {
+            Map<Integer, String> rows = new HashMap<>(labels.size() * 2);
+            for (int i = 0; i < labels.size(); i++) {
+                rows.put(ids[i], labels.get(i)); // a later row for the same id wins
+            }
+            PrefixIndex index = new PrefixIndex();
+            index.rebuild(rows);
+            return index;
+        }
+    }
+
+    /** A word of a label, with the row it belongs to. */
+    private static final class Entry {
+        final String word;
+        final int id;
+
+        Entry(String word, int id) {
+            this.word = word;
+            this.id = id;
+        }
+    }
+
+    private static final Comparator<Entry> ENTRY_ORDER =
+            Comparator.<Entry, String>comparing(e -> e.word).thenComparingInt(e -> e.id);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // the sorted array: entry i is the word wordChars[wordStart[i] .. wordStart[i + 1]) of row entryIds[i]
+    private char[] wordChars = new char[0];
+    private int[] wordStart = {0};
+    private int[] entryIds = new int[0];
+    // labels of the rows in the array, by id
+    private int[] labelIds = new int[0];
+    private char[] labelChars = new char[0];
+    private int[] labelStart = {0};
+
+    // changes since the array was built
+    private final TreeSet<Entry> delta = new TreeSet<>(ENTRY_ORDER);
+    private final Map<Integer, String> deltaLabels = new HashMap<>();
+    private final Set<Integer> changed = new HashSet<>(); // ids whose array entries are out of date
+
+    /** An empty index; see {@link Builder} for loading many rows at once. */
+    public PrefixIndex() {
+    }
+
+    /** Splits a label or a query into lowercase words. */
+    public static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) return words;
+        int i = 0;
+        int n = text.length();
+        while (i < n) {
+            while (i < n && !Character.isLetterOrDigit(text.charAt(i))) i++;
+            int start = i;
+            while (i < n && Character.isLetterOrDigit(text.charAt(i))) i++;
+            if (i > start) {
+                words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+            }
+        }
+        return words;
+    }
+
+    /** Adds the row, or replaces its label if the id is already there. */
+    public void put(int id, String label) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            String text = label == null ? "" : label;
+            deltaLabels.put(id, text);
+            for (String word : new LinkedHashSet<>(words(text))) {
+                delta.add(new Entry(word, id));
+            }
+            mergeIfLarge();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            mergeIfLarge();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(int id) {
+        String old = deltaLabels.remove(id);
+        if (old != null) {
+            for (String word : words(old)) {
+                delta.remove(new Entry(word, id));
+            }
+        }
+        if (Arrays.binarySearch(labelIds, id) >= 0) {
+            changed.add(id);
+        }
+    }
+
+    /** True if the row is in the index. */
+    public boolean contains(int id) {
+        lock.readLock().lock();
+        try {
+            return deltaLabels.containsKey(id)
+                    || (Arrays.binarySearch(labelIds, id) >= 0 && !changed.contains(id));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Number of rows. */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            // changed ids are all in the array; the ones still present are in deltaLabels
+            return labelIds.length - changed.size() + deltaLabels.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** The first limit rows matching the query (see the class comment), exact matches first. */
+    public List<Match> find(String query, int limit) {
+        List<String> words = words(query);
+        if (words.isEmpty() || limit <= 0) return new ArrayList<>();
+
+        String longest = words.get(0);
+        for (String w : words) {
+            if (w.length() > longest.length()) longest = w;
+        }
+        List<String> others = new ArrayList<>(words);
+        others.remove(longest);
+
+        Map<Integer, Match> found = new LinkedHashMap<>();
+        int[] budget = {MAX_SCAN};
+        lock.readLock().lock();
+        try {
+            scan(longest, others, limit, false, found, budget);
+            if (found.size() < limit && longest.length() >= 3) {
+                for (String variant : oneTypoAway(longest)) {
+                    scan(variant, others, limit, true, found, budget);
+                    if (found.size() >= limit || budget[0] <= 0) break;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new ArrayList<>(found.values());
+    }
+
+    /** Walks the array and the delta in word order from prefix, adding rows that match. */
+    private void scan(String prefix, List<String> others, int limit, boolean fuzzy,
+                      Map<Integer, Match> found, int[] budget) {
+        int i = lowerBound(prefix);
+        Iterator<Entry> deltaIt = delta.tailSet(new Entry(prefix, Integer.MIN_VALUE), true).iterator();
+        Entry next = deltaIt.hasNext() ? deltaIt.next() : null;
+        while (found.size() < limit && budget[0]-- > 0) {
+            boolean arrayLeft = i < entryIds.length && arrayWordStartsWith(i, prefix);
+            boolean deltaLeft = next != null && next.word.startsWith(prefix);
+            int id;
+            if (arrayLeft && (!deltaLeft || compareArrayWord(i, next.word) <= 0)) {
+                id = entryIds[i++];
+                if (changed.contains(id)) continue;
+            } else if (deltaLeft) {
+                id = next.id;
+                next = deltaIt.hasNext() ? deltaIt.next() : null;
+            } else {
+                break;
+            }
+            if (found.containsKey(id)) continue;
+
+            String label = labelOf(id);
+            if (label != null && containsAll(label, others)) {
+                found.put(id, new Match(id, label, fuzzy));
+            }
+        }
+    }
+
+    private static boolean containsAll(String label, List<String> prefixes) {
+        if (prefixes.isEmpty()) return true;
+        List<String> labelWords = words(label);
+        for (String p : prefixes) {
+            boolean any = false;
+            for (String w : labelWords) {
+                if (w.startsWith(p)) {
+                    any = true;
+                    break;
+                }
+            }
+            if (!any) return false;
+        }
+        return true;
+    }
+
+    /** Words one edit away from word: one letter deleted, swapped with the next, replaced or inserted. */
+    private static Set<String> oneTypoAway(String word) {
+        Set<String> variants = new LinkedHashSet<>();
+        int n = word.length();
+        for (int i = 0; i < n; i++) {
+            variants.add(word.substring(0, i) + word.substring(i + 1));
+        }
+        for (int i = 0; i + 1 < n; i++) {
+            variants.add(word.substring(0, i) + word.charAt(i + 1) + word.charAt(i) + word.substring(i + 2));
+        }
+        for (int i = 0; i < n; i++) {
+            for (int c = 0; c < ALPHABET.length(); c++) {
+                variants.add(word.substring(0, i) + ALPHABET.charAt(c) + word.substring(i + 1));
+                variants.add(word.substring(0, i) + ALPHABET.charAt(c) + word.substring(i));
+            }
+        }
+        variants.remove(word);
+        variants.remove("");
+        return variants;
+    }
+
+    private String labelOf(int id) {
+        String label = deltaLabels.get(id);
+        if (label != null) return label;
+        if (changed.contains(id)) return null; // removed
+        int k = Arrays.binarySearch(labelIds, id);
+        return k < 0 ? null : new String(labelChars, labelStart[k], labelStart[k + 1] - labelStart[k]);
+    }
+
+    // ---- the sorted array
+
+    /** First entry whose word is >= s. */
+    private int lowerBound(String s) {
+        int lo = 0;
+        int hi = entryIds.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compareArrayWord(mid, s) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private int compareArrayWord(int i, String s) {
+        int start = wordStart[i];
+        int len = wordStart[i + 1] - start;
+        int n = Math.min(len, s.length());
+        for (int k = 0; k < n; k++) {
+            char a = wordChars[start + k];
+            char b = s.charAt(k);
+            if (a != b) return a - b;
+        }
+        return len - s.length();
+    }
+
+    private boolean arrayWordStartsWith(int i, String prefix) {
+        int start = wordStart[i];
+        if (wordStart[i + 1] - start < prefix.length()) return false;
+        for (int k = 0; k < prefix.length(); k++) {
+            if (wordChars[start + k] != prefix.charAt(k)) return false;
+        }
+        return true;
+    }
+
+    private void mergeIfLarge() {
+        if (changed.size() + deltaLabels.size() < Math.max(MIN_MERGE, labelIds.length / 16)) {
+            return;
+        }
+        Map<Integer, String> rows = new HashMap<>((labelIds.length + deltaLabels.size()) * 2);
+        for (int k = 0; k < labelIds.length; k++) {
+            if (!changed.contains(labelIds[k])) {
+                rows.put(labelIds[k], new String(labelChars, labelStart[k], labelStart[k + 1] - labelStart[k]));
+            }
+        }
+        rows.putAll(deltaLabels);
+        rebuild(rows);
+    }
+
+    /** Replaces the array with the given rows and empties the delta. */
+    private void rebuild(Map<Integer, String> rows) {
+        int[] ids = new int[rows.size()];
+        int k = 0;
+        int labelLength = 0;
+        for (Map.Entry<Integer, String> row : rows.entrySet()) {
+            ids[k++] = row.getKey();
+            labelLength += row.getValue().length();
+        }
+        Arrays.sort(ids);
+
+        List<Entry> entries = new ArrayList<>(rows.size() * 2);
+        char[] lChars = new char[labelLength];
+        int[] lStart = new int[ids.length + 1];
+        int pos = 0;
+        for (k = 0; k < ids.length; k++) {
+            String label = rows.get(ids[k]);
+            label.getChars(0, label.length(), lChars, pos);
+            lStart[k] = pos;
+            pos += label.length();
+            for (String word : new LinkedHashSet<>(words(label))) {
+                entries.add(new Entry(word, ids[k]));
+            }
+        }
+        lStart[ids.length] = pos;
+        entries.sort(ENTRY_ORDER);
+
+        int wordLength = 0;
+        for (Entry e : entries) {
+            wordLength += e.word.length();
+        }
+        char[] wChars = new char[wordLength];
+        int[] wStart = new int[entries.size() + 1];
+        int[] eIds = new int[entries.size()];
+        pos = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            Entry e = entries.get(i);
+            e.word.getChars(0, e.word.length(), wChars, pos);
+            wStart[i] = pos;
+            eIds[i] = e.id;
+            pos += e.word.length();
+        }
+        wStart[entries.size()] = pos;
+
+        wordChars = wChars;
+        wordStart = wStart;
+        entryIds = eIds;
+        labelIds = ids;
+        labelChars = lChars;
+        labelStart = lStart;
+        delta.clear();
+        deltaLabels.clear();
+        changed.clear();
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.hospital.util;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lets a caller cancel the SQL a background task is running, without the DAOs knowing about it.
+ *
+ * 1) The task binds a {@link Token} to its worker thread before calling the DAOs.
+ * 2) Every statement created on that thread through a pooled connection registers itself
+ *    with the token (see {@link ConnectionPool}).
+ * 3) {@link Token#cancel()} calls Statement.cancel() on them, which stops the query on the
+ *    server. Statements created afterwards on that thread fail straight away, so a DAO method
+ *    running several queries stops at the next one.
+ */
+public final class QueryCancellation {
+
+    private static final ThreadLocal<Token> CURRENT = new ThreadLocal<>();
+
+    private QueryCancellation() {
+    }
+
+    /** Binds the token to the calling thread until {@link #unbind()}. */
+    public static void bind(Token token) {
+        CURRENT.set(token);
+    }
+
+    public static void unbind() {
+        CURRENT.remove();
+    }
+
+    /** Called by the pool for each statement it hands out. */
+    static void register(Statement stmt) throws SQLException {
+        Token token = CURRENT.get();
+        if (token != null) {
+            token.register(stmt);
+        }
+    }
+
+    public static final class Token {
+        private final List<Statement> statements = new ArrayList<>();
+        private volatile boolean cancelled = false;
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /** Cancels the statements registered so far; safe to call from any thread. */
+        public void cancel() {
+            List<Statement> running;
+            synchronized (this) {
+                if (cancelled) return;
+                cancelled = true;
+                running = new ArrayList<>(statements);
+                statements.clear();
+            }
+            for (Statement stmt : running) {
+                try {
+                    if (!stmt.isClosed()) {
+                        stmt.cancel();
+                    }
+                } catch (SQLException ignored) {
+                    // the statement finished or its connection went away meanwhile
+                }
+            }
+        }
+
+        private synchronized void register(Statement stmt) throws SQLException {
+            if (cancelled) {
+                stmt.close();
+                throw new SQLException("Query cancelled by user.", "70100");
+            }
+            // drop the ones already closed so a long task doesn't pile them up
+            statements.removeIf(s -> {
+                try {
+                    return s.isClosed();
+                } catch (SQLException e) {
+                    return true;
+                }
+            });
+            statements.add(stmt);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.hospital.util;
+
+import com.example.hospital.dao.SqlRegistry;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Diagnostic: runs EXPLAIN on every statement the DAOs prepare and flags full table scans.
+ *
+ * Run it against a bootstrapped database:
+ *   java -cp ... com.example.hospital.util.QueryPlanCheck
+ *
+ * 1) The DAO statements come from {@link SqlRegistry}, i.e. the DAOs' own SQL constants,
+ *    reads and writes alike (EXPLAIN only plans an INSERT/UPDATE/DELETE, it doesn't run it).
+ *    Every ? gets the value 1, except where SAMPLES has something more telling.
+ * 2) A few extra probes check the access paths that SchemaBootstrap.INDEXES is there for.
+ * 3) Every plan row is printed; rows with access type ALL (full scan) or "Using filesort"
+ *    are flagged, except for statements that read a whole table on purpose (list all,
+ *    stream, count) and for the target row of an INSERT, which has no access path.
+ *
+ * The exit status is the number of flagged statements, so it can gate a CI step.
+ * Note that on a tiny table the optimizer may prefer a scan even when an index exists,
+ * so a flag on the bundled sample data is worth a look, not necessarily a bug.
+ */
+public class QueryPlanCheck {
+
+    /** One statement to explain, with sample parameter values. */
+    private static final class Probe {
+        final String name;
+        final String sql;
+        final Object[] params;
+        final boolean scanExpected;
+
+        Probe(String name, boolean scanExpected, String sql, Object... params) {
+            this.name = name;
+            this.sql = sql;
+            this.params = params;
+            this.scanExpected = scanExpected;
+        }
+    }
+
+    private static final Date FIRST_DAY = Date.valueOf("1000-01-01");
+    private static final Date LAST_DAY = Date.valueOf("9999-12-31");
+
+    // Parameters for DAO statements that compare dates; by registry name
+    private static final Map<String, Object[]> SAMPLES = Map.of(
+            // patient, from, to, seek date, seek date, seek id, page size
+            "PatientTimelineDAO.VISITS_ASC_SQL",
+            new Object[]{1, FIRST_DAY, LAST_DAY, FIRST_DAY, FIRST_DAY, 0, 200},
+            "PatientTimelineDAO.VISITS_DESC_SQL",
+            new Object[]{1, FIRST_DAY, LAST_DAY, LAST_DAY, LAST_DAY, Integer.MAX_VALUE, 200},
+            "PatientTimelineDAO.PRESCRIPTIONS_ASC_SQL",
+            new Object[]{1, FIRST_DAY, LAST_DAY, FIRST_DAY, FIRST_DAY, 0, 200},
+            "PatientTimelineDAO.PRESCRIPTIONS_DESC_SQL",
+            new Object[]{1, FIRST_DAY, LAST_DAY, LAST_DAY, LAST_DAY, Integer.MAX_VALUE, 200},
+            // patient, as of, as of
+            "PatientTimelineDAO.ACTIVE_PRESCRIPTIONS_SQL",
+            new Object[]{1, Date.valueOf("2025-01-01"), Date.valueOf("2025-01-01")});
+
+    // Access paths covered by SchemaBootstrap.INDEXES that no DAO statement exercises by itself
+    private static final List<Probe> INDEX_PROBES = List.of(
+            new Probe("visits by patient and date", false,
+                    "SELECT * FROM visits WHERE patientID = ? AND dateofvisit >= ? ORDER BY dateofvisit DESC",
+                    1, Date.valueOf("2000-01-01")),
+            new Probe("visits by doctor and date", false,
+                    "SELECT * FROM visits WHERE doctorID = ? ORDER BY dateofvisit DESC", 1),
+            new Probe("prescriptions by drug", false, "SELECT * FROM prescriptions WHERE drugID = ?", 1),
+            new Probe("doctors by specialization", false, "SELECT * FROM doctors WHERE specialization = ?", "Cardiology"),
+            new Probe("patients by surname", false,
+                    "SELECT * FROM patients WHERE surname = ? ORDER BY firstname", "Smith")
+    );
+
+    private static List<Probe> probes() {
+        List<Probe> probes = new ArrayList<>();
+        for (SqlRegistry.Statement st : SqlRegistry.statements()) {
+            Object[] params = SAMPLES.get(st.getName());
+            if (params == null) {
+                params = new Object[st.getParameterCount()];
+                Arrays.fill(params, 1);
+            }
+            probes.add(new Probe(st.getName(), st.readsWholeTable(), st.getSql(), params));
+        }
+        probes.addAll(INDEX_PROBES);
+        return probes;
+    }
+
+    public static void main(String[] args) {
+        int flagged = 0;
+        try (Connection conn = DBConnection.getConnection()) {
+            for (Probe probe : probes()) {
+                List<String> problems = new ArrayList<>();
+                System.out.println("== " + probe.name);
+                try (PreparedStatement ps = conn.prepareStatement("EXPLAIN " + probe.sql)) {
+                    for (int i = 0; i < probe.params.length; i++) {
+                        ps.setObject(i + 1, probe.params[i]);
+                    }
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            String selectType = rs.getString("select_type");
+                            String table = rs.getString("table");
+                            String type = rs.getString("type");
+                            String key = rs.getString("key");
+                            String rows = rs.getString("rows");
+                            String extra = rs.getString("Extra");
+                            System.out.printf("   %-16s type=%-7s key=%-32s rows=%-8s %s%n",
+                                    table, type, key, rows, extra == null ? "" : extra);
+
+                            if ("INSERT".equals(selectType)) {
+                                continue; // the row being written, not a read
+                            }
+                            if ("ALL".equals(type)) {
+                                problems.add("full scan of " + table);
+                            }
+                            if (extra != null && extra.contains("Using filesort")) {
+                                problems.add("filesort on " + table);
+                            }
+                        }
+                    }
+                } catch (SQLException e) {
+                    problems.add("EXPLAIN failed: " + e.getMessage());
+                }
+
+                if (!problems.isEmpty() && !probe.scanExpected) {
+                    flagged++;
+                    System.out.println("   !! " + String.join(", ", problems));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Could not connect: " + e.getMessage());
+            System.exit(-1);
+        } finally {
+            DBConnection.shutdown();
+        }
+
+        System.out.println();
+        System.out.println(flagged == 0 ? "No unexpected scans." : flagged + " query(ies) flagged.");
+        System.exit(flagged);
+    }
+}
@@ -0,0 +1,342 @@
+package com.example.hospital.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.*;
+
+/**
+ * One-time schema bootstrap, run by {@link DBConnection} when its pool is first opened.
+ *
+ * The "schema_version" table records which DDL version has been applied and a SHA-256
+ * checksum of the bundled CSV resources. On startup:
+ * 1) If both match, nothing else runs (one SELECT instead of all DDL + CSV imports).
+ * 2) If the schema version is older, the DDL is (re)applied, and visits get their
+ *    import_key column if they lack it.
+ * 3) If the CSV checksum differs, the CSVs are imported and subclass rows extracted.
+ * 4) Missing secondary indexes from {@link #INDEXES} are created (after the import,
+ *    so a fresh database isn't loaded row by row into indexed tables).
+ *
+ * A MariaDB named lock keeps several JVMs starting at once from bootstrapping concurrently.
+ */
+public class SchemaBootstrap {
+
+    /** Bump whenever the DDL in {@link #createTables(Connection)} or {@link #INDEXES} changes. */
+    public static final int SCHEMA_VERSION = 4;
+
+    /**
+     * Unique index on visits.import_key. The visits CSV has no ID column (visit_id is
+     * AUTO_INCREMENT), so the importer stores a hash of each source row there (see
+     * DBConnection.importKey) and a re-import skips the rows it already loaded instead of
+     * appending them again. Visits entered in the app leave it NULL, so they are never
+     * matched or constrained.
+     */
+    static final String VISITS_IMPORT_KEY = "uk_visits_import_key";
+
+    /**
+     * Secondary indexes for the lookups the app runs, as {name, table, columns}.
+     * The foreign keys already get single-column indexes; the composite ones below also
+     * cover the ORDER BY on the date, so "visits of patient X, newest first" is a range read.
+     */
+    static final String[][] INDEXES = {
+            {"idx_visits_patient_date", "visits", "patientID, dateofvisit"},
+            {"idx_visits_doctor_date", "visits", "doctorID, dateofvisit"},
+            {"idx_prescriptions_patient_date", "prescriptions", "patientID, dateprescribed"},
+            {"idx_prescriptions_drug", "prescriptions", "drugID"},
+            {"idx_doctors_specialization", "doctors", "specialization"},
+            {"idx_patients_surname", "patients", "surname, firstname"},
+    };
+
+    private static final String LOCK_NAME = "hospitaldatabase_bootstrap";
+    private static final int LOCK_TIMEOUT_SECONDS = 300;
+    private static final int ER_NO_SUCH_TABLE = 1146;
+
+    private SchemaBootstrap() {
+    }
+
+    public static void run(ConnectionPool pool) throws SQLException {
+        String checksum = csvChecksum();
+
+        try (Connection conn = pool.borrow()) {
+            // Fast path: already initialized with the same schema and data
+            if (isUpToDate(conn, checksum)) {
+                return;
+            }
+
+            acquireLock(conn);
+            try {
+                // Another JVM may have finished the bootstrap while we waited for the lock
+                int version = currentVersion(conn);
+                String storedChecksum = currentChecksum(conn);
+
+                if (version < SCHEMA_VERSION) {
+                    createTables(conn);
+                    addVisitsImportKey(conn); // before the import, which relies on it
+                }
+                if (!checksum.equals(storedChecksum)) {
+                    // This connection holds the lock, so the import can use at most max - 1 others
+                    int parallelism = Math.min(DBConnection.IMPORT_THREADS, pool.getConfig().maxSize - 1);
+                    DBConnection.loadCsvData(conn, pool, parallelism);
+                    DBConnection.extractSubclassData(conn);
+                }
+                if (version < SCHEMA_VERSION) {
+                    createIndexes(conn);
+                }
+                recordVersion(conn, checksum);
+            } finally {
+                releaseLock(conn);
+            }
+        }
+    }
+
+    private static boolean isUpToDate(Connection conn, String checksum) throws SQLException {
+        return currentVersion(conn) >= SCHEMA_VERSION && checksum.equals(currentChecksum(conn));
+    }
+
+    // -----------------------------------------------------------------------
+    // schema_version bookkeeping
+    // -----------------------------------------------------------------------
+    private static int currentVersion(Connection conn) throws SQLException {
+        String sql = "SELECT version FROM schema_version WHERE id = 1";
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(sql)) {
+            return rs.next() ? rs.getInt("version") : 0;
+        } catch (SQLException e) {
+            if (e.getErrorCode() == ER_NO_SUCH_TABLE) {
+                return 0; // fresh database
+            }
+            throw e;
+        }
+    }
+
+    private static String currentChecksum(Connection conn) throws SQLException {
+        String sql = "SELECT csv_checksum FROM schema_version WHERE id = 1";
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(sql)) {
+            return rs.next() ? rs.getString("csv_checksum") : null;
+        } catch (SQLException e) {
+            if (e.getErrorCode() == ER_NO_SUCH_TABLE) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * What the database was bootstrapped from, as "v<schema version>:<CSV checksum>", or null
+     * if it hasn't been. Changes whenever the DDL is upgraded or the CSVs are re-imported, so
+     * caches built from the tables (the search index file) can tell they are out of date.
+     */
+    public static String currentStamp(Connection conn) throws SQLException {
+        String checksum = currentChecksum(conn);
+        return checksum == null ? null : "v" + currentVersion(conn) + ":" + checksum;
+    }
+
+    private static void recordVersion(Connection conn, String checksum) throws SQLException {
+        String sql = "INSERT INTO schema_version (id, version, csv_checksum) VALUES (1, ?, ?) "
+                + "ON DUPLICATE KEY UPDATE version=VALUES(version), csv_checksum=VALUES(csv_checksum), "
+                + "applied_at=CURRENT_TIMESTAMP";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, SCHEMA_VERSION);
+            ps.setString(2, checksum);
+            ps.executeUpdate();
+        }
+    }
+
+    private static void acquireLock(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            ps.setString(1, LOCK_NAME);
+            ps.setInt(2, LOCK_TIMEOUT_SECONDS);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("Could not acquire schema bootstrap lock within "
+                            + LOCK_TIMEOUT_SECONDS + " s.");
+                }
+            }
+        }
+    }
+
+    private static void releaseLock(Connection conn) {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            ps.setString(1, LOCK_NAME);
+            ps.executeQuery().close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /** SHA-256 over all bundled CSV resources, in load order. Missing resources hash as empty. */
+    static String csvChecksum() throws SQLException {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] buf = new byte[8192];
+            for (String path : DBConnection.CSV_RESOURCES) {
+                md.update(path.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+                try (InputStream is = SchemaBootstrap.class.getResourceAsStream(path)) {
+                    if (is == null) {
+                        continue;
+                    }
+                    int n;
+                    while ((n = is.read(buf)) != -1) {
+                        md.update(buf, 0, n);
+                    }
+                }
+            }
+            StringBuilder sb = new StringBuilder();
+            for (byte b : md.digest()) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException | IOException e) {
+            throw new SQLException("Could not checksum CSV resources.", e);
+        }
+    }
+
+    // -----------------------------------------------------------------------
+    // DDL
+    // -----------------------------------------------------------------------
+    /**
+     * Creates the 6 base tables + "specialists" + "insured_patients" + "schema_version".
+     */
+    static void createTables(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+
+            // schema_version (single row, id = 1)
+            stmt.executeUpdate(
+                    "CREATE TABLE IF NOT EXISTS schema_version ("
+                            + "  id INT PRIMARY KEY,"
+                            + "  version INT NOT NULL,"
+                            + "  csv_checksum VARCHAR(64),"
+                            + "  applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP"
+                            + ") ENGINE=InnoDB"
+            );
+
+            // doctors
+            stmt.executeUpdate(
+                    "CREATE TABLE IF NOT EXISTS doctors ("
+                            + "  doctor_id INT PRIMARY KEY,"
+                            + "  firstname VARCHAR(50),"
+                            + "  surname VARCHAR(50),"
+                            + "  address VARCHAR(100),"
+                            + "  email VARCHAR(100),"
+                            + "  specialization VARCHAR(100)"
+                            + ") ENGINE=InnoDB"
+            );
+
+            // specialists referencing doctors
+            stmt.executeUpdate(
+                    "CREATE TABLE IF NOT EXISTS specialists ("
+                            + "  specialist_id INT PRIMARY KEY,"
+                            + "  experience INT,"
+                            + "  FOREIGN KEY (specialist_id) REFERENCES doctors(doctor_id)"
+                            + "    ON DELETE CASCADE ON UPDATE CASCADE"
+                            + ") ENGINE=InnoDB"
+            );
+
+            // insurance
+            stmt.executeUpdate(
+                    "CREATE TABLE IF NOT EXISTS insurance ("
+                            + "  insurance_id INT PRIMARY KEY,"
+                            + "  company VARCHAR(100),"
+                            + "  address VARCHAR(100),"
+                            + "  phone VARCHAR(50)"
+                            + ") ENGINE=InnoDB"
+            );
+
+            // patients
+            stmt.executeUpdate(
+                    "CREATE TABLE IF NOT EXISTS patients ("
+                            + "  patient_id INT PRIMARY KEY,"
+                            + "  firstname VARCHAR(50),"
+                            + "  surname VARCHAR(50),"
+                            + "  postcode VARCHAR(50),"
+                            + "  address VARCHAR(100),"
+                            + "  phone VARCHAR(50),"
+                            + "  email VARCHAR(100),"
+                            + "  insurance_id INT,"
+                            + "  FOREIGN KEY (insurance_id) REFERENCES insurance(insurance_id)"
+                            + ") ENGINE=InnoDB"
+            );
+
+            // insured_patients referencing patients
+            stmt.executeUpdate(
+                    "CREATE TABLE IF NOT EXISTS insured_patients ("
+                            + "  patient_id INT PRIMARY KEY,"
+                            + "  insurance_type VARCHAR(50),"
+                            + "  insurance_company_name VARCHAR(100),"
+                            + "  duration_of_insurance INT,"
+                            + "  FOREIGN KEY (patient_id) REFERENCES patients(patient_id)"
+                            + "    ON DELETE CASCADE ON UPDATE CASCADE"
+                            + ") ENGINE=InnoDB"
+            );
+
+            // drugs
+            stmt.executeUpdate(
+                    "CREATE TABLE IF NOT EXISTS drugs ("
+                            + "  drug_id INT PRIMARY KEY,"
+                            + "  name VARCHAR(100),"
+                            + "  sideeffects VARCHAR(200),"
+                            + "  benefits VARCHAR(300)"
+                            + ") ENGINE=InnoDB"
+            );
+
+            // visits
+            stmt.executeUpdate(
+                    "CREATE TABLE IF NOT EXISTS visits ("
+                            + "  visit_id INT AUTO_INCREMENT PRIMARY KEY,"
+                            + "  patientID INT NOT NULL,"
+                            + "  doctorID INT NOT NULL,"
+                            + "  dateofvisit DATE,"
+                            + "  symptoms VARCHAR(200),"
+                            + "  diagnosis VARCHAR(200),"
+                            + "  import_key CHAR(64) CHARACTER SET ascii NULL,"
+                            + "  UNIQUE KEY " + VISITS_IMPORT_KEY + " (import_key),"
+                            + "  FOREIGN KEY (patientID) REFERENCES patients(patient_id),"
+                            + "  FOREIGN KEY (doctorID) REFERENCES doctors(doctor_id)"
+                            + ") ENGINE=InnoDB"
+            );
+
+            // prescriptions
+            stmt.executeUpdate(
+                    "CREATE TABLE IF NOT EXISTS prescriptions ("
+                            + "  prescriptionID INT PRIMARY KEY,"
+                            + "  dateprescribed DATE,"
+                            + "  dosage VARCHAR(100),"
+                            + "  duration VARCHAR(100),"
+                            + "  comment VARCHAR(200),"
+                            + "  drugID INT,"
+                            + "  doctorID INT,"
+                            + "  patientID INT,"
+                            + "  FOREIGN KEY (drugID) REFERENCES drugs(drug_id),"
+                            + "  FOREIGN KEY (doctorID) REFERENCES doctors(doctor_id),"
+                            + "  FOREIGN KEY (patientID) REFERENCES patients(patient_id)"
+                            + ") ENGINE=InnoDB"
+            );
+
+        }
+    }
+
+    /**
+     * Adds visits.import_key and its unique index to a visits table created before schema
+     * version 4. Existing rows keep a NULL key; nothing is deleted. Also drops the natural-key
+     * index schema version 3 had, which rejected legitimate repeat visits.
+     */
+    static void addVisitsImportKey(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("ALTER TABLE visits ADD COLUMN IF NOT EXISTS import_key CHAR(64) CHARACTER SET ascii NULL");
+            stmt.executeUpdate("CREATE UNIQUE INDEX IF NOT EXISTS " + VISITS_IMPORT_KEY + " ON visits (import_key)");
+            stmt.executeUpdate("DROP INDEX IF EXISTS uk_visits_natural ON visits");
+        }
+    }
+
+    /** Creates the indexes in {@link #INDEXES} that don't exist yet. */
+    static void createIndexes(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (String[] index : INDEXES) {
+                stmt.executeUpdate("CREATE INDEX IF NOT EXISTS " + index[0]
+                        + " ON " + index[1] + " (" + index[2] + ")");
+            }
+        }
+    }
+}
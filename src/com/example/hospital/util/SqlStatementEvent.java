@@ -0,0 +1,43 @@
+package com.example.hospital.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for one statement executed on a pooled connection (see {@link SqlTrace}).
+ * Shows up under Hospital / Database in Mission Control, next to GC and thread events.
+ * The duration is the execute call; for queries the row count is filled in once the
+ * result set is closed.
+ */
+@Name("com.example.hospital.SqlStatement")
+@Label("SQL Statement")
+@Category({"Hospital", "Database"})
+@Description("A statement executed through the connection pool")
+final class SqlStatementEvent extends Event {
+
+    @Label("SQL")
+    String sql;
+
+    @Label("Parameters")
+    @Description("Number of ? placeholders in the statement")
+    int parameterCount;
+
+    @Label("Batch Size")
+    int batchSize;
+
+    @Label("Rows")
+    @Description("Rows read (queries) or affected (updates); -1 if unknown")
+    long rowCount;
+
+    @Label("Connection Wait")
+    @Description("Time the borrower waited for the connection this statement ran on")
+    @Timespan(Timespan.NANOSECONDS)
+    long connectionWait;
+
+    @Label("Failed")
+    boolean failed;
+}
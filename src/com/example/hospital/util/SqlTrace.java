@@ -0,0 +1,299 @@
+package com.example.hospital.util;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.FileHandler;
+import java.util.logging.Formatter;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Times every statement executed on a pooled connection, for the DAOs and the CSV loaders alike.
+ *
+ * 1) {@link ConnectionPool} wraps each statement it hands out (see {@link #wrap}).
+ * 2) Every execute call emits a {@link SqlStatementEvent} (SQL template, parameter count,
+ *    rows, duration, connection wait) when Flight Recorder is recording, e.g. with
+ *    -XX:StartFlightRecording or jcmd <pid> JFR.start.
+ * 3) Statements slower than hospital.sql.slowMillis (default 1000, 0 = off) are also written
+ *    to a rolling slow-query log: hospital.sql.slowLog (default slow-queries.log), rolled over
+ *    at hospital.sql.slowLogBytes (10 MB) with hospital.sql.slowLogFiles (5) files kept.
+ *
+ * For queries the duration is the execute call; rows are counted while the caller reads
+ * the result set and reported when it is closed. -Dhospital.sql.trace=false turns it all off.
+ */
+final class SqlTrace {
+
+    private static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("hospital.sql.trace", "true"));
+    private static final long SLOW_NANOS = TimeUnit.MILLISECONDS.toNanos(Long.getLong("hospital.sql.slowMillis", 1000L));
+    private static final String SLOW_LOG = System.getProperty("hospital.sql.slowLog", "slow-queries.log");
+    private static final int SLOW_LOG_BYTES = Integer.getInteger("hospital.sql.slowLogBytes", 10 * 1024 * 1024);
+    private static final int SLOW_LOG_FILES = Integer.getInteger("hospital.sql.slowLogFiles", 5);
+
+    private static Logger slowLog; // opened on the first slow statement
+    private static boolean slowLogFailed = false;
+
+    private SqlTrace() {
+    }
+
+    /**
+     * @param type     the statement interface to expose (Statement, PreparedStatement, ...)
+     * @param template the SQL it was prepared with, or null for a plain Statement
+     * @param connectionWaitNanos how long the borrower waited for the connection
+     */
+    static Statement wrap(Statement target, Class<?> type, String template, long connectionWaitNanos) {
+        if (!ENABLED) {
+            return target;
+        }
+        return (Statement) Proxy.newProxyInstance(
+                SqlTrace.class.getClassLoader(),
+                new Class<?>[]{type},
+                new Traced(target, template, connectionWaitNanos));
+    }
+
+    /** Number of ? placeholders outside of quoted strings. */
+    static int countPlaceholders(String sql) {
+        if (sql == null) return 0;
+        int count = 0;
+        char quote = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                if (c == quote) quote = 0;
+            } else if (c == '\'' || c == '"' || c == '`') {
+                quote = c;
+            } else if (c == '?') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void finish(SqlStatementEvent event, String sql, int params, int batchSize, long rows,
+                               long elapsedNanos, long waitNanos, boolean failed) {
+        if (event.shouldCommit()) {
+            event.sql = sql;
+            event.parameterCount = params;
+            event.batchSize = batchSize;
+            event.rowCount = rows;
+            event.connectionWait = waitNanos;
+            event.failed = failed;
+            event.commit();
+        }
+        if (SLOW_NANOS > 0 && elapsedNanos >= SLOW_NANOS) {
+            logSlow(String.format(Locale.ROOT, "%s %10.1f ms  wait=%.1f ms  rows=%d  params=%d%s%s  %s",
+                    LocalDateTime.now(), elapsedNanos / 1e6, waitNanos / 1e6, rows, params,
+                    batchSize > 0 ? "  batch=" + batchSize : "", failed ? "  FAILED" : "",
+                    sql == null ? "?" : sql.replaceAll("\\s+", " ")));
+        }
+    }
+
+    private static synchronized void logSlow(String line) {
+        if (slowLog == null && !slowLogFailed) {
+            try {
+                FileHandler handler = new FileHandler(SLOW_LOG + ".%g", SLOW_LOG_BYTES, SLOW_LOG_FILES, true);
+                handler.setFormatter(new Formatter() {
+                    @Override
+                    public String format(LogRecord record) {
+                        return record.getMessage() + System.lineSeparator();
+                    }
+                });
+                Logger logger = Logger.getLogger("com.example.hospital.sql.slow");
+                logger.setUseParentHandlers(false);
+                logger.addHandler(handler);
+                slowLog = logger;
+            } catch (IOException | SecurityException e) {
+                slowLogFailed = true;
+                System.err.println("Slow query log disabled, cannot open " + SLOW_LOG + ": " + e.getMessage());
+            }
+        }
+        if (slowLog != null) {
+            slowLog.info(line);
+        }
+    }
+
+    private static final class Traced implements InvocationHandler {
+        private final Statement target;
+        private final String template;
+        private final int templateParams;
+        private final long waitNanos;
+        private int batchSize = 0;
+        private OpenResult open; // last query, until its result set is closed
+
+        Traced(Statement target, String template, long waitNanos) {
+            this.target = target;
+            this.template = template;
+            this.templateParams = countPlaceholders(template);
+            this.waitNanos = waitNanos;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                return execute(proxy, method, args);
+            }
+            switch (name) {
+                case "addBatch":
+                    batchSize++;
+                    break;
+                case "clearBatch":
+                    batchSize = 0;
+                    break;
+                case "close":
+                    closeOpenResult();
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            return call(method, args);
+        }
+
+        private Object execute(Object proxy, Method method, Object[] args) throws Throwable {
+            closeOpenResult();
+            boolean ownSql = args != null && args.length > 0 && args[0] instanceof String;
+            String sql = ownSql ? (String) args[0] : template;
+            int params = ownSql ? 0 : templateParams;
+            int batch = method.getName().contains("Batch") ? batchSize : 0;
+
+            SqlStatementEvent event = new SqlStatementEvent();
+            event.begin();
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = call(method, args);
+            } catch (Throwable t) {
+                event.end();
+                finish(event, sql, params, batch, -1, System.nanoTime() - start, waitNanos, true);
+                throw t;
+            } finally {
+                if (batch > 0) batchSize = 0; // executeBatch empties the batch, failed or not
+            }
+            long elapsed = System.nanoTime() - start;
+            event.end();
+
+            if (result instanceof ResultSet) {
+                open = new OpenResult(event, sql, params, elapsed, waitNanos);
+                return Proxy.newProxyInstance(SqlTrace.class.getClassLoader(),
+                        new Class<?>[]{ResultSet.class}, new CountingResultSet((ResultSet) result, open, proxy));
+            }
+            finish(event, sql, params, batch, rowsOf(result), elapsed, waitNanos, false);
+            return result;
+        }
+
+        private static long rowsOf(Object result) {
+            if (result instanceof Integer || result instanceof Long) {
+                return ((Number) result).longValue();
+            }
+            long sum = 0;
+            if (result instanceof int[]) {
+                for (int n : (int[]) result) sum += Math.max(0, n);
+                return sum;
+            }
+            if (result instanceof long[]) {
+                for (long n : (long[]) result) sum += Math.max(0, n);
+                return sum;
+            }
+            return -1; // execute(): boolean
+        }
+
+        private void closeOpenResult() {
+            OpenResult r = open;
+            open = null;
+            if (r != null) {
+                r.finish();
+            }
+        }
+
+        private Object call(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /** A query whose event waits for the row count. */
+    private static final class OpenResult {
+        final SqlStatementEvent event;
+        final String sql;
+        final int params;
+        final long elapsedNanos;
+        final long waitNanos;
+        long rows = 0;
+        boolean finished = false;
+
+        OpenResult(SqlStatementEvent event, String sql, int params, long elapsedNanos, long waitNanos) {
+            this.event = event;
+            this.sql = sql;
+            this.params = params;
+            this.elapsedNanos = elapsedNanos;
+            this.waitNanos = waitNanos;
+        }
+
+        void finish() {
+            if (!finished) {
+                finished = true;
+                SqlTrace.finish(event, sql, params, 0, rows, elapsedNanos, waitNanos, false);
+            }
+        }
+    }
+
+    private static final class CountingResultSet implements InvocationHandler {
+        private final ResultSet target;
+        private final OpenResult open;
+        private final Object statement;
+
+        CountingResultSet(ResultSet target, OpenResult open, Object statement) {
+            this.target = target;
+            this.open = open;
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next":
+                    Object more = call(method, args);
+                    if ((Boolean) more) {
+                        open.rows++;
+                    }
+                    return more;
+                case "close":
+                    try {
+                        return call(method, args);
+                    } finally {
+                        open.finish();
+                    }
+                case "getStatement":
+                    return statement;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return call(method, args);
+            }
+        }
+
+        private Object call(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
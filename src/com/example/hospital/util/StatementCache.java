@@ -0,0 +1,177 @@
+package com.example.hospital.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-connection cache of prepared statements, keyed by SQL text.
+ *
+ * The DAOs prepare the same handful of statements over and over on pooled connections.
+ * With server-side prepare on, every prepareStatement would be a PREPARE round trip; with
+ * this cache, the second and later calls on the same physical connection get the already
+ * prepared statement back. Callers still close their statement as usual: close() on the
+ * returned wrapper resets it (parameters, batch, open result) and puts it back.
+ *
+ * - Least recently used statements are closed once the cache is over capacity.
+ * - If the same SQL is prepared again while the cached one is still open (nested use),
+ *   the second caller gets a plain, uncached statement.
+ * - When the connection goes back to the pool, statements the borrower never closed
+ *   are dropped.
+ */
+final class StatementCache {
+
+    private final Connection physical;
+    private final int capacity;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong evictions;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    StatementCache(Connection physical, int capacity, AtomicLong hits, AtomicLong misses, AtomicLong evictions) {
+        this.physical = physical;
+        this.capacity = capacity;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+    }
+
+    /** Returns the cached statement for sql (preparing it on a miss), leased to the caller until closed. */
+    synchronized PreparedStatement prepare(String sql, Connection owner) throws SQLException {
+        Entry e = entries.get(sql);
+        if (e == null) {
+            misses.incrementAndGet();
+            e = new Entry(sql, physical.prepareStatement(sql));
+            entries.put(sql, e);
+        } else if (e.leased) {
+            misses.incrementAndGet();
+            return physical.prepareStatement(sql);
+        } else {
+            hits.incrementAndGet();
+        }
+        e.leased = true;
+        evictOverflow();
+        return (PreparedStatement) Proxy.newProxyInstance(
+                StatementCache.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new Lease(e, owner));
+    }
+
+    /** Called when the connection is returned to the pool. */
+    synchronized void dropLeased() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry e = it.next();
+            if (e.leased) {
+                it.remove();
+                drop(e);
+            }
+        }
+    }
+
+    private synchronized void giveBack(Entry e) {
+        if (e.dropped) return;
+        try {
+            ResultSet open = e.stmt.getResultSet();
+            if (open != null) {
+                open.close();
+            }
+            e.stmt.clearParameters();
+            e.stmt.clearBatch();
+            e.stmt.clearWarnings();
+            e.stmt.setFetchSize(0);
+            e.stmt.setMaxRows(0);
+            e.stmt.setQueryTimeout(0);
+            e.leased = false;
+            evictOverflow();
+        } catch (SQLException ex) {
+            entries.remove(e.sql);
+            drop(e);
+        }
+    }
+
+    /** Closes least recently used statements that are not leased until the cache fits. */
+    private void evictOverflow() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (entries.size() > capacity && it.hasNext()) {
+            Entry e = it.next();
+            if (!e.leased) {
+                it.remove();
+                drop(e);
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private static void drop(Entry e) {
+        e.dropped = true;
+        try {
+            e.stmt.close();
+        } catch (SQLException ignored) {
+            // the connection may already be gone
+        }
+    }
+
+    private static final class Entry {
+        final String sql;
+        final PreparedStatement stmt;
+        boolean leased = false;
+        boolean dropped = false;
+
+        Entry(String sql, PreparedStatement stmt) {
+            this.sql = sql;
+            this.stmt = stmt;
+        }
+    }
+
+    /** The statement a caller sees; close() hands the cached statement back. */
+    private final class Lease implements InvocationHandler {
+        private final Entry entry;
+        private final Connection owner;
+        private volatile boolean closed = false;
+
+        Lease(Entry entry, Connection owner) {
+            this.entry = entry;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        giveBack(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || entry.dropped;
+                case "getConnection":
+                    return owner; // not the physical connection, which must not escape the pool
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + entry.sql + "]";
+                default:
+                    if (closed || entry.dropped) {
+                        throw new SQLException("Statement already closed.");
+                    }
+                    try {
+                        return method.invoke(entry.stmt, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.hospital.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs several DAO calls as one unit of work: one pooled connection, one commit.
+ *
+ *   Transactions.run(tx -> {
+ *       visitDAO.insertVisit(visit);
+ *       prescriptionDAO.insertPrescriptions(prescriptions);
+ *   });
+ *
+ * 1) The scope borrows a connection, turns auto-commit off and binds it to the calling thread.
+ * 2) While the scope is open, {@link DBConnection#getConnection()} on that thread returns the
+ *    bound connection, so the DAOs join the transaction without any change to their signatures.
+ *    Their close() calls don't hand it back, and their own commit/auto-commit calls are ignored
+ *    (BulkWrite batches become part of the outer transaction).
+ * 3) At the end the scope commits once. It rolls back instead if the work throws, if any
+ *    statement on the connection failed (the DAOs only print such errors, so the scope keeps
+ *    track of them itself), or if {@link Transaction#setRollbackOnly()} was called. A failed
+ *    scope ends with a SQLException.
+ *
+ * A scope opened inside another one on the same thread just joins it.
+ */
+public final class Transactions {
+
+    private static final ThreadLocal<Transaction> CURRENT = new ThreadLocal<>();
+
+    /** The body of a scope. */
+    @FunctionalInterface
+    public interface Work {
+        void run(Transaction tx) throws SQLException;
+    }
+
+    /** The body of a scope that returns a value. */
+    @FunctionalInterface
+    public interface Call<T> {
+        T call(Transaction tx) throws SQLException;
+    }
+
+    private Transactions() {
+    }
+
+    public static void run(Work work) throws SQLException {
+        call(tx -> {
+            work.run(tx);
+            return null;
+        });
+    }
+
+    public static <T> T call(Call<T> work) throws SQLException {
+        Transaction joined = CURRENT.get();
+        if (joined != null) {
+            return work.call(joined);
+        }
+
+        Connection conn = DBConnection.getConnection();
+        Transaction tx;
+        try {
+            conn.setAutoCommit(false);
+            tx = new Transaction(conn);
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+
+        CURRENT.set(tx);
+        boolean committed = false;
+        try {
+            T result = work.call(tx);
+            if (tx.failure != null) {
+                throw new SQLException("Transaction rolled back, a statement failed: " + tx.failure.getMessage(),
+                        tx.failure.getSQLState(), tx.failure);
+            }
+            if (tx.rollbackOnly) {
+                throw new SQLException("Transaction rolled back (marked rollback-only).");
+            }
+            conn.commit();
+            committed = true;
+            return result;
+        } finally {
+            CURRENT.remove();
+            try {
+                if (!committed) {
+                    conn.rollback();
+                }
+                conn.setAutoCommit(true);
+            } catch (SQLException e) {
+                e.printStackTrace(); // the pool resets/drops the connection on return anyway
+            } finally {
+                conn.close();
+                tx.completed(committed);
+            }
+        }
+    }
+
+    /** True if the calling thread is inside a scope. */
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Runs action once the current scope has committed or rolled back, or right away when
+     * there is no scope. The caches use it to drop entries read or written inside a transaction.
+     */
+    public static void afterCompletion(Runnable action) {
+        Transaction tx = CURRENT.get();
+        if (tx == null) {
+            action.run();
+        } else {
+            tx.afterCompletion.add(action);
+        }
+    }
+
+    /**
+     * Runs action once the current scope has committed, or right away when there is no scope.
+     * Unlike {@link #afterCompletion}, it is dropped if the scope rolls back; the search index
+     * uses it so it never shows rows that were never written.
+     */
+    public static void afterCommit(Runnable action) {
+        Transaction tx = CURRENT.get();
+        if (tx == null) {
+            action.run();
+        } else {
+            tx.afterCommit.add(action);
+        }
+    }
+
+    /** Called by {@link DBConnection#getConnection()}; null outside a scope. */
+    static Connection boundConnection() {
+        Transaction tx = CURRENT.get();
+        return tx == null ? null : tx.shared;
+    }
+
+    public static final class Transaction {
+        private final Connection pooled;
+        private final Connection shared;
+        private final List<Runnable> afterCompletion = new ArrayList<>();
+        private final List<Runnable> afterCommit = new ArrayList<>();
+        private SQLException failure;
+        private boolean rollbackOnly = false;
+
+        private Transaction(Connection pooled) {
+            this.pooled = pooled;
+            this.shared = (Connection) Proxy.newProxyInstance(
+                    Transactions.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    this::invokeConnection);
+        }
+
+        /** The connection of this scope, for SQL outside the DAOs. Don't close or commit it. */
+        public Connection getConnection() {
+            return shared;
+        }
+
+        /** Makes the scope roll back at the end instead of committing. */
+        public void setRollbackOnly() {
+            rollbackOnly = true;
+        }
+
+        public boolean isRollbackOnly() {
+            return rollbackOnly || failure != null;
+        }
+
+        private void failed(SQLException e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+
+        private void completed(boolean committed) {
+            if (committed) {
+                for (Runnable action : afterCommit) {
+                    action.run();
+                }
+            }
+            for (Runnable action : afterCompletion) {
+                action.run();
+            }
+        }
+
+        private Object invokeConnection(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                case "commit":
+                case "setAutoCommit":
+                    return null; // the scope owns these
+                case "getAutoCommit":
+                    return false;
+                case "isClosed":
+                    return pooled.isClosed();
+                case "rollback":
+                    if (args == null || args.length == 0) {
+                        // a DAO giving up on its part: the whole scope rolls back at the end
+                        rollbackOnly = true;
+                        return null;
+                    }
+                    break; // rollback(Savepoint) is the caller's business
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Transaction[" + pooled + "]";
+                default:
+                    break;
+            }
+            Object result = invokeTracked(pooled, method, args);
+            if (result instanceof Statement && method.getReturnType().isInterface()) {
+                Object target = result;
+                return Proxy.newProxyInstance(
+                        Transactions.class.getClassLoader(),
+                        new Class<?>[]{method.getReturnType()},
+                        statementHandler(target, proxy));
+            }
+            return result;
+        }
+
+        /** Statements remember their failures in the scope, and point back to the shared connection. */
+        private InvocationHandler statementHandler(Object target, Object connection) {
+            return (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getConnection":
+                        return connection;
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return invokeTracked(target, method, args);
+                }
+            };
+        }
+
+        private Object invokeTracked(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException && !method.getName().equals("close")) {
+                    failed((SQLException) cause);
+                }
+                throw cause;
+            }
+        }
+    }
+}